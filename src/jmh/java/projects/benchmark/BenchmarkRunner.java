@@ -0,0 +1,350 @@
+package projects.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * This class is the entry point of target/benchmarks.jar.
+ *
+ *   java -jar target/benchmarks.jar [include regex ...]
+ *       runs the benchmarks and writes JSON results to -Dbench.result (default jmh-result.json)
+ *   -Dbench.baseline=old.json
+ *       compares the new results with an earlier run once the benchmarks finish
+ *   java -jar target/benchmarks.jar --compare old.json new.json
+ *       compares two result files without running anything
+ *   -Dbench.dao=true
+ *       includes ProjectDaoBenchmark, which needs a MySQL server (see -Ddb.* in db.properties)
+ *   -Dbench.threshold=5
+ *       the change in percent above which a result is flagged as a regression or improvement
+ */
+public class BenchmarkRunner {
+	private static final String COMPARE_OPTION = "--compare";
+
+	public static void main(String[] args) throws IOException, RunnerException {
+		if (args.length > 0 && COMPARE_OPTION.equals(args[0])) {
+			if (args.length != 3) {
+				System.err.println("Usage: " + COMPARE_OPTION + " <baseline.json> <current.json>");
+				System.exit(2);
+			} // if statement
+
+			compare(Path.of(args[1]), Path.of(args[2]));
+			return;
+		} // if statement
+
+		Path result = Path.of(System.getProperty("bench.result", "jmh-result.json"));
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.resultFormat(ResultFormatType.JSON)
+				.result(result.toString());
+
+		if (args.length == 0) {
+			options.include(BenchmarkRunner.class.getPackageName() + ".*");
+		} // if statement
+
+		for (String include : args) {
+			options.include(include);
+		} // for loop
+
+		if (!Boolean.getBoolean("bench.dao")) {
+			options.exclude(ProjectDaoBenchmark.class.getSimpleName());
+		} // if statement
+
+		new Runner(options.build()).run();
+
+		String baseline = System.getProperty("bench.baseline");
+
+		if (Objects.nonNull(baseline)) {
+			compare(Path.of(baseline), result);
+		} // if statement
+	} // main method
+
+	/*
+	 * This method prints the change of each benchmark that appears in both result files. Scores in a
+	 * time-per-operation unit are better when lower, throughput scores when higher.
+	 */
+	static void compare(Path baselineFile, Path currentFile) throws IOException {
+		Map<String, Score> baseline = readScores(baselineFile);
+		Map<String, Score> current = readScores(currentFile);
+		double threshold = Double.parseDouble(System.getProperty("bench.threshold", "5"));
+
+		System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+
+		for (Map.Entry<String, Score> entry : current.entrySet()) {
+			Score before = baseline.get(entry.getKey());
+			Score after = entry.getValue();
+
+			if (Objects.isNull(before)) {
+				System.out.printf("%-70s %14s %14.3f %9s  new%n", entry.getKey(), "-", after.value(), "");
+				continue;
+			} // if statement
+
+			double change = (after.value() - before.value()) / before.value() * 100;
+			boolean lowerIsBetter = after.unit().endsWith("/op");
+			double improvement = lowerIsBetter ? -change : change;
+			String verdict = "";
+
+			if (improvement <= -threshold) {
+				verdict = "  REGRESSION";
+			} else if (improvement >= threshold) {
+				verdict = "  improved";
+			} // if statement
+
+			System.out.printf("%-70s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before.value(), after.value(), change,
+					verdict);
+		} // for loop
+
+		for (String name : baseline.keySet()) {
+			if (!current.containsKey(name)) {
+				System.out.printf("%-70s %14.3f %14s %9s  missing%n", name, baseline.get(name).value(), "-", "");
+			} // if statement
+		} // for loop
+	} // compare method
+
+	/*
+	 * This method reads a JMH JSON result file into scores keyed by benchmark name and parameters
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, Score> readScores(Path file) throws IOException {
+		Object json = new JsonParser(Files.readString(file, StandardCharsets.UTF_8)).parse();
+		Map<String, Score> scores = new TreeMap<>();
+
+		for (Object element : (List<Object>) json) {
+			Map<String, Object> run = (Map<String, Object>) element;
+			String name = (String) run.get("benchmark");
+			Map<String, Object> params = (Map<String, Object>) run.get("params");
+
+			if (Objects.nonNull(params) && !params.isEmpty()) {
+				name += params.toString().replace('{', '(').replace('}', ')');
+			} // if statement
+
+			Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+			Object score = metric.get("score");
+
+			/* JMH writes a score it could not compute as the string "NaN" */
+			double value = score instanceof Number number ? number.doubleValue() : Double.NaN;
+			scores.put(name, new Score(value, (String) metric.get("scoreUnit")));
+		} // for loop
+
+		return scores;
+	} // readScores method
+
+	private record Score(double value, String unit) {
+	} // record Score
+
+	/*
+	 * This class is a minimal JSON reader, enough for the JMH result format. Objects become maps, arrays
+	 * become lists and numbers become doubles.
+	 */
+	private static class JsonParser {
+		private final String text;
+		private int position;
+
+		JsonParser(String text) {
+			this.text = text;
+		} // JsonParser constructor
+
+		Object parse() {
+			Object value = readValue();
+			skipWhitespace();
+
+			if (position != text.length()) {
+				throw error("Unexpected content");
+			} // if statement
+
+			return value;
+		} // parse method
+
+		private Object readValue() {
+			skipWhitespace();
+
+			if (position >= text.length()) {
+				throw error("Unexpected end of input");
+			} // if statement
+
+			char ch = text.charAt(position);
+
+			switch (ch) {
+				case '{':
+					return readObject();
+
+				case '[':
+					return readArray();
+
+				case '"':
+					return readString();
+
+				default:
+					break;
+			} // switch statement
+
+			if (text.startsWith("true", position)) {
+				position += 4;
+				return Boolean.TRUE;
+			} // if statement
+
+			if (text.startsWith("false", position)) {
+				position += 5;
+				return Boolean.FALSE;
+			} // if statement
+
+			if (text.startsWith("null", position)) {
+				position += 4;
+				return null;
+			} // if statement
+
+			return readNumber();
+		} // readValue method
+
+		private Map<String, Object> readObject() {
+			Map<String, Object> object = new LinkedHashMap<>();
+			position++;
+			skipWhitespace();
+
+			if (peek() == '}') {
+				position++;
+				return object;
+			} // if statement
+
+			while (true) {
+				skipWhitespace();
+				String key = readString();
+				skipWhitespace();
+				expect(':');
+				object.put(key, readValue());
+				skipWhitespace();
+
+				if (peek() == '}') {
+					position++;
+					return object;
+				} // if statement
+
+				expect(',');
+			} // while block
+		} // readObject method
+
+		private List<Object> readArray() {
+			List<Object> array = new ArrayList<>();
+			position++;
+			skipWhitespace();
+
+			if (peek() == ']') {
+				position++;
+				return array;
+			} // if statement
+
+			while (true) {
+				array.add(readValue());
+				skipWhitespace();
+
+				if (peek() == ']') {
+					position++;
+					return array;
+				} // if statement
+
+				expect(',');
+			} // while block
+		} // readArray method
+
+		private String readString() {
+			expect('"');
+			StringBuilder builder = new StringBuilder();
+
+			while (position < text.length()) {
+				char ch = text.charAt(position++);
+
+				if (ch == '"') {
+					return builder.toString();
+				} // if statement
+
+				if (ch != '\\') {
+					builder.append(ch);
+					continue;
+				} // if statement
+
+				char escaped = text.charAt(position++);
+
+				switch (escaped) {
+					case 'n':
+						builder.append('\n');
+						break;
+
+					case 't':
+						builder.append('\t');
+						break;
+
+					case 'r':
+						builder.append('\r');
+						break;
+
+					case 'b':
+						builder.append('\b');
+						break;
+
+					case 'f':
+						builder.append('\f');
+						break;
+
+					case 'u':
+						builder.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+						position += 4;
+						break;
+
+					default:
+						builder.append(escaped);
+						break;
+				} // switch statement
+			} // while block
+
+			throw error("Unterminated string");
+		} // readString method
+
+		private Double readNumber() {
+			int start = position;
+
+			while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+				position++;
+			} // while block
+
+			if (start == position) {
+				throw error("Unexpected character '" + text.charAt(position) + "'");
+			} // if statement
+
+			return Double.valueOf(text.substring(start, position));
+		} // readNumber method
+
+		private void expect(char ch) {
+			if (peek() != ch) {
+				throw error("Expected '" + ch + "'");
+			} // if statement
+
+			position++;
+		} // expect method
+
+		private char peek() {
+			return position < text.length() ? text.charAt(position) : '\0';
+		} // peek method
+
+		private void skipWhitespace() {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			} // while block
+		} // skipWhitespace method
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at offset " + position + " of the result file.");
+		} // error method
+	} // class JsonParser
+} // class BenchmarkRunner
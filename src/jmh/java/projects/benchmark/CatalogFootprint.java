@@ -0,0 +1,106 @@
+package projects.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import projects.entity.Project;
+import projects.service.ProjectCatalog;
+
+/*
+ * This class measures how many bytes of heap each project holds when a large catalog is kept in
+ * memory, once as Project entities and once in a ProjectCatalog. The heap in use is read after
+ * repeated full collections before and after the projects are built, so the figure is retained memory,
+ * not allocation.
+ *
+ *   java -cp target/benchmarks.jar projects.benchmark.CatalogFootprint [projects] [children ...]
+ *
+ * The defaults are 100000 projects with 0 and 3 materials, steps and categories each. Run it with a
+ * heap large enough for the entity form, for example -Xmx2g.
+ */
+public class CatalogFootprint {
+	private static final int DEFAULT_PROJECTS = 100_000;
+	private static final int[] DEFAULT_CHILDREN = { 0, 3 };
+	private static final int SETTLE_ROUNDS = 5;
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PROJECTS;
+		int[] childCounts = DEFAULT_CHILDREN;
+
+		if (args.length > 1) {
+			childCounts = new int[args.length - 1];
+
+			for (int index = 1; index < args.length; index++) {
+				childCounts[index - 1] = Integer.parseInt(args[index]);
+			} // for loop
+		} // if statement
+
+		System.out.printf("%-10s %10s %16s %16s %8s%n", "children", "projects", "entity B/proj", "compact B/proj",
+				"saved");
+
+		for (int children : childCounts) {
+			long entityBytes = measureEntities(count, children);
+			long compactBytes = measureCatalog(count, children);
+
+			System.out.printf(Locale.ROOT, "%-10d %10d %16.1f %16.1f %7.1f%%%n", children, count,
+					(double) entityBytes / count, (double) compactBytes / count,
+					100.0 * (entityBytes - compactBytes) / entityBytes);
+		} // for loop
+	} // main method
+
+	/*
+	 * This method returns the heap held by the projects as a list of entities
+	 */
+	private static long measureEntities(int count, int children) {
+		long before = usedHeap();
+		List<Project> projects = new ArrayList<>(count);
+
+		for (int id = 1; id <= count; id++) {
+			projects.add(SyntheticJdbc.project(id, children));
+		} // for loop
+
+		long after = usedHeap();
+		keep(projects.size());
+		return after - before;
+	} // measureEntities method
+
+	/*
+	 * This method returns the heap held by the same projects in a catalog. Each entity is dropped once it
+	 * is added, so only the compact form is counted.
+	 */
+	private static long measureCatalog(int count, int children) {
+		long before = usedHeap();
+		ProjectCatalog catalog = new ProjectCatalog();
+
+		for (int id = 1; id <= count; id++) {
+			catalog.add(SyntheticJdbc.project(id, children));
+		} // for loop
+
+		catalog.trimToSize();
+
+		long after = usedHeap();
+		keep(catalog.size());
+		return after - before;
+	} // measureCatalog method
+
+	private static long usedHeap() {
+		for (int round = 0; round < SETTLE_ROUNDS; round++) {
+			System.gc();
+		} // for loop
+
+		return MEMORY.getHeapMemoryUsage().getUsed();
+	} // usedHeap method
+
+	/*
+	 * This method keeps the measured objects reachable until after the heap is read
+	 */
+	private static void keep(int size) {
+		if (size < 0) {
+			throw new IllegalStateException();
+		} // if statement
+	} // keep method
+} // class CatalogFootprint
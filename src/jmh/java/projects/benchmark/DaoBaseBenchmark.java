@@ -0,0 +1,129 @@
+package projects.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import projects.entity.Project;
+import provided.util.DaoBase;
+import provided.util.EntityBinder;
+import provided.util.RowMapper;
+
+/*
+ * This class measures the DaoBase row mapping and parameter binding paths against in-memory JDBC
+ * objects. The result set and statement proxies add the same fixed cost to every variant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBaseBenchmark {
+	private static final EntityBinder<Project> PROJECT_COLUMNS = EntityBinder.<Project>create()
+			.string(Project::getProjectName)
+			.decimal(Project::getEstimatedHours)
+			.decimal(Project::getActualHours)
+			.integer(Project::getDifficulty)
+			.string(Project::getNotes);
+
+	@Param({ "1", "100", "10000" })
+	private int rows;
+
+	private final BenchmarkDao dao = new BenchmarkDao();
+	private Object[][] projectRows;
+	private PreparedStatement stmt;
+	private Project project;
+
+	@Setup
+	public void setup() {
+		projectRows = SyntheticJdbc.projectRows(rows);
+		stmt = SyntheticJdbc.discardingStatement();
+		project = SyntheticJdbc.project(1, 0);
+	} // setup method
+
+	/*
+	 * DaoBase.extract called once per row, as the DAO loops do
+	 */
+	@Benchmark
+	public void extract(Blackhole blackhole) throws SQLException {
+		try (ResultSet rs = SyntheticJdbc.resultSet(SyntheticJdbc.PROJECT_COLUMNS, projectRows)) {
+			while (rs.next()) {
+				blackhole.consume(dao.extract(rs, Project.class));
+			} // while block
+		} // try
+	} // extract method
+
+	/*
+	 * The mapper looked up once and reused for every row
+	 */
+	@Benchmark
+	public void rowMapper(Blackhole blackhole) throws SQLException {
+		try (ResultSet rs = SyntheticJdbc.resultSet(SyntheticJdbc.PROJECT_COLUMNS, projectRows)) {
+			RowMapper<Project> mapper = RowMapper.forResultSet(rs, Project.class);
+
+			while (rs.next()) {
+				blackhole.consume(mapper.map(rs));
+			} // while block
+		} // try
+	} // rowMapper method
+
+	/*
+	 * The project columns bound once per row with DaoBase.setParameter
+	 */
+	@Benchmark
+	public void setParameter() throws SQLException {
+		for (int row = 0; row < rows; row++) {
+			dao.setParameter(stmt, 1, project.getProjectName(), String.class);
+			dao.setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+			dao.setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+			dao.setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+			dao.setParameter(stmt, 5, project.getNotes(), String.class);
+		} // for loop
+	} // setParameter method
+
+	/*
+	 * The same columns bound once per row with an EntityBinder
+	 */
+	@Benchmark
+	public void entityBinder() throws SQLException {
+		for (int row = 0; row < rows; row++) {
+			PROJECT_COLUMNS.bind(stmt, project);
+		} // for loop
+	} // entityBinder method
+
+	/*
+	 * This class opens up the protected DaoBase methods. It never borrows a connection.
+	 */
+	private static class BenchmarkDao extends DaoBase {
+		BenchmarkDao() {
+			super(null);
+		} // BenchmarkDao constructor
+
+		@Override
+		protected <T> T extract(ResultSet rs, Class<T> classType) {
+			return super.extract(rs, classType);
+		}
+
+		@Override
+		protected void setParameter(PreparedStatement stmt, int parameterIndex, Object value, Class<?> classType)
+				throws SQLException {
+			super.setParameter(stmt, parameterIndex, value, classType);
+		}
+	} // class BenchmarkDao
+} // class DaoBaseBenchmark
@@ -0,0 +1,105 @@
+package projects.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.entity.Project;
+import provided.util.DaoBase;
+import provided.util.DaoMetrics;
+import provided.util.EntityBinder;
+import provided.util.SlowQueryLog;
+
+/*
+ * This class measures what DaoMetrics and the slow query log add to one DAO statement: borrowing a
+ * connection, preparing, binding five parameters, executing and closing. Each of them wraps the
+ * connection or statement in a reflective proxy when it is on. The statement runs against in-memory
+ * JDBC objects, so the difference between the instrumentation settings is the cost of the proxies.
+ * The slow query threshold is never reached, so nothing is logged.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstrumentationBenchmark {
+	private static final String UPDATE_SQL = ""
+			+ "UPDATE project SET project_name = ?, estimated_hours = ?, actual_hours = ?, difficulty = ?, notes = ? "
+			+ "WHERE project_id = ?";
+
+	private static final EntityBinder<Project> UPDATE_COLUMNS = EntityBinder.<Project>create()
+			.string(Project::getProjectName)
+			.decimal(Project::getEstimatedHours)
+			.decimal(Project::getActualHours)
+			.integer(Project::getDifficulty)
+			.string(Project::getNotes)
+			.integer(Project::getProjectId);
+
+	@Param({ "none", "metrics", "slowQueryLog", "both" })
+	private String instrumentation;
+
+	private BenchmarkDao dao;
+	private Project project;
+
+	@Setup
+	public void setup() {
+		boolean metrics = instrumentation.equals("metrics") || instrumentation.equals("both");
+		boolean slowQueryLog = instrumentation.equals("slowQueryLog") || instrumentation.equals("both");
+
+		DaoMetrics.setEnabled(metrics);
+		SlowQueryLog.configure(slowQueryLog ? 60_000 : -1, 1000, List.of(), 100, "projects");
+
+		dao = new BenchmarkDao();
+		project = SyntheticJdbc.project(1, 0);
+	} // setup method
+
+	@TearDown
+	public void tearDown() {
+		DaoMetrics.setEnabled(false);
+		SlowQueryLog.configure(-1, 0, List.of(), 0, "");
+	} // tearDown method
+
+	@Benchmark
+	public int updateStatement() throws SQLException {
+		try (Connection conn = dao.getConnection("updateStatement");
+				PreparedStatement stmt = dao.prepare(conn, UPDATE_SQL)) {
+			UPDATE_COLUMNS.bind(stmt, project);
+			return stmt.executeUpdate();
+		} // try-with-resources block
+	} // updateStatement method
+
+	/*
+	 * This class opens up the protected DaoBase methods over the synthetic connection
+	 */
+	private static class BenchmarkDao extends DaoBase {
+		BenchmarkDao() {
+			super(SyntheticJdbc.dataSource());
+		} // BenchmarkDao constructor
+
+		@Override
+		protected Connection getConnection(String operation) throws SQLException {
+			return super.getConnection(operation);
+		}
+
+		@Override
+		protected PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+			return super.prepare(conn, sql);
+		}
+	} // class BenchmarkDao
+} // class InstrumentationBenchmark
@@ -0,0 +1,146 @@
+package projects.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.dao.FetchPlan;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+import projects.service.ProjectService;
+
+/*
+ * This class measures ProjectDao end to end against a running MySQL server. The connection settings
+ * come from db.properties and -Ddb.* system properties, which JMH passes on to the forked JVMs.
+ *
+ * The setup resets the configured schema, so point db.schema at a scratch schema. BenchmarkRunner only
+ * includes this class when -Dbench.dao=true is given.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProjectDaoBenchmark {
+	@Param({ "100", "1000" })
+	private int rows;
+
+	@Param({ "5", "50" })
+	private int children;
+
+	private final ProjectDao projectDao = new ProjectDao();
+	private final List<Integer> projectIds = new ArrayList<>();
+	private int next;
+
+	/*
+	 * This method recreates the tables and inserts the benchmark projects with their children
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		new ProjectService().createAndPopulateTables();
+
+		List<Project> projects = new ArrayList<>(rows);
+
+		for (int row = 0; row < rows; row++) {
+			projects.add(newProject(children));
+		} // for loop
+
+		projectDao.insertProjectGraphs(projects);
+
+		projectIds.clear();
+		projects.forEach(project -> projectIds.add(project.getProjectId()));
+	} // setup method
+
+	/*
+	 * A project without children is inserted and deleted again so the table size stays the same
+	 */
+	@Benchmark
+	public boolean insertAndDelete() {
+		Project project = newProject(0);
+
+		return projectDao.deleteProject(projectDao.insertProject(project).getProjectId());
+	} // insertAndDelete method
+
+	/*
+	 * A project with its children is inserted and deleted again
+	 */
+	@Benchmark
+	public boolean insertGraphAndDelete() {
+		Project project = newProject(children);
+		projectDao.insertProjectGraphs(List.of(project));
+
+		return projectDao.deleteProject(project.getProjectId());
+	} // insertGraphAndDelete method
+
+	@Benchmark
+	public Project fetchProject() {
+		return projectDao.fetchProjectId(nextProjectId()).orElseThrow();
+	} // fetchProject method
+
+	/*
+	 * The project row only. The child lists are left unloaded and are never read.
+	 */
+	@Benchmark
+	public Project fetchProjectHeaderOnly() {
+		return projectDao.fetchProjectId(nextProjectId(), FetchPlan.NONE).orElseThrow();
+	} // fetchProjectHeaderOnly method
+
+	/*
+	 * Every benchmark project with its children in one call
+	 */
+	@Benchmark
+	public List<Project> fetchAllWithChildren() {
+		return projectDao.fetchProjectsWithChildren(projectIds);
+	} // fetchAllWithChildren method
+
+	@Benchmark
+	public boolean update() {
+		Project project = SyntheticJdbc.project(nextProjectId(), 0);
+		project.setNotes("Updated at " + System.nanoTime());
+
+		return projectDao.modifyProjectsDetails(project);
+	} // update method
+
+	/*
+	 * A loaded project with only its difficulty changed, so the UPDATE leaves the other columns out
+	 */
+	@Benchmark
+	public boolean updateChangedFieldOnly() {
+		Project project = SyntheticJdbc.project(nextProjectId(), 0);
+		project.markClean();
+		project.setDifficulty(project.getDifficulty() % 5 + 1);
+
+		return projectDao.modifyProjectsDetails(project);
+	} // updateChangedFieldOnly method
+
+	/*
+	 * This method builds an unsaved project. Category links are left out because the seed data only has a
+	 * few categories.
+	 */
+	private Project newProject(int childCount) {
+		Project project = SyntheticJdbc.project(0, childCount);
+		project.setProjectId(null);
+		project.getCategories().clear();
+
+		return project;
+	} // newProject method
+
+	private int nextProjectId() {
+		next = (next + 1) % projectIds.size();
+		return projectIds.get(next);
+	} // nextProjectId method
+} // class ProjectDaoBenchmark
@@ -0,0 +1,44 @@
+package projects.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projects.entity.Project;
+
+/*
+ * This class measures Project.toString, which ProjectsApp prints for every selected project. The
+ * project has the given number of materials, steps and categories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectToStringBenchmark {
+	@Param({ "0", "10", "100", "1000" })
+	private int children;
+
+	private Project project;
+
+	@Setup
+	public void setup() {
+		project = SyntheticJdbc.project(1, children);
+	} // setup method
+
+	@Benchmark
+	public String projectToString() {
+		return project.toString();
+	} // projectToString method
+} // class ProjectToStringBenchmark
@@ -0,0 +1,93 @@
+package projects.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import projects.service.SqlScriptReader;
+
+/*
+ * This class measures the SQL script parser used by ProjectService to run the schema and seed files.
+ * The generated script mixes comments, quoted semicolons and multi-line statements like the real
+ * files do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScriptParserBenchmark {
+	private static final String SEED_FILE = "project_data.sql";
+
+	@Param({ "100", "10000", "100000" })
+	private int statements;
+
+	private String script;
+	private String seedScript;
+
+	@Setup
+	public void setup() throws IOException {
+		StringBuilder builder = new StringBuilder();
+
+		for (int index = 1; index <= statements; index++) {
+			if (index % 10 == 0) {
+				builder.append("-- section ").append(index / 10).append('\n');
+			} // if statement
+
+			builder.append("INSERT INTO step (project_id, step_text, step_order)\n")
+					.append("  VALUES (").append(index % 50 + 1).append(", 'Measure twice; cut once. It''s step ")
+					.append(index).append("', ").append(index).append(");\n");
+		} // for loop
+
+		script = builder.toString();
+
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(SEED_FILE)) {
+			seedScript = Objects.isNull(in) ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} // try
+	} // setup method
+
+	@Benchmark
+	public int generatedScript(Blackhole blackhole) throws IOException {
+		return parse(script, blackhole);
+	} // generatedScript method
+
+	/*
+	 * The bundled seed file. It does not depend on the statements parameter.
+	 */
+	@Benchmark
+	public int seedScript(Blackhole blackhole) throws IOException {
+		return parse(seedScript, blackhole);
+	} // seedScript method
+
+	private int parse(String text, Blackhole blackhole) throws IOException {
+		int count = 0;
+
+		try (SqlScriptReader reader = new SqlScriptReader(new StringReader(text))) {
+			String sql;
+
+			while (Objects.nonNull(sql = reader.next())) {
+				blackhole.consume(sql);
+				count++;
+			} // while block
+		} // try
+
+		return count;
+	} // parse method
+} // class ScriptParserBenchmark
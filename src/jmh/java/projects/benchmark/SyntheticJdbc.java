@@ -0,0 +1,209 @@
+package projects.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+/*
+ * This class builds in-memory JDBC objects and sample entities for the benchmarks, so the mapping and
+ * binding code can be measured without a database.
+ */
+final class SyntheticJdbc {
+	static final String[] PROJECT_COLUMNS = { "project_id", "project_name", "estimated_hours", "actual_hours",
+			"difficulty", "notes" };
+
+	private SyntheticJdbc() {
+	} // SyntheticJdbc constructor
+
+	/*
+	 * This method returns rows shaped like SELECT * FROM project
+	 */
+	static Object[][] projectRows(int count) {
+		Object[][] rows = new Object[count][];
+
+		for (int row = 0; row < count; row++) {
+			rows[row] = new Object[] { row + 1, "Project " + (row + 1), new BigDecimal("12.50"),
+					row % 3 == 0 ? null : new BigDecimal("10.25"), row % 5 + 1, "Notes for project " + (row + 1) };
+		} // for loop
+
+		return rows;
+	} // projectRows method
+
+	/*
+	 * This method returns a forward-only result set over the rows. Only the methods used by the row
+	 * mappers are implemented.
+	 */
+	static ResultSet resultSet(String[] labels, Object[][] rows) {
+		ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(SyntheticJdbc.class.getClassLoader(),
+				new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "getColumnCount":
+							return labels.length;
+
+						case "getColumnLabel":
+						case "getColumnName":
+							return labels[(Integer) args[0] - 1];
+
+						default:
+							throw new SQLException("Not supported: " + method.getName());
+					} // switch statement
+				});
+
+		int[] cursor = { -1 };
+		boolean[] wasNull = { false };
+
+		return (ResultSet) Proxy.newProxyInstance(SyntheticJdbc.class.getClassLoader(),
+				new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "next":
+							return ++cursor[0] < rows.length;
+
+						case "getMetaData":
+							return meta;
+
+						case "getObject":
+							Object value = rows[cursor[0]][(Integer) args[0] - 1];
+							wasNull[0] = value == null;
+							return args.length == 2 && value != null ? ((Class<?>) args[1]).cast(value) : value;
+
+						case "wasNull":
+							return wasNull[0];
+
+						case "close":
+							return null;
+
+						case "isClosed":
+							return false;
+
+						case "hashCode":
+							return System.identityHashCode(proxy);
+
+						case "equals":
+							return proxy == args[0];
+
+						default:
+							throw new SQLException("Not supported: " + method.getName());
+					} // switch statement
+				});
+	} // resultSet method
+
+	/*
+	 * This method returns a prepared statement that accepts parameters and discards them. Its execute
+	 * methods do nothing and report no rows.
+	 */
+	static PreparedStatement discardingStatement() {
+		return (PreparedStatement) Proxy.newProxyInstance(SyntheticJdbc.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "hashCode":
+							return System.identityHashCode(proxy);
+
+						case "equals":
+							return proxy == args[0];
+
+						case "toString":
+							return "discarding statement";
+
+						default:
+							return defaultValue(method.getReturnType());
+					} // switch statement
+				});
+	} // discardingStatement method
+
+	/*
+	 * This method returns a connection that prepares discarding statements, and a data source that hands
+	 * it out
+	 */
+	static DataSource dataSource() {
+		PreparedStatement stmt = discardingStatement();
+
+		Connection conn = (Connection) Proxy.newProxyInstance(SyntheticJdbc.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "prepareStatement":
+							return stmt;
+
+						case "hashCode":
+							return System.identityHashCode(proxy);
+
+						case "equals":
+							return proxy == args[0];
+
+						case "toString":
+							return "synthetic connection";
+
+						default:
+							return defaultValue(method.getReturnType());
+					} // switch statement
+				});
+
+		return (DataSource) Proxy.newProxyInstance(SyntheticJdbc.class.getClassLoader(),
+				new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+					if (method.getName().equals("getConnection")) {
+						return conn;
+					} // if statement
+
+					throw new SQLException("Not supported: " + method.getName());
+				});
+	} // dataSource method
+
+	private static Object defaultValue(Class<?> type) {
+		if (type == boolean.class) {
+			return false;
+		} // if statement
+
+		if (type == int.class) {
+			return 0;
+		} // if statement
+
+		return type == long.class ? 0L : null;
+	} // defaultValue method
+
+	/*
+	 * This method builds a project with the given number of materials, steps and categories
+	 */
+	static Project project(int id, int children) {
+		Project project = new Project();
+		project.setProjectId(id);
+		project.setProjectName("Project " + id);
+		project.setEstimatedHours(new BigDecimal("12.50"));
+		project.setActualHours(new BigDecimal("10.25"));
+		project.setDifficulty(3);
+		project.setNotes("Notes for project " + id);
+
+		for (int child = 1; child <= children; child++) {
+			Material material = new Material();
+			material.setMaterialId(child);
+			material.setProjectId(id);
+			material.setMaterialName("Material " + child);
+			material.setNumRequired(child);
+			material.setCost(new BigDecimal("1.99"));
+			project.getMaterials().add(material);
+
+			Step step = new Step();
+			step.setStepId(child);
+			step.setProjectId(id);
+			step.setStepText("Step " + child + " of the project");
+			step.setStepOrder(child);
+			project.getSteps().add(step);
+
+			Category category = new Category();
+			category.setCategoryId(child);
+			category.setCategoryName("Category " + child);
+			project.getCategories().add(category);
+		} // for loop
+
+		return project;
+	} // project method
+} // class SyntheticJdbc
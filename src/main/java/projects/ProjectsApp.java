@@ -1,15 +1,31 @@
 package projects;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
 
+import projects.batch.BatchRunner;
+import projects.dao.DbConfig;
+import projects.dao.Page;
+import projects.dao.ProjectSort;
 import projects.entity.Project;
+import projects.entity.ProjectSummary;
 import projects.exception.DbException;
+import projects.server.ProjectServer;
+import projects.service.ProjectImporter;
 import projects.service.ProjectService;
 
 public class ProjectsApp {
+	private static final int PAGE_SIZE = 20;
+	private static final int IMPORT_CHUNK_SIZE = 500;
+	private static final int BATCH_GROUP_SIZE = 500;
+	private static final String BATCH_USAGE = "Usage: ProjectsApp --batch [file|-] [--group[=N]]";
 
 	private Scanner scanner = new Scanner(System.in);
 	private ProjectService projectService = new ProjectService();
@@ -23,18 +39,97 @@ public class ProjectsApp {
 		"2) List projects",
 		"3) Select a project",
 		"4) Update project details",
-		"5) Delete a project"
+		"5) Delete a project",
+		"6) Import projects from a CSV file",
+		"7) Upgrade the schema"
 	);
 	// @formatter:on
 
 	/*
 	 * This is the main method.  This is the access point
+	 * Run with --server to serve the projects as a JSON HTTP API instead of showing the menu
+	 * Run with --batch [file] [--group[=size]] to run commands from a file or stdin (see BatchRunner)
 	 */
 	public static void main(String[] args) {
-		new ProjectsApp().processUserSelection();
+		if (args.length > 0 && args[0].equals("--server")) {
+			startServer();
+		} else if (args.length > 0 && args[0].equals("--batch")) {
+			if (!runBatch(args)) {
+				System.exit(1);
+			} // if statement
+		} else {
+			new ProjectsApp().processUserSelection();
+		} // if statement
 
 	} // main
 
+	/*
+	 * This method starts the HTTP server. It keeps running after main returns and stops on Ctrl-C.
+	 */
+	private static void startServer() {
+		try {
+			ProjectServer server = ProjectServer.start(DbConfig.load());
+			Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+
+			System.out.println("Serving projects on port " + server.getPort() + ". Press Ctrl-C to stop.");
+		} catch (IOException e) {
+			System.out.println("\nError: Unable to start the server: " + e);
+		} // try catch statement
+	} // startServer method
+
+	/*
+	 * This method runs batch commands from the file named after --batch, or from stdin if there is no
+	 * file or it is -. --group commits consecutive writes together. It returns false if a command failed.
+	 */
+	private static boolean runBatch(String[] args) {
+		String fileName = null;
+		int groupSize = 0;
+
+		for (int index = 1; index < args.length; index++) {
+			if (args[index].equals("--group")) {
+				groupSize = BATCH_GROUP_SIZE;
+			} else if (args[index].startsWith("--group=")) {
+				groupSize = parseGroupSize(args[index].substring("--group=".length()));
+
+				if (groupSize < 0) {
+					return false;
+				} // if statement
+			} else {
+				fileName = args[index];
+			} // if statement
+		} // for loop
+
+		BatchRunner runner = new BatchRunner(new ProjectService(), System.out, groupSize);
+
+		try (Reader reader = Objects.isNull(fileName) || fileName.equals("-") ? new InputStreamReader(System.in)
+				: Files.newBufferedReader(Path.of(fileName))) {
+			return runner.run(reader);
+		} catch (IOException e) {
+			System.out.println("\nError: Unable to read " + fileName + ": " + e);
+			return false;
+		} // try catch statement
+	} // runBatch method
+
+	/*
+	 * This method returns the number after --group=, or prints the usage and returns -1 if it is not a
+	 * whole number of 0 or more. 0 commits each write on its own.
+	 */
+	private static int parseGroupSize(String value) {
+		try {
+			int groupSize = Integer.parseInt(value);
+
+			if (groupSize >= 0) {
+				return groupSize;
+			} // if statement
+		} catch (NumberFormatException e) {
+			/* The usage is printed below. */
+		} // try catch statement
+
+		System.out.println("\nError: --group=" + value + " must be a whole number of 0 or more.");
+		System.out.println(BATCH_USAGE);
+		return -1;
+	} // parseGroupSize method
+
 	/*
 	 * This method compares looks at the user's menu choice and calls needed methods.
 	 */
@@ -74,6 +169,14 @@ public class ProjectsApp {
 						deleteProject();
 						break;
 						
+					case 6:
+						importProjects();
+						break;
+						
+					case 7:
+						upgradeSchema();
+						break;
+						
 					default:
 						System.out.println("\n" + selection + " is not a valid selection. Try again.");
 						break;
@@ -94,6 +197,42 @@ public class ProjectsApp {
 		System.out.println("\nTables created and populated!");
 	} // createTables method
 
+	/*
+	 * This method applies any new schema migrations and optionally checks that the queries use indexes
+	 */
+	private void upgradeSchema() {
+		List<String> applied = projectService.migrateSchema();
+		System.out.println(applied.isEmpty() ? "\nThe schema is up to date." : "\nApplied " + applied);
+		
+		if ("y".equalsIgnoreCase(getStringInput("Verify index usage with EXPLAIN? (y/n)"))) {
+			List<String> problems = projectService.verifyIndexUsage();
+			
+			if (problems.isEmpty()) {
+				System.out.println("Every query uses an index.");
+			} else {
+				problems.forEach(problem -> System.out.println("  " + problem));
+			} // if statement
+		} // if statement
+	} // upgradeSchema method
+
+	/*
+	 * This method imports projects from a CSV file in chunks
+	 */
+	private void importProjects() {
+		String fileName = getStringInput("Enter the path of the CSV file to import");
+		
+		if (Objects.isNull(fileName)) {
+			return;
+		} // if statement
+		
+		try (Reader reader = Files.newBufferedReader(Path.of(fileName))) {
+			ProjectImporter.ImportResult result = projectService.importProjects(reader, IMPORT_CHUNK_SIZE);
+			System.out.println("\nImport finished: " + result);
+		} catch (IOException e) {
+			throw new DbException("Unable to read " + fileName, e);
+		} // try-catch statement
+	} // importProjects method
+
 	/*
 	 * This method deletes a selected project from the list of project
 	 * if the current project is chosen then curProject is set to null
@@ -125,17 +264,20 @@ public class ProjectsApp {
 	    Integer difficulty = getIntInput("Enter the project difficulty (1-5) [" + curProject.getDifficulty() + "]");
 	    String notes = getStringInput("Enter the project notes [" + curProject.getNotes() + "]");
 	    
-	    Project project = new Project();
+	    // The changes are made on a copy, so curProject is untouched if the update fails
+	    Project project = curProject.copy();
 	    project.setProjectName(Objects.isNull(projectName) ? curProject.getProjectName() : projectName);
 	    project.setEstimatedHours(Objects.isNull(estimatedHours) ? curProject.getEstimatedHours() : estimatedHours);
 	    project.setActualHours(Objects.isNull(actualHours) ? curProject.getActualHours() : actualHours);
 	    project.setDifficulty(Objects.isNull(difficulty) ? curProject.getDifficulty() : difficulty);
 	    project.setNotes(Objects.isNull(notes) ? curProject.getNotes() : notes);
-	    project.setProjectId(curProject.getProjectId());
 	    
-	    projectService.modifyProjectDetails(project);
+	    if (!project.isDirty()) {
+	    	System.out.println("Nothing was changed.");
+	    	return;
+	    } // if statement
 	    
-	    curProject = projectService.fetchProjectById(curProject.getProjectId());
+	    curProject = projectService.modifyProjectDetails(project);
 	} // updateProjectDetails method
 	
 	/*
@@ -159,11 +301,17 @@ public class ProjectsApp {
 	 * This method prints a list of projects and is used in other methods
 	 */
 	private void listProjects() {
-		List<Project> projects = projectService.fetchAllProjects();
-		
 		System.out.println("\nProjects:");
 		
-		projects.forEach(project -> System.out.println("  " + project.getProjectId() + ": " + project.getProjectName()));
+		Page.Cursor cursor = null;
+		
+		do {
+			Page<ProjectSummary> page = projectService.fetchProjectSummaryPage(ProjectSort.ID, false, PAGE_SIZE, cursor);
+			
+			page.items().forEach(summary -> System.out.println("  " + summary));
+			
+			cursor = page.next();
+		} while (Objects.nonNull(cursor) && "n".equalsIgnoreCase(getStringInput("Enter n for the next page, or press Enter to continue")));
 	} // listProjects method
 
 	/*
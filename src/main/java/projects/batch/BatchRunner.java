@@ -0,0 +1,399 @@
+package projects.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import projects.dao.FetchPlan;
+import projects.dao.Page;
+import projects.dao.ProjectSort;
+import projects.entity.Project;
+import projects.entity.ProjectSummary;
+import projects.exception.DbException;
+import projects.service.ProjectService;
+import provided.util.LatencyHistogram;
+import provided.util.SharedConnection;
+
+/*
+ * This class runs project commands from a script, one command per line, instead of the menu:
+ *
+ *   add projectName="Build a deck" estimatedHours=10 actualHours=12 difficulty=3 notes="..."
+ *   get 7
+ *   update 7 difficulty=4 notes="Needs stain"
+ *   delete 7
+ *   list
+ *
+ * Blank lines and lines starting with # are skipped. Values with spaces are put in double quotes,
+ * and an update only changes the fields it names. A failed command is reported with its line number
+ * and the run goes on.
+ *
+ * Every command runs on one shared pooled connection. When a group size is given, consecutive writes
+ * are committed together in one transaction of up to that many writes. Any other command ends the
+ * group. If the database rolls back a write in a group, the earlier writes of the group are rolled
+ * back with it and reported.
+ *
+ * One summary line with the counts and timings is printed at the end.
+ */
+public class BatchRunner {
+
+	private enum Command {
+		ADD(true), GET(false), UPDATE(true), DELETE(true), LIST(false);
+
+		private final boolean write;
+
+		Command(boolean write) {
+			this.write = write;
+		} // Command constructor
+	} // enum Command
+
+	private static final int LIST_PAGE_SIZE = 500;
+
+	private final ProjectService projectService;
+	private final PrintStream out;
+	private final int groupSize;
+	private final Map<Command, LatencyHistogram> timings = new EnumMap<>(Command.class);
+
+	private int lineNumber;
+	private int commandCount;
+	private int failedCount;
+	private int writesInGroup;
+	private int rolledBackCount;
+	private int commitCount;
+
+	/*
+	 * groupSize is the largest number of writes committed together, or 0 to commit each write on its own
+	 */
+	public BatchRunner(ProjectService projectService, PrintStream out, int groupSize) {
+		if (groupSize < 0) {
+			throw new IllegalArgumentException("The group size cannot be negative.");
+		} // if statement
+
+		this.projectService = projectService;
+		this.out = out;
+		this.groupSize = groupSize;
+
+		for (Command command : Command.values()) {
+			timings.put(command, new LatencyHistogram());
+		} // for loop
+	} // BatchRunner constructor
+
+	/*
+	 * This method runs every command in the input and prints the summary. It returns true if every
+	 * command succeeded.
+	 */
+	public boolean run(Reader input) {
+		long start = System.nanoTime();
+
+		try (SharedConnection shared = projectService.openSharedConnection();
+				BufferedReader reader = new BufferedReader(input)) {
+			String line;
+
+			while (Objects.nonNull(line = reader.readLine())) {
+				lineNumber++;
+				List<String> words = split(line);
+
+				if (!words.isEmpty()) {
+					runCommand(shared, words);
+				} // if statement
+			} // while loop
+
+			endGroup(shared);
+		} catch (IOException | SQLException e) {
+			throw new DbException(e);
+		} // try-catch block
+
+		out.println(summary(System.nanoTime() - start));
+		return failedCount == 0 && rolledBackCount == 0;
+	} // run method
+
+	/*
+	 * This method runs one command, inside a group transaction if it is a write and grouping is on
+	 */
+	private void runCommand(SharedConnection shared, List<String> words) {
+		commandCount++;
+
+		try {
+			Command command = parseCommand(words.get(0));
+
+			if (!command.write) {
+				endGroup(shared);
+			} else if (groupSize > 0 && !shared.isGrouping()) {
+				shared.beginGroup();
+				writesInGroup = 0;
+			} // if statement
+
+			long start = System.nanoTime();
+			execute(command, words.subList(1, words.size()));
+			timings.get(command).record(System.nanoTime() - start);
+
+			if (command.write) {
+				if (shared.isGrouping()) {
+					if (++writesInGroup >= groupSize) {
+						endGroup(shared);
+					} // if statement
+				} else {
+					commitCount++;
+				} // if statement
+			} // if statement
+		} catch (SQLException | RuntimeException e) {
+			failedCount++;
+			out.println("line " + lineNumber + ": Error: " + e.getMessage());
+
+			if (writesInGroup > 0 && !shared.isGrouping()) {
+				groupRolledBack();
+			} // if statement
+		} // try-catch block
+	} // runCommand method
+
+	/*
+	 * This method commits the open group transaction, if there is one
+	 */
+	private void endGroup(SharedConnection shared) {
+		if (!shared.isGrouping()) {
+			return;
+		} // if statement
+
+		try {
+			shared.commitGroup();
+			commitCount++;
+			writesInGroup = 0;
+		} catch (SQLException e) {
+			failedCount++;
+			out.println("line " + lineNumber + ": Error: the transaction could not be committed: " + e.getMessage());
+			groupRolledBack();
+		} // try-catch block
+	} // endGroup method
+
+	/*
+	 * This method reports the writes lost with a rolled back group. The cache may hold projects read
+	 * inside the group, which saw its uncommitted writes, so it is cleared.
+	 */
+	private void groupRolledBack() {
+		out.println("line " + lineNumber + ": rolled back " + writesInGroup + " earlier writes of the transaction");
+		rolledBackCount += writesInGroup;
+		writesInGroup = 0;
+		projectService.getProjectCache().invalidateAll();
+	} // groupRolledBack method
+
+	private void execute(Command command, List<String> args) {
+		// @formatter:off
+		switch (command) {
+			case ADD:
+				Project project = applyFields(new Project(), args);
+				out.println("added " + projectService.addProject(project).getProjectId());
+				break;
+
+			case GET:
+				out.println(projectService.fetchProjectById(parseId(args)));
+				break;
+
+			case UPDATE:
+				Project modified = projectService.fetchProjectById(parseId(args), FetchPlan.NONE).copy();
+				projectService.modifyProjectDetails(applyFields(modified, args.subList(1, args.size())));
+				break;
+
+			case DELETE:
+				projectService.deleteProject(parseId(args));
+				break;
+
+			case LIST:
+				listProjects();
+				break;
+		} // @formatter:on
+		// switch statement
+	} // execute method
+
+	private void listProjects() {
+		Page.Cursor cursor = null;
+
+		do {
+			Page<ProjectSummary> page = projectService.fetchProjectSummaryPage(ProjectSort.ID, false, LIST_PAGE_SIZE,
+					cursor);
+
+			page.items().forEach(summary -> out.println("  " + summary));
+			cursor = page.next();
+		} while (Objects.nonNull(cursor));
+	} // listProjects method
+
+	private static Command parseCommand(String word) {
+		try {
+			return Command.valueOf(word.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(word + " is not a command. Use add, get, update, delete or list.");
+		} // try-catch block
+	} // parseCommand method
+
+	private static Integer parseId(List<String> args) {
+		if (args.isEmpty()) {
+			throw new IllegalArgumentException("A project ID is required.");
+		} // if statement
+
+		try {
+			return Integer.valueOf(args.get(0));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(args.get(0) + " is not a valid project ID.");
+		} // try-catch block
+	} // parseId method
+
+	/*
+	 * This method sets the fields named in name=value arguments. An empty value sets the field to null.
+	 */
+	private static Project applyFields(Project project, List<String> args) {
+		for (String arg : args) {
+			int equals = arg.indexOf('=');
+
+			if (equals < 1) {
+				throw new IllegalArgumentException(arg + " is not a name=value pair.");
+			} // if statement
+
+			String name = arg.substring(0, equals);
+			String value = arg.substring(equals + 1);
+
+			if (value.isEmpty()) {
+				value = null;
+			} // if statement
+
+			// @formatter:off
+			switch (name) {
+				case "projectName":
+					project.setProjectName(value);
+					break;
+
+				case "estimatedHours":
+					project.setEstimatedHours(parseDecimal(name, value));
+					break;
+
+				case "actualHours":
+					project.setActualHours(parseDecimal(name, value));
+					break;
+
+				case "difficulty":
+					project.setDifficulty(parseInteger(name, value));
+					break;
+
+				case "notes":
+					project.setNotes(value);
+					break;
+
+				default:
+					throw new IllegalArgumentException(name + " is not a project field.");
+			} // @formatter:on
+			// switch statement
+		} // for loop
+
+		if (Objects.isNull(project.getProjectName())) {
+			throw new IllegalArgumentException("projectName is required.");
+		} // if statement
+
+		return project;
+	} // applyFields method
+
+	private static BigDecimal parseDecimal(String name, String value) {
+		if (Objects.isNull(value)) {
+			return null;
+		} // if statement
+
+		try {
+			return new BigDecimal(value).setScale(2);
+		} catch (NumberFormatException | ArithmeticException e) {
+			throw new IllegalArgumentException(name + "=" + value + " is not a valid decimal number.");
+		} // try-catch block
+	} // parseDecimal method
+
+	private static Integer parseInteger(String name, String value) {
+		if (Objects.isNull(value)) {
+			return null;
+		} // if statement
+
+		try {
+			return Integer.valueOf(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(name + "=" + value + " is not a valid number.");
+		} // try-catch block
+	} // parseInteger method
+
+	/*
+	 * This method splits a line into words on whitespace. Double quotes group words with spaces, and
+	 * inside quotes \" and \\ stand for a quote and a backslash. A line starting with # is a comment.
+	 */
+	static List<String> split(String line) {
+		List<String> words = new ArrayList<>();
+		String trimmed = line.strip();
+
+		if (trimmed.startsWith("#")) {
+			return words;
+		} // if statement
+
+		StringBuilder word = new StringBuilder();
+		boolean inWord = false;
+		boolean quoted = false;
+
+		for (int index = 0; index < trimmed.length(); index++) {
+			char ch = trimmed.charAt(index);
+
+			if (quoted) {
+				if (ch == '\\' && index + 1 < trimmed.length()) {
+					word.append(trimmed.charAt(++index));
+				} else if (ch == '"') {
+					quoted = false;
+				} else {
+					word.append(ch);
+				} // if statement
+			} else if (ch == '"') {
+				quoted = true;
+				inWord = true;
+			} else if (Character.isWhitespace(ch)) {
+				if (inWord) {
+					words.add(word.toString());
+					word.setLength(0);
+					inWord = false;
+				} // if statement
+			} else {
+				word.append(ch);
+				inWord = true;
+			} // if statement
+		} // for loop
+
+		if (quoted) {
+			throw new IllegalArgumentException("A quote is not closed.");
+		} // if statement
+
+		if (inWord) {
+			words.add(word.toString());
+		} // if statement
+
+		return words;
+	} // split method
+
+	/*
+	 * This method builds the summary line, with the mean and p99 time of each command that was run
+	 */
+	private String summary(long elapsedNanos) {
+		double seconds = elapsedNanos / 1e9;
+		StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+				"Batch: %d commands, %d failed, %d writes rolled back, %d commits, %.3f s (%.3f ms per command)",
+				commandCount, failedCount, rolledBackCount, commitCount, seconds,
+				commandCount == 0 ? 0.0 : elapsedNanos / 1e6 / commandCount));
+
+		timings.forEach((command, histogram) -> {
+			if (histogram.getCount() > 0) {
+				summary.append(String.format(Locale.ROOT, "; %s n=%d mean=%.3fms p99=%.3fms",
+						command.name().toLowerCase(Locale.ROOT), histogram.getCount(),
+						histogram.getMean(TimeUnit.MICROSECONDS) / 1000,
+						histogram.getPercentile(99, TimeUnit.MICROSECONDS) / 1000));
+			} // if statement
+		});
+
+		return summary.toString();
+	} // summary method
+} // class BatchRunner
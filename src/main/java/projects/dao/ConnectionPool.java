@@ -0,0 +1,424 @@
+package projects.dao;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import provided.util.CachingConnection;
+import provided.util.StatementCache;
+
+/*
+ * This class is a small connection pool. Connections handed out are proxies, so calling close()
+ * returns the physical connection to the pool instead of closing it. Calling abort() closes the
+ * physical connection and frees its place in the pool.
+ *
+ * - minSize/maxSize bound the number of physical connections
+ * - idle connections above minSize are evicted after idleTimeout
+ * - a connection idle longer than validationInterval is validated with isValid() when borrowed
+ * - connections are retired after maxLifetime
+ * - a connection held longer than leakDetectionThreshold is reported with the borrower's stack
+ * - each physical connection keeps an LRU cache of up to statementCacheSize prepared statements
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+	private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+	private final DbConfig config;
+	private final String name;
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+	private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger totalConnections = new AtomicInteger();
+	private final Semaphore permits;
+	private final ScheduledExecutorService housekeeper;
+	private volatile boolean closed;
+	private int loginTimeout;
+
+	public ConnectionPool(DbConfig config) {
+		this.config = config;
+		this.name = "projects-pool-" + POOL_COUNT.incrementAndGet();
+		this.permits = new Semaphore(config.getMaxPoolSize(), true);
+
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, name + "-housekeeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long interval = config.getHousekeepingInterval();
+		housekeeper.scheduleWithFixedDelay(this::housekeep, interval, interval, TimeUnit.MILLISECONDS);
+	} // ConnectionPool constructor
+
+	/*
+	 * This method borrows a connection. It waits up to connectionTimeout for a free slot, skips idle
+	 * connections that are expired or fail validation and opens a new one if none are left. Validation
+	 * is a round trip to the server, so a connection that was returned within validationInterval is
+	 * handed out without it.
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		long timeout = config.getConnectionTimeout();
+		Connection conn = borrow(timeout);
+
+		if (Objects.isNull(conn)) {
+			throw new SQLException("Timed out after " + timeout + "ms waiting for a connection from " + name
+					+ " (active=" + borrowed.size() + ", max=" + config.getMaxPoolSize() + ")");
+		} // if statement
+
+		return conn;
+	} // getConnection method
+
+	/*
+	 * This method borrows a connection only if a slot is free right away. It returns null when every
+	 * connection is borrowed, and throws when the server cannot hand out a connection, so a caller can
+	 * tell a busy pool from an unreachable server.
+	 */
+	Connection tryGetConnection() throws SQLException {
+		return borrow(0);
+	} // tryGetConnection method
+
+	private Connection borrow(long timeout) throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool " + name + " is closed.");
+		} // if statement
+
+		try {
+			if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+				return null;
+			} // if statement
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection.", e);
+		} // try-catch block
+
+		try {
+			PooledConnection pooled;
+
+			while (Objects.nonNull(pooled = idle.pollFirst())) {
+				if (isExpired(pooled) || (needsValidation(pooled) && !isValid(pooled))) {
+					destroy(pooled);
+				} else {
+					return lease(pooled);
+				} // if statement
+			} // while block
+
+			return lease(open());
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		} // try-catch block
+	} // borrow method
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("The pool only hands out connections for the configured user.");
+	}
+
+	/*
+	 * This method returns the number of physical connections that are currently open
+	 */
+	public int getTotalConnections() {
+		return totalConnections.get();
+	}
+
+	public int getActiveConnections() {
+		return borrowed.size();
+	}
+
+	public int getIdleConnections() {
+		return idle.size();
+	}
+
+	public int getMaxPoolSize() {
+		return config.getMaxPoolSize();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/*
+	 * This method shuts down the housekeeper and closes every idle connection. Borrowed connections are
+	 * closed when they are returned.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		housekeeper.shutdownNow();
+
+		PooledConnection pooled;
+
+		while (Objects.nonNull(pooled = idle.pollFirst())) {
+			destroy(pooled);
+		} // while block
+	} // close method
+
+	private Connection lease(PooledConnection pooled) {
+		pooled.borrowedAt = System.currentTimeMillis();
+		pooled.leakReported = false;
+		pooled.borrowerStack = config.getLeakDetectionThreshold() > 0
+				? new Throwable("Connection borrowed from " + name + " here")
+				: null;
+		borrowed.add(pooled);
+
+		return pooled.newProxy();
+	} // lease method
+
+	/*
+	 * This method is called when the proxy is closed. The DAO turns auto-commit back on when it ends a
+	 * transaction, so normally there is nothing to do here. A connection returned with auto-commit off
+	 * is rolled back so the next borrower starts clean.
+	 */
+	private void release(PooledConnection pooled) {
+		borrowed.remove(pooled);
+
+		try {
+			Connection physical = pooled.physical;
+
+			if (!physical.getAutoCommit()) {
+				physical.rollback();
+				physical.setAutoCommit(true);
+			} // if statement
+
+			if (closed || isExpired(pooled)) {
+				destroy(pooled);
+			} else {
+				pooled.lastUsed = System.currentTimeMillis();
+				idle.offerFirst(pooled);
+			} // if statement
+		} catch (SQLException e) {
+			destroy(pooled);
+		} finally {
+			permits.release();
+		} // try-catch block
+	} // release method
+
+	/*
+	 * This method takes a borrowed connection out of the pool for good. It is used for connections
+	 * whose session state (SET, USE, LOCK TABLES, ...) was changed, which the next borrower must not
+	 * inherit.
+	 */
+	private void discard(PooledConnection pooled) {
+		borrowed.remove(pooled);
+
+		try {
+			destroy(pooled);
+		} finally {
+			permits.release();
+		} // try-finally block
+	} // discard method
+
+	private PooledConnection open() throws SQLException {
+		totalConnections.incrementAndGet();
+
+		try {
+			Connection physical = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+			return new PooledConnection(physical);
+		} catch (SQLException | RuntimeException e) {
+			totalConnections.decrementAndGet();
+			throw e;
+		} // try-catch block
+	} // open method
+
+	private void destroy(PooledConnection pooled) {
+		totalConnections.decrementAndGet();
+
+		pooled.statementCache.close();
+
+		try {
+			pooled.physical.close();
+		} catch (SQLException e) {
+			/* The connection is being thrown away. There is nothing more to do with it. */
+		} // try-catch block
+	} // destroy method
+
+	private boolean isExpired(PooledConnection pooled) {
+		long maxLifetime = config.getMaxLifetime();
+		return maxLifetime > 0 && System.currentTimeMillis() - pooled.createdAt > maxLifetime;
+	} // isExpired method
+
+	private boolean needsValidation(PooledConnection pooled) {
+		return System.currentTimeMillis() - pooled.lastUsed > config.getValidationInterval();
+	} // needsValidation method
+
+	private boolean isValid(PooledConnection pooled) {
+		try {
+			return pooled.physical.isValid(Math.max(1, config.getValidationTimeout() / 1000));
+		} catch (SQLException e) {
+			return false;
+		} // try-catch block
+	} // isValid method
+
+	/*
+	 * This method runs on the housekeeper thread. It evicts idle and expired connections, tops the pool
+	 * back up to minSize and reports leaked connections.
+	 */
+	private void housekeep() {
+		long now = System.currentTimeMillis();
+		long idleTimeout = config.getIdleTimeout();
+
+		for (PooledConnection pooled : idle) {
+			boolean idleTooLong = idleTimeout > 0 && now - pooled.lastUsed > idleTimeout
+					&& totalConnections.get() > config.getMinPoolSize();
+
+			if ((idleTooLong || isExpired(pooled)) && idle.remove(pooled)) {
+				destroy(pooled);
+			} // if statement
+		} // for loop
+
+		try {
+			while (!closed && totalConnections.get() < config.getMinPoolSize()) {
+				PooledConnection pooled = open();
+				pooled.lastUsed = now;
+				idle.offerLast(pooled);
+			} // while block
+		} catch (SQLException e) {
+			System.err.println(name + ": unable to open a connection while filling the pool: " + e.getMessage());
+		} // try-catch block
+
+		long leakThreshold = config.getLeakDetectionThreshold();
+
+		if (leakThreshold > 0) {
+			for (PooledConnection pooled : borrowed) {
+				if (!pooled.leakReported && now - pooled.borrowedAt > leakThreshold) {
+					pooled.leakReported = true;
+					System.err.println(name + ": connection held for " + (now - pooled.borrowedAt)
+							+ "ms, possible leak.");
+
+					if (Objects.nonNull(pooled.borrowerStack)) {
+						pooled.borrowerStack.printStackTrace();
+					} // if statement
+				} // if statement
+			} // for loop
+		} // if statement
+	} // housekeep method
+
+	@Override
+	public PrintWriter getLogWriter() {
+		return null;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {
+		/* Logging goes to System.out and System.err. */
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) {
+		loginTimeout = seconds;
+	}
+
+	@Override
+	public int getLoginTimeout() {
+		return loginTimeout;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		} // if statement
+
+		throw new SQLException(name + " does not wrap " + iface.getName());
+	} // unwrap method
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+
+	/*
+	 * This class tracks one physical connection. Each borrow gets a fresh proxy so a stale reference
+	 * kept by a caller cannot use the connection after it has been returned.
+	 */
+	private class PooledConnection {
+		private final Connection physical;
+		private final StatementCache statementCache = new StatementCache(config.getStatementCacheSize());
+		private final long createdAt = System.currentTimeMillis();
+		private volatile long lastUsed = createdAt;
+		private volatile long borrowedAt;
+		private volatile boolean leakReported;
+		private volatile Throwable borrowerStack;
+
+		PooledConnection(Connection physical) {
+			this.physical = physical;
+		}
+
+		Connection newProxy() {
+			return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+					new Class<?>[] { Connection.class, CachingConnection.class }, new Handler());
+		} // newProxy method
+
+		private class Handler implements InvocationHandler {
+			private boolean returned;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+					case "close":
+						if (!returned) {
+							returned = true;
+							release(PooledConnection.this);
+						} // if statement
+						return null;
+
+					case "abort":
+						if (!returned) {
+							returned = true;
+							discard(PooledConnection.this);
+						} // if statement
+						return null;
+
+					case "isClosed":
+						return returned || physical.isClosed();
+
+					case "equals":
+						return proxy == args[0];
+
+					case "hashCode":
+						return System.identityHashCode(proxy);
+
+					case "toString":
+						return name + " connection " + physical;
+
+					case "getStatementCache":
+						return statementCache;
+
+					default:
+						break;
+				} // switch statement
+
+				if (returned) {
+					throw new SQLException("Connection has already been returned to " + name);
+				} // if statement
+
+				try {
+					return method.invoke(physical, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				} // try-catch block
+			} // invoke method
+		} // class Handler
+	} // class PooledConnection
+} // class ConnectionPool
@@ -0,0 +1,196 @@
+package projects.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+import projects.exception.DbException;
+
+/*
+ * This class holds the database and connection pool settings. The defaults are read from
+ * db.properties on the classpath and any key can be overridden with a system property.
+ */
+public class DbConfig {
+	private static final String CONFIG_FILE = "db.properties";
+
+	private final Properties properties;
+
+	private DbConfig(Properties properties) {
+		this.properties = properties;
+	} // DbConfig constructor
+
+	/*
+	 * This method loads db.properties and applies system property overrides
+	 */
+	public static DbConfig load() {
+		Properties properties = new Properties();
+
+		try (InputStream in = DbConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+			if (Objects.nonNull(in)) {
+				properties.load(in);
+			} // if statement
+		} catch (IOException e) {
+			throw new DbException("Unable to read " + CONFIG_FILE, e);
+		} // try-catch block
+
+		for (String key : System.getProperties().stringPropertyNames()) {
+			if (key.startsWith("db.")) {
+				properties.setProperty(key, System.getProperty(key));
+			} // if statement
+		} // for loop
+
+		return new DbConfig(properties);
+	} // load method
+
+	/*
+	 * This method returns a copy of this configuration with the host and port replaced. It is used to
+	 * point the same settings at another server.
+	 */
+	public DbConfig withEndpoint(String host, int port) {
+		Properties copy = new Properties();
+		copy.putAll(properties);
+		copy.setProperty("db.host", host);
+		copy.setProperty("db.port", String.valueOf(port));
+
+		return new DbConfig(copy);
+	} // withEndpoint method
+
+	public String getHost() {
+		return getString("db.host", "localhost");
+	}
+
+	public int getPort() {
+		return getInt("db.port", 3306);
+	}
+
+	public String getSchema() {
+		return getString("db.schema", "projects");
+	}
+
+	public String getUser() {
+		return getString("db.user", "projects");
+	}
+
+	public String getPassword() {
+		return getString("db.password", "");
+	}
+
+	/*
+	 * This method builds the JDBC url. The user and password are not part of the url so it is safe to
+	 * print.
+	 */
+	public String getUrl() {
+		String options = getString("db.url.options", "");
+		String url = String.format("jdbc:mysql://%s:%d/%s", getHost(), getPort(), getSchema());
+
+		return options.isBlank() ? url : url + "?" + options;
+	} // getUrl method
+
+	public int getMinPoolSize() {
+		return getInt("db.pool.minSize", 2);
+	}
+
+	public int getMaxPoolSize() {
+		return getInt("db.pool.maxSize", 10);
+	}
+
+	public long getConnectionTimeout() {
+		return getLong("db.pool.connectionTimeout", 30000);
+	}
+
+	public long getIdleTimeout() {
+		return getLong("db.pool.idleTimeout", 600000);
+	}
+
+	public long getMaxLifetime() {
+		return getLong("db.pool.maxLifetime", 1800000);
+	}
+
+	public int getValidationTimeout() {
+		return getInt("db.pool.validationTimeout", 5000);
+	}
+
+	public long getValidationInterval() {
+		return getLong("db.pool.validationInterval", 500);
+	}
+
+	public long getLeakDetectionThreshold() {
+		return getLong("db.pool.leakDetectionThreshold", 0);
+	}
+
+	public long getHousekeepingInterval() {
+		return getLong("db.pool.housekeepingInterval", 30000);
+	}
+
+	public int getStatementCacheSize() {
+		return getInt("db.pool.statementCacheSize", 50);
+	}
+
+	/*
+	 * This method returns a configuration for each replica in db.replicas, a comma separated list of
+	 * host:port endpoints. The port defaults to db.port. The list is empty when there are no replicas.
+	 */
+	public List<DbConfig> getReplicas() {
+		List<DbConfig> replicas = new ArrayList<>();
+
+		for (String endpoint : getString("db.replicas", "").split(",")) {
+			if (endpoint.isBlank()) {
+				continue;
+			} // if statement
+
+			String[] hostAndPort = endpoint.trim().split(":");
+
+			try {
+				int port = hostAndPort.length > 1 ? Integer.parseInt(hostAndPort[1]) : getPort();
+				replicas.add(withEndpoint(hostAndPort[0], port));
+			} catch (NumberFormatException e) {
+				throw new DbException("db.replicas has an invalid endpoint " + endpoint.trim());
+			} // try-catch block
+		} // for loop
+
+		return replicas;
+	} // getReplicas method
+
+	public String getReplicaBalance() {
+		return getString("db.replicas.balance", "roundRobin");
+	}
+
+	public long getReadYourWritesWindow() {
+		return getLong("db.replicas.readYourWritesWindow", 1000);
+	}
+
+	public long getReplicaRetryInterval() {
+		return getLong("db.replicas.retryInterval", 30000);
+	}
+
+	public String getString(String key, String defaultValue) {
+		String value = properties.getProperty(key);
+		return Objects.isNull(value) ? defaultValue : value.trim();
+	}
+
+	public int getInt(String key, int defaultValue) {
+		return (int) getLong(key, defaultValue);
+	}
+
+	public long getLong(String key, long defaultValue) {
+		String value = properties.getProperty(key);
+
+		if (Objects.isNull(value) || value.isBlank()) {
+			return defaultValue;
+		} // if statement
+
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new DbException(key + "=" + value + " is not a valid number.");
+		} // try-catch block
+	} // getLong method
+
+	public boolean getBoolean(String key, boolean defaultValue) {
+		String value = properties.getProperty(key);
+		return Objects.isNull(value) || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
+	}
+} // class DbConfig
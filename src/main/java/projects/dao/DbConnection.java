@@ -1,29 +1,67 @@
 package projects.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
 
 import projects.exception.DbException;
+import provided.util.DaoMetrics;
+import provided.util.SlowQueryLog;
 
 public class DbConnection {
-	private static final String SCHEMA = "projects";
-	private static final String USER = "projects";
-	private static final String PASSWORD = "projects";
-	private static final String HOST = "localhost";
-	private static final int PORT = 3306;
-	
+	private static volatile DataSource pool;
+
+	/*
+	 * This method returns the shared connection pool. It is created the first time it is needed using
+	 * the settings in db.properties, which also configure the DAO metrics and the slow query log.
+	 * When db.replicas lists any replicas, reads are routed to them through a RoutingDataSource.
+	 */
+	public static DataSource getDataSource() {
+		DataSource result = pool;
+
+		if (result == null) {
+			synchronized (DbConnection.class) {
+				result = pool;
+
+				if (result == null) {
+					DbConfig config = DbConfig.load();
+					System.out.println("Creating connection pool for url=" + config.getUrl());
+					result = pool = createDataSource(config);
+					DaoMetrics.configure(config.getBoolean("db.metrics.enabled", false),
+							config.getLong("db.metrics.dumpInterval", 0));
+					SlowQueryLog.configure(config.getLong("db.slowQuery.thresholdMillis", -1),
+							config.getInt("db.slowQuery.bufferSize", 1000),
+							List.of(config.getString("db.slowQuery.redactColumns", "").split(",")),
+							config.getInt("db.slowQuery.maxValueLength", 64),
+							config.getString("db.slowQuery.callerPackage", "projects.service"));
+				} // if statement
+			} // synchronized block
+		} // if statement
+
+		return result;
+	} // getDataSource method
+
+	private static DataSource createDataSource(DbConfig config) {
+		if (config.getReplicas().isEmpty()) {
+			return new ConnectionPool(config);
+		} // if statement
+
+		RoutingDataSource router = new RoutingDataSource(config);
+		System.out.println("Routing reads to replicas " + router.getReadCounts().keySet());
+		return router;
+	} // createDataSource method
+
+	/*
+	 * This method borrows a connection from the pool. Closing the connection returns it to the pool.
+	 */
 	public static Connection getConnection() {
-		String url = String.format("jdbc:mysql://%s:%d/%s?user=%s&password=%s&useSSL=false", HOST, PORT, SCHEMA, USER, PASSWORD);
-		System.out.println("Connection with url=" + url);
-		
 		try {
-			Connection conn = DriverManager.getConnection(url);
-			System.out.println("Successfully obtained connection!");
-			return conn;
+			return getDataSource().getConnection();
 		} catch (SQLException e) {
 			System.out.println("Error getting connection.");
 			throw new DbException(e);
 		}
 	}
-}
\ No newline at end of file
+}
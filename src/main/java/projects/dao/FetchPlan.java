@@ -0,0 +1,57 @@
+package projects.dao;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/*
+ * This record says which child collections of a project are loaded together with it. The eager ones
+ * come back in the same multi-statement request as the project row. The others are loaded with their
+ * own query the first time the getter on Project is called, and never if it is not called.
+ */
+public record FetchPlan(Set<Association> eager) {
+
+	/*
+	 * This enum lists the child collections of a project
+	 */
+	public enum Association {
+		MATERIALS, STEPS, CATEGORIES
+	} // enum Association
+
+	/* Loads the whole project graph in one round trip. */
+	public static final FetchPlan ALL = new FetchPlan(EnumSet.allOf(Association.class));
+
+	/* Loads only the project row. Every child collection is loaded on first use. */
+	public static final FetchPlan NONE = new FetchPlan(EnumSet.noneOf(Association.class));
+
+	public FetchPlan {
+		eager = Collections.unmodifiableSet(eager.isEmpty() ? EnumSet.noneOf(Association.class) : EnumSet.copyOf(eager));
+	} // FetchPlan constructor
+
+	/*
+	 * This method returns a plan that loads the given collections eagerly and the rest on first use
+	 */
+	public static FetchPlan of(Association... associations) {
+		Set<Association> eager = EnumSet.noneOf(Association.class);
+		Collections.addAll(eager, associations);
+
+		return new FetchPlan(eager);
+	} // of method
+
+	public boolean isEager(Association association) {
+		return eager.contains(association);
+	}
+
+	/*
+	 * This method returns the eager collections as a bit mask of the Association ordinals
+	 */
+	int mask() {
+		int mask = 0;
+
+		for (Association association : eager) {
+			mask |= 1 << association.ordinal();
+		} // for loop
+
+		return mask;
+	} // mask method
+} // record FetchPlan
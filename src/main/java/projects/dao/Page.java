@@ -0,0 +1,20 @@
+package projects.dao;
+
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * This record holds one page of a keyset-paginated listing. The next cursor is null on the last page.
+ */
+public record Page<T>(List<T> items, Cursor next) {
+
+	public boolean hasNext() {
+		return Objects.nonNull(next);
+	}
+
+	/*
+	 * This record holds the sort key values of the last row on a page. The next page starts after it.
+	 */
+	public record Cursor(Integer projectId, String projectName) {
+	} // record Cursor
+} // record Page
@@ -1,22 +1,43 @@
 package projects.dao;
 
-import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import projects.entity.Category;
 import projects.entity.Material;
 import projects.entity.Project;
+import projects.entity.ProjectSummary;
 import projects.entity.Step;
 import projects.exception.DbException;
 import provided.util.DaoBase;
+import provided.util.EntityBinder;
+import provided.util.RowMapper;
 
 public class ProjectDao extends DaoBase {
 
@@ -25,44 +46,161 @@ public class ProjectDao extends DaoBase {
 	private static final String PROJECT_TABLE = "project";
 	private static final String PROJECT_CATAGORY_TABLE = "project_category";
 	private static final String STEP_TABLE = "step";
+	private static final String SCHEMA_VERSION_TABLE = "schema_version";
+
+	/* A CREATE INDEX statement in a migration. Group 1 is the index and group 2 the table. */
+	private static final Pattern CREATE_INDEX_PATTERN = Pattern
+			.compile("(?is)^create\\s+(?:unique\\s+)?index\\s+`?(\\w+)`?\\s+on\\s+`?(\\w+)`?.*$");
+
+	/* The number of rows the server-side cursor sends per fetch when streaming. */
+	private static final int STREAM_FETCH_SIZE = 500;
+
+	/* The largest IN list sent when loading many projects at once. */
+	private static final int FETCH_CHUNK_SIZE = 500;
+
+	// @formatter:off
+	private static final String INSERT_PROJECT_SQL = ""
+		+ "INSERT INTO " + PROJECT_TABLE + " "
+		+ "(project_name, estimated_hours, actual_hours, difficulty, notes) "
+		+ "VALUES "
+		+ "(?, ?, ?, ?, ?)";
+
+	private static final String INSERT_MATERIAL_SQL = ""
+		+ "INSERT INTO " + MATERIAL_TABLE + " "
+		+ "(project_id, material_name, num_required, cost) "
+		+ "VALUES "
+		+ "(?, ?, ?, ?)";
+
+	private static final String INSERT_STEP_SQL = ""
+		+ "INSERT INTO " + STEP_TABLE + " "
+		+ "(project_id, step_text, step_order) "
+		+ "VALUES "
+		+ "(?, ?, ?)";
+
+	private static final String INSERT_PROJECT_CATEGORY_SQL = ""
+		+ "INSERT INTO " + PROJECT_CATAGORY_TABLE + " "
+		+ "(project_id, category_id) "
+		+ "VALUES "
+		+ "(?, ?)";
+
+	private static final String MATERIALS_FOR_PROJECT_SQL = ""
+		+ "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ? ORDER BY material_id";
+
+	private static final String STEPS_FOR_PROJECT_SQL = ""
+		+ "SELECT * FROM " + STEP_TABLE + " WHERE project_id = ? ORDER BY step_order";
+
+	private static final String CATEGORIES_FOR_PROJECT_SQL = ""
+		+ "SELECT c.* "
+		+ "FROM " + CATAGORY_TABLE + " c "
+		+ "JOIN " + PROJECT_CATAGORY_TABLE + " pc USING (category_id) "
+		+ "WHERE pc.project_id = ? "
+		+ "ORDER BY c.category_id";
+
+	private static final String FETCH_PROJECT_SQL = ""
+		+ "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+	private static final String PROJECT_EXISTS_SQL = ""
+		+ "SELECT 1 FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+	/*
+	 * A multi-statement read is wrapped in these, so all of its SELECTs see the same snapshot while it
+	 * still costs one round trip
+	 */
+	private static final String SNAPSHOT_START_SQL = "START TRANSACTION READ ONLY WITH CONSISTENT SNAPSHOT";
+	private static final String SNAPSHOT_END_SQL = "COMMIT";
+
+	private static final String FETCH_ALL_PROJECTS_SQL = ""
+		+ "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_id";
+
+	private static final String DELETE_PROJECT_SQL = ""
+		+ "DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+	/* The parameters of INSERT_PROJECT_SQL */
+	private static final EntityBinder<Project> PROJECT_COLUMNS = EntityBinder.<Project>create()
+		.string(Project::getProjectName)
+		.decimal(Project::getEstimatedHours)
+		.decimal(Project::getActualHours)
+		.integer(Project::getDifficulty)
+		.string(Project::getNotes);
+
+	private static final EntityBinder<Material> MATERIAL_COLUMNS = EntityBinder.<Material>create()
+		.integer(Material::getProjectId)
+		.string(Material::getMaterialName)
+		.integer(Material::getNumRequired)
+		.decimal(Material::getCost);
+
+	private static final EntityBinder<Step> STEP_COLUMNS = EntityBinder.<Step>create()
+		.integer(Step::getProjectId)
+		.string(Step::getStepText)
+		.integer(Step::getStepOrder);
+	// @formatter:on
+
+	/*
+	 * The UPDATE statement for each set of changed project fields, indexed by a bit mask of the
+	 * Project.Field ordinals. Each shape is a constant, so the statement cache prepares it once per
+	 * connection.
+	 */
+	private static final List<UpdateShape> UPDATE_PROJECT_SHAPES = createUpdateShapes();
+
+	/*
+	 * The multi-statement request for the project row and each set of eager child collections, indexed
+	 * by FetchPlan.mask()
+	 */
+	private static final List<String> FETCH_PROJECT_SHAPES = createFetchShapes();
+
+	/*
+	 * This record holds an UPDATE statement for some of the project columns and the binder for its
+	 * parameters, which end with the project ID
+	 */
+	record UpdateShape(String sql, EntityBinder<Project> binder) {
+	} // record UpdateShape
+
+	public ProjectDao() {
+		super(DbConnection.getDataSource());
+	} // ProjectDao constructor
+
+	/*
+	 * This interface reads the current row of a result set into an object
+	 */
+	@FunctionalInterface
+	private interface RowReader<T> {
+		T read(ResultSet rs) throws SQLException;
+	} // interface RowReader
+
+	/*
+	 * This interface binds the parameters of a prepared statement
+	 */
+	@FunctionalInterface
+	private interface ParameterBinder {
+		void bind(PreparedStatement stmt) throws SQLException;
+	} // interface ParameterBinder
 	
 	/*
-	 * This method inserts a project based on user input to create a insert request
+	 * This method inserts a project based on user input to create a insert request.
+	 * The new project_id is read from the statement's generated keys.
 	 */
 	public Project insertProject(Project project) {
-		// @formatter:off
-		String sql = ""
-			+ "INSERT INTO " + PROJECT_TABLE + " "
-			+ "(project_name, estimated_hours, actual_hours, difficulty, notes) "
-			+ "VALUES "
-			+ "(?, ?, ?, ?, ?)";
-		// @formatter:on
-
 		/*
 		 * obtains a connection
 		 */
-		try (Connection conn = DbConnection.getConnection()) {
+		try (Connection conn = getConnection("insertProject")) {
 			startTransaction(conn);
 
 			/*
 			 * transaction
 			 */
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, project.getProjectName(), String.class);
-				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-				setParameter(stmt, 5, project.getNotes(), String.class);
-
+			try (PreparedStatement stmt = prepare(conn, INSERT_PROJECT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+				PROJECT_COLUMNS.bind(stmt, project);
 				stmt.executeUpdate();
 
 				/*
 				 * gets project Id then commits the transaction
 				 */
-				Integer projectId = getLastInsertId(conn, PROJECT_TABLE);
+				Integer projectId = getGeneratedKeys(stmt).get(0);
 				commitTransaction(conn);
 
 				project.setProjectId(projectId);
+				project.markClean();
 				return project;
 
 			} catch (Exception e) {
@@ -75,28 +213,197 @@ public class ProjectDao extends DaoBase {
 	} // insertProject method
 
 	/*
-	 * This method gets a list of projects 
+	 * This method inserts many projects in one transaction. The rows are sent as a JDBC batch, which the
+	 * driver rewrites into multi-row INSERTs (rewriteBatchedStatements), and the generated ids are read
+	 * back in order and set on the projects.
+	 */
+	public List<Project> insertProjects(List<Project> projects) {
+		if (projects.isEmpty()) {
+			return projects;
+		} // if statement
+
+		/*
+		 * obtains a connection
+		 */
+		try (Connection conn = getConnection("insertProjects")) {
+			startTransaction(conn);
+
+			/*
+			 * transaction
+			 */
+			try {
+				insertProjectBatch(conn, projects);
+				commitTransaction(conn);
+
+				projects.forEach(Project::markClean);
+				return projects;
+
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			} // inner try-catch
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // outer try-catch
+	} // insertProjects method
+
+	/*
+	 * This method inserts projects together with their materials, steps and category links in one
+	 * transaction. The projects are inserted first as one batch, the generated ids are copied onto the
+	 * child rows, and then each child table is inserted as one batch. Step orders that are missing are
+	 * filled in from the position of the step in the list.
+	 */
+	public void insertProjectGraphs(List<Project> projects) {
+		if (projects.isEmpty()) {
+			return;
+		} // if statement
+
+		/*
+		 * obtains a connection
+		 */
+		try (Connection conn = getConnection("insertProjectGraphs")) {
+			startTransaction(conn);
+
+			/*
+			 * transaction
+			 */
+			try {
+				insertProjectBatch(conn, projects);
+				insertMaterialBatch(conn, projects);
+				insertStepBatch(conn, projects);
+				insertProjectCategoryBatch(conn, projects);
+
+				commitTransaction(conn);
+				projects.forEach(Project::markClean);
+
+			} catch (Exception e) {
+				rollbackTransaction(conn);
+				throw new DbException(e);
+			} // inner try-catch
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // outer try-catch
+	} // insertProjectGraphs method
+
+	/*
+	 * This method inserts the projects as one batch and sets the generated ids on them
+	 */
+	private void insertProjectBatch(Connection conn, List<Project> projects) throws SQLException {
+		try (PreparedStatement stmt = prepare(conn, INSERT_PROJECT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+			PROJECT_COLUMNS.addBatch(stmt, projects);
+			stmt.executeBatch();
+
+			List<Integer> projectIds = getGeneratedKeys(stmt);
+
+			if (projectIds.size() != projects.size()) {
+				throw new SQLException("Expected " + projects.size() + " generated keys but got " + projectIds.size());
+			} // if statement
+
+			for (int index = 0; index < projects.size(); index++) {
+				projects.get(index).setProjectId(projectIds.get(index));
+			} // for loop
+		} // try
+	} // insertProjectBatch method
+
+	/*
+	 * This method inserts the materials of all the projects as one batch
+	 */
+	private void insertMaterialBatch(Connection conn, List<Project> projects) throws SQLException {
+		try (PreparedStatement stmt = prepare(conn, INSERT_MATERIAL_SQL)) {
+			int rows = 0;
+
+			for (Project project : projects) {
+				for (Material material : project.getMaterials()) {
+					material.setProjectId(project.getProjectId());
+
+					MATERIAL_COLUMNS.bind(stmt, material);
+					stmt.addBatch();
+					rows++;
+				} // for loop
+			} // for loop
+
+			if (rows > 0) {
+				stmt.executeBatch();
+			} // if statement
+		} // try
+	} // insertMaterialBatch method
+
+	/*
+	 * This method inserts the steps of all the projects as one batch
+	 */
+	private void insertStepBatch(Connection conn, List<Project> projects) throws SQLException {
+		try (PreparedStatement stmt = prepare(conn, INSERT_STEP_SQL)) {
+			int rows = 0;
+
+			for (Project project : projects) {
+				int position = 0;
+
+				for (Step step : project.getSteps()) {
+					position++;
+					step.setProjectId(project.getProjectId());
+
+					if (Objects.isNull(step.getStepOrder())) {
+						step.setStepOrder(position);
+					} // if statement
+
+					STEP_COLUMNS.bind(stmt, step);
+					stmt.addBatch();
+					rows++;
+				} // for loop
+			} // for loop
+
+			if (rows > 0) {
+				stmt.executeBatch();
+			} // if statement
+		} // try
+	} // insertStepBatch method
+
+	/*
+	 * This method links all the projects to their categories as one batch
+	 */
+	private void insertProjectCategoryBatch(Connection conn, List<Project> projects) throws SQLException {
+		try (PreparedStatement stmt = prepare(conn, INSERT_PROJECT_CATEGORY_SQL)) {
+			int rows = 0;
+
+			for (Project project : projects) {
+				for (Category category : project.getCategories()) {
+					setParameter(stmt, 1, project.getProjectId(), Integer.class);
+					setParameter(stmt, 2, category.getCategoryId(), Integer.class);
+					stmt.addBatch();
+					rows++;
+				} // for loop
+			} // for loop
+
+			if (rows > 0) {
+				stmt.executeBatch();
+			} // if statement
+		} // try
+	} // insertProjectCategoryBatch method
+
+	/*
+	 * This method gets a list of projects in project_id order
 	 */
 	public List<Project> fetchAllProjects() {
-		String sql = "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_name";
 
 		/*
 		 * obtains a connection
 		 */
-		try (Connection conn = DbConnection.getConnection()) {
+		try (Connection conn = getReadConnection("fetchAllProjects")) {
 			startTransaction(conn);
 
 			/*
 			 * transaction
 			 */
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+			try (PreparedStatement stmt = prepare(conn, FETCH_ALL_PROJECTS_SQL)) {
 				try (ResultSet rs = stmt.executeQuery()) {
-					List<Project> projects = new LinkedList<>();
+					List<Project> projects = new ArrayList<>();
+					RowMapper<Project> mapper = rowMapper(rs, Project.class);
 
 					while (rs.next()) {
-						projects.add(extract(rs, Project.class));
+						projects.add(mapper.map(rs));
 					}// while block
 
+					commitTransaction(conn);
 					return projects;
 				} // try block
 			} catch (Exception e) {
@@ -110,174 +417,584 @@ public class ProjectDao extends DaoBase {
 	} // fetchAllProject method
 
 	/*
-	 * This method gets a project from the list by Id 
+	 * This method gets one page of projects using keyset pagination. The sort is done by MySQL and the
+	 * page starts after the cursor row with a WHERE predicate instead of an OFFSET, so every page costs
+	 * the same as the first.
+	 */
+	public Page<Project> fetchProjectPage(ProjectSort sort, boolean descending, int pageSize, Page.Cursor after) {
+		return fetchPage("*", sort, descending, pageSize, after, rs -> extract(rs, Project.class),
+				project -> new Page.Cursor(project.getProjectId(), project.getProjectName()));
+	} // fetchProjectPage method
+
+	/*
+	 * This method gets one page of project summaries. Only project_id and project_name are selected,
+	 * so the notes text is never sent over the wire and no reflection is used to map the rows.
+	 */
+	public Page<ProjectSummary> fetchProjectSummaryPage(ProjectSort sort, boolean descending, int pageSize,
+			Page.Cursor after) {
+		return fetchPage("project_id, project_name", sort, descending, pageSize, after,
+				rs -> new ProjectSummary(rs.getInt(1), rs.getString(2)),
+				summary -> new Page.Cursor(summary.projectId(), summary.projectName()));
+	} // fetchProjectSummaryPage method
+
+	/*
+	 * This method runs a keyset page query for the given columns. One extra row is read to find out
+	 * whether there is a next page.
+	 */
+	private <T> Page<T> fetchPage(String columns, ProjectSort sort, boolean descending, int pageSize,
+			Page.Cursor after, RowReader<T> reader, Function<T, Page.Cursor> cursorOf) {
+		String sql = "SELECT " + columns + " FROM " + PROJECT_TABLE + buildKeysetClause(sort, descending, after);
+
+		try (Connection conn = getReadConnection("fetchPage")) {
+			try (PreparedStatement stmt = prepare(conn, sql)) {
+				int index = bindKeysetParameters(stmt, sort, after);
+				setParameter(stmt, index, pageSize + 1, Integer.class);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					List<T> rows = new ArrayList<>(pageSize + 1);
+
+					while (rs.next()) {
+						rows.add(reader.read(rs));
+					} // while block
+
+					return toPage(rows, pageSize, cursorOf);
+				} // try
+			} // try
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // try-catch
+	} // fetchPage method
+
+	/*
+	 * This method builds the WHERE, ORDER BY and LIMIT clauses for a keyset page. The name sort uses
+	 * project_id as a tie breaker so that the cursor identifies exactly one row.
+	 */
+	private String buildKeysetClause(ProjectSort sort, boolean descending, Page.Cursor after) {
+		String op = descending ? "<" : ">";
+		String direction = descending ? " DESC" : " ASC";
+		StringBuilder sql = new StringBuilder();
+
+		if (Objects.nonNull(after)) {
+			if (sort == ProjectSort.NAME) {
+				sql.append(" WHERE project_name ").append(op).append(" ? OR (project_name = ? AND project_id ").append(op)
+						.append(" ?)");
+			} else {
+				sql.append(" WHERE project_id ").append(op).append(" ?");
+			} // if statement
+		} // if statement
+
+		sql.append(" ORDER BY ");
+
+		if (sort == ProjectSort.NAME) {
+			sql.append("project_name").append(direction).append(", ");
+		} // if statement
+
+		sql.append("project_id").append(direction).append(" LIMIT ?");
+
+		return sql.toString();
+	} // buildKeysetClause method
+
+	/*
+	 * This method binds the cursor values for a keyset page and returns the next parameter index
+	 */
+	private int bindKeysetParameters(PreparedStatement stmt, ProjectSort sort, Page.Cursor after) throws SQLException {
+		int index = 1;
+
+		if (Objects.nonNull(after)) {
+			if (sort == ProjectSort.NAME) {
+				setParameter(stmt, index++, after.projectName(), String.class);
+				setParameter(stmt, index++, after.projectName(), String.class);
+			} // if statement
+
+			setParameter(stmt, index++, after.projectId(), Integer.class);
+		} // if statement
+
+		return index;
+	} // bindKeysetParameters method
+
+	/*
+	 * This method trims the extra look-ahead row and builds the cursor for the next page
+	 */
+	private <T> Page<T> toPage(List<T> rows, int pageSize, Function<T, Page.Cursor> cursorOf) {
+		if (rows.size() <= pageSize) {
+			return new Page<>(rows, null);
+		} // if statement
+
+		List<T> items = rows.subList(0, pageSize);
+		return new Page<>(items, cursorOf.apply(items.get(pageSize - 1)));
+	} // toPage method
+
+	/*
+	 * This method streams every project in project_id order. Rows are read through a server-side
+	 * cursor (useCursorFetch) a batch at a time, so memory use does not depend on the size of the
+	 * table. The connection stays borrowed until the stream is closed, so callers must use
+	 * try-with-resources.
+	 */
+	public Stream<Project> streamAllProjects() {
+
+		Connection conn = null;
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			conn = getReadConnection("streamAllProjects");
+			stmt = prepareUncached(conn, FETCH_ALL_PROJECTS_SQL);
+			stmt.setFetchSize(STREAM_FETCH_SIZE);
+			rs = stmt.executeQuery();
+
+			RowMapper<Project> mapper = rowMapper(rs, Project.class);
+			ResultSet cursor = rs;
+
+			Spliterator<Project> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+					Spliterator.ORDERED | Spliterator.NONNULL) {
+				@Override
+				public boolean tryAdvance(Consumer<? super Project> action) {
+					try {
+						if (!cursor.next()) {
+							return false;
+						} // if statement
+
+						action.accept(mapper.map(cursor));
+						return true;
+					} catch (SQLException e) {
+						throw new DbException(e);
+					} // try-catch
+				} // tryAdvance method
+			};
+
+			AutoCloseable[] resources = { rs, stmt, conn };
+			return StreamSupport.stream(rows, false).onClose(() -> closeAll(resources));
+		} catch (SQLException | RuntimeException e) {
+			closeAll(new AutoCloseable[] { rs, stmt, conn });
+			throw e instanceof DbException ? (DbException) e : new DbException(e);
+		} // try-catch
+	} // streamAllProjects method
+
+	/*
+	 * This method closes JDBC resources in order, keeping the first failure
+	 */
+	private void closeAll(AutoCloseable[] resources) {
+		DbException failure = null;
+
+		for (AutoCloseable resource : resources) {
+			try {
+				if (Objects.nonNull(resource)) {
+					resource.close();
+				} // if statement
+			} catch (Exception e) {
+				if (Objects.isNull(failure)) {
+					failure = new DbException(e);
+				} // if statement
+			} // try-catch
+		} // for loop
+
+		if (Objects.nonNull(failure)) {
+			throw failure;
+		} // if statement
+	} // closeAll method
+
+	/*
+	 * This method gets a project from the list by Id along with its materials, steps and categories.
+	 * The four SELECTs are sent as one multi-statement request, so the whole graph costs a single
+	 * round trip. Each result set is mapped straight into the project.
 	 */
 	public Optional<Project> fetchProjectId(Integer projectId) {
-		String sql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
-		
+		return fetchProjectId(projectId, FetchPlan.ALL);
+	} // fetchProjectId method
+
+	/*
+	 * This method gets a project by Id with the child collections the plan marks as eager. The project
+	 * SELECT and the eager child SELECTs are sent as one multi-statement request in a read-only
+	 * snapshot transaction, so the children match the project row. Every other child
+	 * list gets a loader that runs its SELECT the first time the list is read, so a caller that only
+	 * wants the project fields pays for a single query.
+	 */
+	public Optional<Project> fetchProjectId(Integer projectId, FetchPlan plan) {
+		int mask = plan.mask();
+		int statements = 1 + Integer.bitCount(mask);
+
 		/*
 		 * obtains a connection
 		 */
-		try (Connection conn = DbConnection.getConnection()) {
-			startTransaction(conn);
+		try (Connection conn = getReadConnection("fetchProjectId")) {
+			try (PreparedStatement stmt = prepare(conn, FETCH_PROJECT_SHAPES.get(mask))) {
+				for (int index = 1; index <= statements; index++) {
+					setParameter(stmt, index, projectId, Integer.class);
+				} // for loop
 
-			/*
-			 * transaction
-			 */
-			try {
 				Project project = null;
 
-				try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-					setParameter(stmt, 1, projectId, Integer.class);
-
-					try (ResultSet rs = stmt.executeQuery()) {
-						if (rs.next()) {
-							project = extract(rs, Project.class);
-						} // if statement
-					} // try
+				try (ResultSet rs = firstResultSet(stmt, stmt.execute())) {
+					if (rs.next()) {
+						project = extract(rs, Project.class);
+					} // if statement
 				} // try
 
-				if (Objects.nonNull(project)) {
-					project.getMaterials().addAll(fetchMaterialsForProject(conn, projectId));
-					project.getSteps().addAll(fetchStepsForProject(conn, projectId));
-					project.getCategories().addAll(fetchCategoriesForProject(conn, projectId));
+				if (Objects.isNull(project)) {
+					return Optional.empty();
 				} // if statement
 
-				commitTransaction(conn);
+				/*
+				 * The eager result sets come back in Association order
+				 */
+				if (plan.isEager(FetchPlan.Association.MATERIALS)) {
+					project.getMaterials().addAll(readNextResult(stmt, Material.class));
+				} else {
+					project.setMaterialsLoader(() -> fetchChildren("fetchMaterials", MATERIALS_FOR_PROJECT_SQL,
+							projectId, Material.class));
+				} // if statement
+
+				if (plan.isEager(FetchPlan.Association.STEPS)) {
+					project.getSteps().addAll(readNextResult(stmt, Step.class));
+				} else {
+					project.setStepsLoader(() -> fetchChildren("fetchSteps", STEPS_FOR_PROJECT_SQL, projectId,
+							Step.class));
+				} // if statement
 
-				return Optional.ofNullable(project);
+				if (plan.isEager(FetchPlan.Association.CATEGORIES)) {
+					project.getCategories().addAll(readNextResult(stmt, Category.class));
+				} else {
+					project.setCategoriesLoader(() -> fetchChildren("fetchCategories", CATEGORIES_FOR_PROJECT_SQL,
+							projectId, Category.class));
+				} // if statement
 
-			} catch (Exception e) {
-				rollbackTransaction(conn);
-				throw new DbException(e);
-			} // inner try-catch
+				return Optional.of(project);
+			} catch (SQLException e) {
+				if (mask != 0) {
+					abandonSnapshot(conn, e);
+				} // if statement
 
+				throw e;
+			} // try-catch
 		} catch (SQLException e) {
 			throw new DbException(e);
 		} // outer try-catch
 	} // fetchProjectId method
 
 	/*
-	 * This method gets the categories for the project that has been selected 
+	 * This method wraps a multi-statement read in a read-only snapshot transaction
+	 */
+	private static String inSnapshot(String sql) {
+		return SNAPSHOT_START_SQL + "; " + sql + "; " + SNAPSHOT_END_SQL;
+	} // inSnapshot method
+
+	/*
+	 * This method returns the first result set of a multi-statement request, skipping the update count
+	 * of a leading START TRANSACTION
+	 */
+	private static ResultSet firstResultSet(PreparedStatement stmt, boolean isResultSet) throws SQLException {
+		while (!isResultSet) {
+			if (stmt.getUpdateCount() == -1) {
+				throw new SQLException("Expected a result set for Project");
+			} // if statement
+
+			isResultSet = stmt.getMoreResults();
+		} // while loop
+
+		return stmt.getResultSet();
+	} // firstResultSet method
+
+	/*
+	 * This method ends the snapshot transaction of a multi-statement read that failed before its COMMIT.
+	 * The connection has auto-commit on, so the pool would otherwise hand it out with the read-only
+	 * transaction still open.
+	 */
+	private void abandonSnapshot(Connection conn, SQLException failure) {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("ROLLBACK");
+		} catch (SQLException e) {
+			failure.addSuppressed(e);
+		} // try-catch
+	} // abandonSnapshot method
+
+	/*
+	 * This method loads one child collection of a project. It is the loader of a lazy child list, so it
+	 * borrows its own connection when the list is first read.
+	 */
+	private <T> List<T> fetchChildren(String operation, String sql, Integer projectId, Class<T> classType) {
+		/*
+		 * obtains a connection
+		 */
+		try (Connection conn = getReadConnection(operation)) {
+			try (PreparedStatement stmt = prepare(conn, sql)) {
+				setParameter(stmt, 1, projectId, Integer.class);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					List<T> rows = new LinkedList<>();
+					RowMapper<T> mapper = rowMapper(rs, classType);
+
+					while (rs.next()) {
+						rows.add(mapper.map(rs));
+					} // while block
+
+					return rows;
+				} // try
+			} // try
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // try-catch
+	} // fetchChildren method
+
+	/*
+	 * This method moves a multi-statement request on to its next result set and maps every row
+	 */
+	private <T> List<T> readNextResult(PreparedStatement stmt, Class<T> classType) throws SQLException {
+		if (!stmt.getMoreResults()) {
+			throw new SQLException("Expected a result set for " + classType.getSimpleName());
+		} // if statement
+
+		try (ResultSet rs = stmt.getResultSet()) {
+			List<T> rows = new LinkedList<>();
+			RowMapper<T> mapper = rowMapper(rs, classType);
+
+			while (rs.next()) {
+				rows.add(mapper.map(rs));
+			} // while block
+
+			return rows;
+		} // try
+	} // readNextResult method
+
+	/*
+	 * This method loads many projects with all of their materials, steps and categories. The ids are
+	 * split into chunks and each chunk is loaded with one multi-statement request of four IN-list
+	 * SELECTs. The children are then attached to their parents through a map keyed by project id, so
+	 * the number of queries does not grow with the number of projects. Projects are returned in the
+	 * order the ids were given and ids that do not exist are skipped.
 	 */
-	private List<Category> fetchCategoriesForProject(Connection conn, Integer projectId) throws SQLException {
-		//@formatter:off
-		String sql = "" 
-			+ "SELECT c.* "
+	public List<Project> fetchProjectsWithChildren(Collection<Integer> projectIds) {
+		List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(projectIds));
+		Map<Integer, Project> projectsById = new HashMap<>(ids.size() * 2);
+
+		/*
+		 * obtains a connection
+		 */
+		try (Connection conn = getReadConnection("fetchProjectsWithChildren")) {
+			for (int from = 0; from < ids.size(); from += FETCH_CHUNK_SIZE) {
+				List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + FETCH_CHUNK_SIZE));
+				fetchProjectChunk(conn, chunk, projectsById);
+			} // for loop
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // try-catch
+
+		List<Project> projects = new ArrayList<>(projectsById.size());
+
+		for (Integer id : ids) {
+			Project project = projectsById.get(id);
+
+			if (Objects.nonNull(project)) {
+				projects.add(project);
+			} // if statement
+		} // for loop
+
+		return projects;
+	} // fetchProjectsWithChildren method
+
+	/*
+	 * This method loads one chunk of projects and hash joins the child rows onto them. The four SELECTs
+	 * run in one snapshot transaction, so a graph committed while the chunk is read is either wholly
+	 * in it or not at all. A child row whose project is not in the chunk is skipped all the same.
+	 */
+	private void fetchProjectChunk(Connection conn, List<Integer> chunk, Map<Integer, Project> projectsById)
+			throws SQLException {
+		String in = "(" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+		// @formatter:off
+		String sql = ""
+			+ "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id IN " + in + "; "
+			+ "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id IN " + in + " ORDER BY project_id, material_id; "
+			+ "SELECT * FROM " + STEP_TABLE + " WHERE project_id IN " + in + " ORDER BY project_id, step_order; "
+			+ "SELECT pc.project_id, c.* "
 			+ "FROM " + CATAGORY_TABLE + " c "
 			+ "JOIN " + PROJECT_CATAGORY_TABLE + " pc USING (category_id) "
-			+ "WHERE project_id = ? ";
-		//@formatter:on
+			+ "WHERE pc.project_id IN " + in + " "
+			+ "ORDER BY pc.project_id, c.category_id";
+		// @formatter:on
 
-		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-			setParameter(stmt, 1, projectId, Integer.class);
+		try (PreparedStatement stmt = prepareUncached(conn, inSnapshot(sql))) {
+			int index = 1;
 
-			try (ResultSet rs = stmt.executeQuery()) {
-				List<Category> categories = new LinkedList<>();
+			for (int query = 0; query < 4; query++) {
+				for (Integer id : chunk) {
+					setParameter(stmt, index++, id, Integer.class);
+				} // for loop
+			} // for loop
+
+			try (ResultSet rs = firstResultSet(stmt, stmt.execute())) {
+				RowMapper<Project> mapper = rowMapper(rs, Project.class);
 
 				while (rs.next()) {
-					categories.add(extract(rs, Category.class));
+					Project project = mapper.map(rs);
+					projectsById.put(project.getProjectId(), project);
 				} // while block
+			} // try
+
+			for (Material material : readNextResult(stmt, Material.class)) {
+				Project project = projectsById.get(material.getProjectId());
+
+				if (Objects.nonNull(project)) {
+					project.getMaterials().add(material);
+				} // if statement
+			} // for loop
+
+			for (Step step : readNextResult(stmt, Step.class)) {
+				Project project = projectsById.get(step.getProjectId());
+
+				if (Objects.nonNull(project)) {
+					project.getSteps().add(step);
+				} // if statement
+			} // for loop
+
+			if (!stmt.getMoreResults()) {
+				throw new SQLException("Expected a result set for Category");
+			} // if statement
 
-				return categories;
+			try (ResultSet rs = stmt.getResultSet()) {
+				RowMapper<Category> mapper = rowMapper(rs, Category.class);
+				int projectIdColumn = rs.findColumn("project_id");
+				int categoryIdColumn = rs.findColumn("category_id");
+				Map<Integer, Category> categoriesById = new HashMap<>();
+
+				/*
+				 * A category shared by several projects is only mapped once
+				 */
+				while (rs.next()) {
+					Project project = projectsById.get(rs.getInt(projectIdColumn));
+
+					if (Objects.nonNull(project)) {
+						project.getCategories().add(
+								categoriesById.computeIfAbsent(rs.getInt(categoryIdColumn), id -> mapper.map(rs)));
+					} // if statement
+				} // while block
 			} // try
-		} // try catch
-	} // fetchCategoriesForProject method
+		} catch (SQLException e) {
+			abandonSnapshot(conn, e);
+			throw e;
+		} // try-catch
+	} // fetchProjectChunk method
 
 	/*
-	 * This method gets the steps for the project that has been selected 
+	 * This method builds the project fetch request for every set of eager child collections. The child
+	 * SELECTs follow the project SELECT in Association order. A request with more than one SELECT runs
+	 * in a snapshot transaction.
 	 */
-	private List<Step> fetchStepsForProject(Connection conn, Integer projectId) throws SQLException {
-		//@formatter:off
-		String sql = "" 
-			+ "SELECT s.* "
-			+ "FROM " + STEP_TABLE + " s "
-			+ "JOIN " + PROJECT_TABLE + " p USING (project_id) "
-			+ "WHERE project_id = ? ";
-		//@formatter:on
+	static List<String> createFetchShapes() {
+		List<String> childQueries = List.of(MATERIALS_FOR_PROJECT_SQL, STEPS_FOR_PROJECT_SQL,
+				CATEGORIES_FOR_PROJECT_SQL);
+		List<String> shapes = new ArrayList<>();
 
-		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-			setParameter(stmt, 1, projectId, Integer.class);
+		for (int mask = 0; mask < 1 << childQueries.size(); mask++) {
+			StringJoiner sql = new StringJoiner("; ");
+			sql.add(FETCH_PROJECT_SQL);
 
-			try (ResultSet rs = stmt.executeQuery()) {
-				List<Step> steps = new LinkedList<>();
+			for (int index = 0; index < childQueries.size(); index++) {
+				if ((mask & 1 << index) != 0) {
+					sql.add(childQueries.get(index));
+				} // if statement
+			} // for loop
 
-				while (rs.next()) {
-					steps.add(extract(rs, Step.class));
-				}// while block
+			shapes.add(mask == 0 ? sql.toString() : inSnapshot(sql.toString()));
+		} // for loop
 
-				return steps;
-			} // try
-		} // try catch
-	} // fetchStepsForProject method
+		return List.copyOf(shapes);
+	} // createFetchShapes method
 
 	/*
-	 * This method gets the materials for the project that has been selected 
+	 * This method builds the UPDATE statement and binder for every set of changed fields
 	 */
-	private List<Material> fetchMaterialsForProject(Connection conn, Integer projectId) throws SQLException {
-		//@formatter:off
-		String sql = "" 
-			+ "SELECT m.* "
-			+ "FROM " + MATERIAL_TABLE + " m "
-			+ "JOIN " + PROJECT_TABLE + " p USING (project_id) "
-			+ "WHERE project_id = ? ";
-		//@formatter:on
+	static List<UpdateShape> createUpdateShapes() {
+		Project.Field[] fields = Project.Field.values();
+		List<UpdateShape> shapes = new ArrayList<>(1 << fields.length);
 
-		try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-			setParameter(stmt, 1, projectId, Integer.class);
+		for (int mask = 0; mask < 1 << fields.length; mask++) {
+			StringJoiner columns = new StringJoiner(", ", "UPDATE " + PROJECT_TABLE + " SET ", " WHERE project_id = ?");
+			EntityBinder<Project> binder = EntityBinder.create();
 
-			try (ResultSet rs = stmt.executeQuery()) {
-				List<Material> materials = new LinkedList<>();
+			for (Project.Field field : fields) {
+				if ((mask & 1 << field.ordinal()) == 0) {
+					continue;
+				} // if statement
 
-				while (rs.next()) {
-					materials.add(extract(rs, Material.class));
-				} // while block
+				// @formatter:off
+				switch (field) {
+					case PROJECT_NAME:
+						columns.add("project_name = ?");
+						binder.string(Project::getProjectName);
+						break;
 
-				return materials;
-			} // try
-		} // try catch
-	} // fetchMaterialsForProject method
+					case ESTIMATED_HOURS:
+						columns.add("estimated_hours = ?");
+						binder.decimal(Project::getEstimatedHours);
+						break;
+
+					case ACTUAL_HOURS:
+						columns.add("actual_hours = ?");
+						binder.decimal(Project::getActualHours);
+						break;
+
+					case DIFFICULTY:
+						columns.add("difficulty = ?");
+						binder.integer(Project::getDifficulty);
+						break;
+
+					case NOTES:
+						columns.add("notes = ?");
+						binder.string(Project::getNotes);
+						break;
+				} // @formatter:on
+				// switch statement
+			} // for loop
+
+			shapes.add(mask == 0 ? null : new UpdateShape(columns.toString(), binder.integer(Project::getProjectId)));
+		} // for loop
+
+		return shapes;
+	} // createUpdateShapes method
 
 	/*
-	 * This method modifies the current projects details on the project table based on user input 
+	 * This method writes the project details that changed since the project was loaded. Only the changed
+	 * columns are sent, so an untouched notes TEXT is not sent back to the server. If nothing changed
+	 * only the existence of the row is checked, so a missing project is still reported with false.
+	 * Afterwards the project is marked clean and matches its row.
 	 */
 	public boolean modifyProjectsDetails(Project project) {
-		//@formatter:off
-		String sql = ""
-			+ "UPDATE " + PROJECT_TABLE + " SET "
-			+ "project_name = ?, "
-			+ "estimated_hours = ?, "
-			+ "actual_hours = ?, "
-			+ "difficulty = ?, "
-			+ "notes = ? "
-			+ "WHERE project_id = ?";
-		//@formatter:on
+		int dirtyMask = 0;
+
+		for (Project.Field field : project.getDirtyFields()) {
+			dirtyMask |= 1 << field.ordinal();
+		} // for loop
+
+		if (dirtyMask == 0) {
+			return projectExists(project.getProjectId());
+		} // if statement
+
+		UpdateShape shape = UPDATE_PROJECT_SHAPES.get(dirtyMask);
 
 		/*
 		 * obtains a connection
 		 */
-		try (Connection conn = DbConnection.getConnection()) {
+		try (Connection conn = getConnection("modifyProjectsDetails")) {
 			startTransaction(conn);
 
 			/*
 			 * transaction
 			 */
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-				setParameter(stmt, 1, project.getProjectName(), String.class);
-				setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-				setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-				setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-				setParameter(stmt, 5, project.getNotes(), String.class);
-				setParameter(stmt, 6, project.getProjectId(), Integer.class);
+			try (PreparedStatement stmt = prepare(conn, shape.sql())) {
+				shape.binder().bind(stmt, project);
 
 				boolean modified = stmt.executeUpdate() == 1;
 				commitTransaction(conn);
 
+				if (modified) {
+					project.markClean();
+				} // if statement
+
 				return modified;
 
 			} catch (Exception e) {
 				rollbackTransaction(conn);
-				throw new DbException();
+				throw new DbException(e);
 			} // inner try-catch 
 
 		} catch (SQLException e) {
@@ -285,22 +1002,38 @@ public class ProjectDao extends DaoBase {
 		} // outer try-catch
 	} // modifyProjectsDetails method
 
+	/*
+	 * This method checks the primary for the project's row, so a project that was just added is found
+	 * even if the replicas have not caught up
+	 */
+	private boolean projectExists(Integer projectId) {
+		try (Connection conn = getConnection("projectExists")) {
+			try (PreparedStatement stmt = prepare(conn, PROJECT_EXISTS_SQL)) {
+				setParameter(stmt, 1, projectId, Integer.class);
+
+				try (ResultSet rs = stmt.executeQuery()) {
+					return rs.next();
+				} // try
+			} // try
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // try-catch
+	} // projectExists method
+
 	/*
 	 * This method deletes a project based on user input 
 	 */
 	public boolean deleteProject(Integer projectId) {
-		String sql = "DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ?";
-
 		/*
 		 * obtains a connection
 		 */
-		try (Connection conn = DbConnection.getConnection()) {
+		try (Connection conn = getConnection("deleteProject")) {
 			startTransaction(conn);
 
 			/*
 			 * transaction
 			 */
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+			try (PreparedStatement stmt = prepare(conn, DELETE_PROJECT_SQL)) {
 				setParameter(stmt, 1, projectId, Integer.class);
 
 				boolean deleted = stmt.executeUpdate() == 1;
@@ -324,7 +1057,7 @@ public class ProjectDao extends DaoBase {
 		/*
 		 * obtains a connection
 		 */
-		try (Connection conn = DbConnection.getConnection()) {
+		try (Connection conn = getConnection("executeBatch")) {
 			startTransaction(conn);
 
 			/*
@@ -349,4 +1082,182 @@ public class ProjectDao extends DaoBase {
 		}
 	}// outer try-catch
 
+	/*
+	 * This method reads the foreign keys of the current schema. Each table name is mapped to the
+	 * tables it references. Names are lower case.
+	 */
+	public Map<String, Set<String>> fetchTableDependencies() {
+		// @formatter:off
+		String sql = ""
+			+ "SELECT table_name, referenced_table_name "
+			+ "FROM information_schema.key_column_usage "
+			+ "WHERE table_schema = DATABASE() AND referenced_table_name IS NOT NULL";
+		// @formatter:on
+
+		try (Connection conn = getConnection("fetchTableDependencies")) {
+			try (PreparedStatement stmt = prepareUncached(conn, sql)) {
+				try (ResultSet rs = stmt.executeQuery()) {
+					Map<String, Set<String>> dependencies = new HashMap<>();
+
+					while (rs.next()) {
+						String table = rs.getString(1).toLowerCase(Locale.ROOT);
+						String referenced = rs.getString(2).toLowerCase(Locale.ROOT);
+
+						if (!table.equals(referenced)) {
+							dependencies.computeIfAbsent(table, key -> new HashSet<>()).add(referenced);
+						} // if statement
+					} // while block
+
+					return dependencies;
+				} // try
+			} // try
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // try-catch
+	} // fetchTableDependencies method
+
+	/*
+	 * This method returns the schema versions that have been applied, creating the schema_version
+	 * table if this is the first migration run
+	 */
+	public Set<Integer> fetchAppliedSchemaVersions() {
+		// @formatter:off
+		String createSql = ""
+			+ "CREATE TABLE IF NOT EXISTS " + SCHEMA_VERSION_TABLE + " ("
+			+ "version INT NOT NULL, "
+			+ "description VARCHAR(200) NOT NULL, "
+			+ "execution_ms INT NOT NULL, "
+			+ "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+			+ "PRIMARY KEY (version))";
+		// @formatter:on
+		String sql = "SELECT version FROM " + SCHEMA_VERSION_TABLE;
+
+		try (Connection conn = getConnection("fetchAppliedSchemaVersions")) {
+			try (Statement stmt = conn.createStatement()) {
+				stmt.execute(createSql);
+
+				try (ResultSet rs = stmt.executeQuery(sql)) {
+					Set<Integer> versions = new HashSet<>();
+
+					while (rs.next()) {
+						versions.add(rs.getInt(1));
+					} // while block
+
+					return versions;
+				} // try
+			} // try
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // try-catch
+	} // fetchAppliedSchemaVersions method
+
+	/*
+	 * This method runs the statements of one migration and records its version. MySQL commits DDL
+	 * statements implicitly, so a migration that fails part way must be written so it can be fixed and
+	 * run again. MySQL has no CREATE INDEX IF NOT EXISTS, so a CREATE INDEX whose index is already there
+	 * is skipped.
+	 */
+	public void applyMigration(int version, String description, List<String> statements) {
+		String sql = "INSERT INTO " + SCHEMA_VERSION_TABLE + " (version, description, execution_ms) VALUES (?, ?, ?)";
+
+		try (Connection conn = getConnection("applyMigration")) {
+			long start = System.nanoTime();
+
+			try (Statement stmt = conn.createStatement()) {
+				for (String statement : statements) {
+					if (!isIndexCreated(conn, statement)) {
+						stmt.execute(statement);
+					} // if statement
+				} // for loop
+			} // try
+
+			try (PreparedStatement stmt = prepareUncached(conn, sql)) {
+				setParameter(stmt, 1, version, Integer.class);
+				setParameter(stmt, 2, description, String.class);
+				setParameter(stmt, 3, (int) ((System.nanoTime() - start) / 1_000_000), Integer.class);
+				stmt.executeUpdate();
+			} // try
+		} catch (SQLException e) {
+			throw new DbException("Migration " + version + " (" + description + ") failed.", e);
+		} // try-catch
+	} // applyMigration method
+
+	/*
+	 * This method returns true if the statement is a CREATE INDEX and the index already exists, as it
+	 * does when a migration that failed part way is run again
+	 */
+	private boolean isIndexCreated(Connection conn, String statement) throws SQLException {
+		Matcher createIndex = CREATE_INDEX_PATTERN.matcher(statement);
+
+		if (!createIndex.matches()) {
+			return false;
+		} // if statement
+
+		// @formatter:off
+		String sql = ""
+			+ "SELECT 1 FROM information_schema.statistics "
+			+ "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ? "
+			+ "LIMIT 1";
+		// @formatter:on
+
+		try (PreparedStatement stmt = prepareUncached(conn, sql)) {
+			setParameter(stmt, 1, createIndex.group(2), String.class);
+			setParameter(stmt, 2, createIndex.group(1), String.class);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				return rs.next();
+			} // try
+		} // try
+	} // isIndexCreated method
+
+	/*
+	 * This method runs EXPLAIN on each query ProjectDao sends and returns a line for every table that
+	 * would be read without an index. An empty list means every query uses an index. On very small
+	 * tables MySQL may choose a full scan even when an index exists.
+	 */
+	public List<String> explainIndexUsage() {
+		Page.Cursor cursor = new Page.Cursor(1, "a");
+		Map<String, String> queries = new LinkedHashMap<>();
+		Map<String, ParameterBinder> binders = new HashMap<>();
+		ParameterBinder byProjectId = stmt -> setParameter(stmt, 1, 1, Integer.class);
+
+		queries.put("fetch project by id", FETCH_PROJECT_SQL);
+		queries.put("materials for project", MATERIALS_FOR_PROJECT_SQL);
+		queries.put("steps for project", STEPS_FOR_PROJECT_SQL);
+		queries.put("categories for project", CATEGORIES_FOR_PROJECT_SQL);
+
+		for (ProjectSort sort : ProjectSort.values()) {
+			String name = "summary page by " + sort.getColumn();
+
+			queries.put(name, "SELECT project_id, project_name FROM " + PROJECT_TABLE + buildKeysetClause(sort, false, cursor));
+			binders.put(name, stmt -> setParameter(stmt, bindKeysetParameters(stmt, sort, cursor), 10, Integer.class));
+		} // for loop
+
+		List<String> problems = new ArrayList<>();
+
+		try (Connection conn = getConnection("explainIndexUsage")) {
+			for (Map.Entry<String, String> query : queries.entrySet()) {
+				try (PreparedStatement stmt = prepareUncached(conn, "EXPLAIN " + query.getValue())) {
+					binders.getOrDefault(query.getKey(), byProjectId).bind(stmt);
+
+					try (ResultSet rs = stmt.executeQuery()) {
+						while (rs.next()) {
+							String type = rs.getString("type");
+							String key = rs.getString("key");
+
+							if ("ALL".equalsIgnoreCase(type) || Objects.isNull(key)) {
+								problems.add(query.getKey() + ": table " + rs.getString("table") + " is read without an index (type="
+										+ type + ")");
+							} // if statement
+						} // while block
+					} // try
+				} // try
+			} // for loop
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // try-catch
+
+		return problems;
+	} // explainIndexUsage method
+
 } // class ProjectDao
@@ -0,0 +1,20 @@
+package projects.dao;
+
+/*
+ * This enum lists the keys a project listing can be sorted by. Every sort ends with project_id so
+ * that the order is unique and a page can be resumed from the last row it returned.
+ */
+public enum ProjectSort {
+	ID("project_id"),
+	NAME("project_name");
+
+	private final String column;
+
+	ProjectSort(String column) {
+		this.column = column;
+	} // ProjectSort constructor
+
+	public String getColumn() {
+		return column;
+	}
+} // enum ProjectSort
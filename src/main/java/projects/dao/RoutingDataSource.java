@@ -0,0 +1,361 @@
+package projects.dao;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import projects.exception.DbException;
+import provided.util.CachingConnection;
+import provided.util.ReadWriteDataSource;
+
+/*
+ * This class sends writes to the primary server and read-only DAO operations to a set of replicas.
+ * The primary and every replica have their own ConnectionPool.
+ *
+ * - roundRobin balancing takes the replicas in turn, leastLoaded takes the one with the fewest
+ *   borrowed connections
+ * - a read does not wait for a replica whose pool is fully borrowed. It tries the next replica, then
+ *   the primary, which it waits for as usual
+ * - a replica that fails to open a connection is skipped for retryInterval
+ * - after a session commits on the primary, its reads go to the primary for readYourWritesWindow so
+ *   it does not miss its own writes while the replicas catch up
+ *
+ * A session is the current thread unless callInSession binds another one, which lets work handed to
+ * other threads keep the pin of the thread that started it. ProjectServer binds one session per client,
+ * since each of its requests runs on a new thread.
+ */
+public class RoutingDataSource implements ReadWriteDataSource, AutoCloseable {
+	private static final Logger LOGGER = Logger.getLogger(RoutingDataSource.class.getName());
+
+	/* The connection calls after which a rollback no longer describes the open transaction. */
+	private static final Set<String> STARTS_WORK = Set.of("setAutoCommit", "commit", "createStatement",
+			"prepareStatement", "prepareCall", "getStatementCache");
+
+	private static final ThreadLocal<Session> SESSION = ThreadLocal.withInitial(Session::new);
+
+	/* A session that is always pinned, for reads that must not see a lagging replica. */
+	private static final Session PRIMARY_SESSION = new Session(Long.MAX_VALUE);
+
+	private final ConnectionPool primary;
+	private final List<Replica> replicas = new ArrayList<>();
+	private final boolean leastLoaded;
+	private final long readYourWritesWindow;
+	private final long retryInterval;
+	private final AtomicInteger nextReplica = new AtomicInteger();
+	private final LongAdder primaryReads = new LongAdder();
+	private int loginTimeout;
+
+	public RoutingDataSource(DbConfig config) {
+		String balance = config.getReplicaBalance();
+
+		if (!balance.equalsIgnoreCase("roundRobin") && !balance.equalsIgnoreCase("leastLoaded")) {
+			throw new DbException("db.replicas.balance=" + balance + " must be roundRobin or leastLoaded.");
+		} // if statement
+
+		this.primary = new ConnectionPool(config);
+		this.leastLoaded = balance.equalsIgnoreCase("leastLoaded");
+		this.readYourWritesWindow = config.getReadYourWritesWindow();
+		this.retryInterval = config.getReplicaRetryInterval();
+
+		for (DbConfig replica : config.getReplicas()) {
+			replicas.add(new Replica(replica.getHost() + ":" + replica.getPort(), new ConnectionPool(replica)));
+		} // for loop
+	} // RoutingDataSource constructor
+
+	/*
+	 * This method returns the session of the current thread
+	 */
+	public static Session currentSession() {
+		return SESSION.get();
+	} // currentSession method
+
+	/*
+	 * This method makes the session current while the call runs. It is used to carry a caller's session
+	 * onto the thread that does the work.
+	 */
+	public static <T> T callInSession(Session session, Supplier<T> call) {
+		Session previous = SESSION.get();
+		SESSION.set(session);
+
+		try {
+			return call.get();
+		} finally {
+			SESSION.set(previous);
+		} // try-finally block
+	} // callInSession method
+
+	/*
+	 * This method runs the call with every read going to the primary. It is used for reads whose result
+	 * is kept, such as cache fills, because a row read from a lagging replica would outlive the lag.
+	 */
+	public static <T> T callOnPrimary(Supplier<T> call) {
+		return callInSession(PRIMARY_SESSION, call);
+	} // callOnPrimary method
+
+	/*
+	 * This method borrows a connection to the primary. A commit on it pins the session to the primary.
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		Connection conn = primary.getConnection();
+
+		if (readYourWritesWindow <= 0) {
+			return conn;
+		} // if statement
+
+		return (Connection) Proxy.newProxyInstance(RoutingDataSource.class.getClassLoader(),
+				new Class<?>[] { Connection.class, CachingConnection.class }, new PinningHandler(conn, SESSION.get()));
+	} // getConnection method
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("The pool only hands out connections for the configured user.");
+	}
+
+	/*
+	 * This method borrows a connection for a read. It comes from a replica unless the session is pinned
+	 * to the primary or no replica can hand one out right away. A replica whose pool is busy is only
+	 * passed over for this read. One that throws is marked down.
+	 */
+	@Override
+	public Connection getReadConnection() throws SQLException {
+		long now = System.currentTimeMillis();
+
+		if (!replicas.isEmpty() && !SESSION.get().isPinned(now)) {
+			int first = chooseReplica(now);
+
+			for (int offset = 0; offset < replicas.size(); offset++) {
+				Replica replica = replicas.get((first + offset) % replicas.size());
+
+				if (replica.downUntil > now) {
+					continue;
+				} // if statement
+
+				try {
+					Connection conn = replica.pool.tryGetConnection();
+
+					if (Objects.nonNull(conn)) {
+						replica.reads.increment();
+						return conn;
+					} // if statement
+				} catch (SQLException e) {
+					replica.downUntil = now + retryInterval;
+					LOGGER.warning("Replica " + replica.endpoint + " is unavailable, skipping it for " + retryInterval
+							+ "ms: " + e.getMessage());
+				} // try-catch block
+			} // for loop
+		} // if statement
+
+		primaryReads.increment();
+		return primary.getConnection();
+	} // getReadConnection method
+
+	/*
+	 * This method returns the index of the replica to try first. Round robin moves to the next replica
+	 * on every read. Least loaded takes the available replica with the fewest borrowed connections,
+	 * starting the search at the round robin position so that ties are spread out.
+	 */
+	private int chooseReplica(long now) {
+		int first = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+
+		if (!leastLoaded) {
+			return first;
+		} // if statement
+
+		int best = first;
+		int bestLoad = Integer.MAX_VALUE;
+
+		for (int offset = 0; offset < replicas.size(); offset++) {
+			int index = (first + offset) % replicas.size();
+			Replica replica = replicas.get(index);
+			int load = replica.pool.getActiveConnections();
+
+			if (replica.downUntil <= now && load < bestLoad) {
+				best = index;
+				bestLoad = load;
+			} // if statement
+		} // for loop
+
+		return best;
+	} // chooseReplica method
+
+	/*
+	 * This method returns the number of reads sent to each replica and to the primary
+	 */
+	public Map<String, Long> getReadCounts() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+
+		for (Replica replica : replicas) {
+			counts.put(replica.endpoint, replica.reads.sum());
+		} // for loop
+
+		counts.put("primary", primaryReads.sum());
+		return counts;
+	} // getReadCounts method
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "RoutingDataSource(balance=%s, readYourWritesWindow=%dms, reads=%s)",
+				leastLoaded ? "leastLoaded" : "roundRobin", readYourWritesWindow, getReadCounts());
+	} // toString method
+
+	/*
+	 * This method closes the primary and replica pools
+	 */
+	@Override
+	public void close() {
+		primary.close();
+		replicas.forEach(replica -> replica.pool.close());
+	} // close method
+
+	@Override
+	public PrintWriter getLogWriter() {
+		return null;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {
+		/* Logging goes to the java.util.logging logger returned by getParentLogger. */
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) {
+		loginTimeout = seconds;
+	}
+
+	@Override
+	public int getLoginTimeout() {
+		return loginTimeout;
+	}
+
+	@Override
+	public Logger getParentLogger() {
+		return LOGGER;
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		} // if statement
+
+		throw new SQLException("RoutingDataSource does not wrap " + iface.getName());
+	} // unwrap method
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+
+	/*
+	 * This class holds the time until which a session reads from the primary
+	 */
+	public static final class Session {
+		private volatile long pinnedUntil;
+
+		public Session() {
+			this(0);
+		} // Session constructor
+
+		private Session(long pinnedUntil) {
+			this.pinnedUntil = pinnedUntil;
+		} // Session constructor
+
+		public boolean isPinned(long now) {
+			return pinnedUntil > now;
+		} // isPinned method
+
+		void pin(long until) {
+			pinnedUntil = Math.max(pinnedUntil, until);
+		} // pin method
+	} // class Session
+
+	/*
+	 * This class holds one replica endpoint and its pool
+	 */
+	private static final class Replica {
+		private final String endpoint;
+		private final ConnectionPool pool;
+		private final LongAdder reads = new LongAdder();
+		private volatile long downUntil;
+
+		Replica(String endpoint, ConnectionPool pool) {
+			this.endpoint = endpoint;
+			this.pool = pool;
+		} // Replica constructor
+	} // class Replica
+
+	/*
+	 * This class pins the session to the primary after each successful commit on a primary connection.
+	 * Turning auto-commit back on during a transaction commits it, so that counts as a commit too,
+	 * unless the transaction was just rolled back: DaoBase ends a failed transaction with rollback()
+	 * followed by setAutoCommit(true), which writes nothing.
+	 */
+	private class PinningHandler implements InvocationHandler {
+		private final Connection conn;
+		private final Session session;
+		private boolean rolledBack;
+
+		PinningHandler(Connection conn, Session session) {
+			this.conn = conn;
+			this.session = session;
+		} // PinningHandler constructor
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+
+				case "hashCode":
+					return System.identityHashCode(proxy);
+
+				case "toString":
+					return "primary " + conn;
+
+				default:
+					break;
+			} // switch statement
+
+			String name = method.getName();
+			boolean commits = name.equals("commit")
+					|| (name.equals("setAutoCommit") && (Boolean) args[0] && !conn.getAutoCommit() && !rolledBack);
+			Object result;
+
+			try {
+				result = method.invoke(conn, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			} // try-catch block
+
+			/* A rollback to a savepoint keeps the work done before it, so only a full rollback counts. */
+			if (name.equals("rollback") && Objects.isNull(args)) {
+				rolledBack = true;
+			} else if (STARTS_WORK.contains(name)) {
+				rolledBack = false;
+			} // if statement
+
+			if (commits) {
+				session.pin(System.currentTimeMillis() + readYourWritesWindow);
+			} // if statement
+
+			return result;
+		} // invoke method
+	} // class PinningHandler
+} // class RoutingDataSource
@@ -0,0 +1,43 @@
+/**
+ *
+ */
+package projects.entity;
+
+/**
+ * A read-only category of a {@link CompactProject}. A {@link ProjectCompactor} creates one per
+ * category ID and shares it between all the projects in that category.
+ *
+ * @author Promineo
+ *
+ */
+public final class CompactCategory {
+  private final int categoryId;
+  private final String categoryName;
+
+  CompactCategory(int categoryId, String categoryName) {
+    this.categoryId = categoryId;
+    this.categoryName = categoryName;
+  }
+
+  public int getCategoryId() {
+    return categoryId;
+  }
+
+  public String getCategoryName() {
+    return categoryName;
+  }
+
+  Category toCategory() {
+    Category category = new Category();
+
+    category.setCategoryId(CompactProject.fromNumber(categoryId));
+    category.setCategoryName(categoryName);
+
+    return category;
+  }
+
+  @Override
+  public String toString() {
+    return toCategory().toString();
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ *
+ */
+package projects.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * A read-only material of a {@link CompactProject}. The project ID is kept only on the project.
+ *
+ * @author Promineo
+ *
+ */
+public final class CompactMaterial {
+  private final int materialId;
+  private final String materialName;
+  private final int numRequired;
+  private final long costCents;
+
+  CompactMaterial(int materialId, String materialName, int numRequired, long costCents) {
+    this.materialId = materialId;
+    this.materialName = materialName;
+    this.numRequired = numRequired;
+    this.costCents = costCents;
+  }
+
+  public int getMaterialId() {
+    return materialId;
+  }
+
+  public String getMaterialName() {
+    return materialName;
+  }
+
+  /**
+   * @return The number required, or {@link CompactProject#NO_NUMBER}.
+   */
+  public int getNumRequired() {
+    return numRequired;
+  }
+
+  /**
+   * @return The cost in cents, or {@link CompactProject#NO_AMOUNT}.
+   */
+  public long getCostCents() {
+    return costCents;
+  }
+
+  public BigDecimal getCost() {
+    return CompactProject.fromCents(costCents);
+  }
+
+  Material toMaterial(Integer projectId) {
+    Material material = new Material();
+
+    material.setMaterialId(CompactProject.fromNumber(materialId));
+    material.setProjectId(projectId);
+    material.setMaterialName(materialName);
+    material.setNumRequired(CompactProject.fromNumber(numRequired));
+    material.setCost(getCost());
+
+    return material;
+  }
+
+  @Override
+  public String toString() {
+    return toMaterial(null).toString();
+  }
+}
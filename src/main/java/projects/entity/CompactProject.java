@@ -0,0 +1,201 @@
+/**
+ *
+ */
+package projects.entity;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A read-only project for holding large numbers of projects in memory. The ID and difficulty are
+ * primitive ints, and hours are hundredths of an hour in a long. The children are kept in arrays
+ * that are shared when empty, and the project ID is not repeated in each child. Projects are built
+ * with a {@link ProjectCompactor}, which also shares equal strings and categories between projects.
+ *
+ * A missing number is stored as {@link #NO_NUMBER} or {@link #NO_AMOUNT}, and the getters that
+ * return the entity types give null for it.
+ *
+ * @author Promineo
+ *
+ */
+public final class CompactProject {
+  /**
+   * Stored for a null ID, difficulty or count.
+   */
+  public static final int NO_NUMBER = Integer.MIN_VALUE;
+
+  /**
+   * Stored for a null amount of hours or money.
+   */
+  public static final long NO_AMOUNT = Long.MIN_VALUE;
+
+  static final CompactMaterial[] NO_MATERIALS = {};
+  static final CompactStep[] NO_STEPS = {};
+  static final CompactCategory[] NO_CATEGORIES = {};
+
+  private final int projectId;
+  private final String projectName;
+  private final long estimatedHoursCents;
+  private final long actualHoursCents;
+  private final int difficulty;
+  private final String notes;
+  private final CompactMaterial[] materials;
+  private final CompactStep[] steps;
+  private final CompactCategory[] categories;
+
+  CompactProject(int projectId, String projectName, long estimatedHoursCents, long actualHoursCents,
+      int difficulty, String notes, CompactMaterial[] materials, CompactStep[] steps,
+      CompactCategory[] categories) {
+    this.projectId = projectId;
+    this.projectName = projectName;
+    this.estimatedHoursCents = estimatedHoursCents;
+    this.actualHoursCents = actualHoursCents;
+    this.difficulty = difficulty;
+    this.notes = notes;
+    this.materials = materials;
+    this.steps = steps;
+    this.categories = categories;
+  }
+
+  public int getProjectId() {
+    return projectId;
+  }
+
+  public String getProjectName() {
+    return projectName;
+  }
+
+  /**
+   * @return The estimated hours in hundredths of an hour, or {@link #NO_AMOUNT}.
+   */
+  public long getEstimatedHoursCents() {
+    return estimatedHoursCents;
+  }
+
+  /**
+   * @return The actual hours in hundredths of an hour, or {@link #NO_AMOUNT}.
+   */
+  public long getActualHoursCents() {
+    return actualHoursCents;
+  }
+
+  public BigDecimal getEstimatedHours() {
+    return fromCents(estimatedHoursCents);
+  }
+
+  public BigDecimal getActualHours() {
+    return fromCents(actualHoursCents);
+  }
+
+  /**
+   * @return The difficulty, or {@link #NO_NUMBER}.
+   */
+  public int getDifficulty() {
+    return difficulty;
+  }
+
+  public String getNotes() {
+    return notes;
+  }
+
+  public List<CompactMaterial> getMaterials() {
+    return Collections.unmodifiableList(Arrays.asList(materials));
+  }
+
+  public List<CompactStep> getSteps() {
+    return Collections.unmodifiableList(Arrays.asList(steps));
+  }
+
+  public List<CompactCategory> getCategories() {
+    return Collections.unmodifiableList(Arrays.asList(categories));
+  }
+
+  /**
+   * Builds the entity form of this project with new child entities. The project is marked clean, as
+   * if it had just been loaded, so an update of it only writes the fields changed afterwards.
+   *
+   * @return The project.
+   */
+  public Project toProject() {
+    Project project = new Project();
+    Integer id = fromNumber(projectId);
+
+    project.setProjectId(id);
+    project.setProjectName(projectName);
+    project.setEstimatedHours(fromCents(estimatedHoursCents));
+    project.setActualHours(fromCents(actualHoursCents));
+    project.setDifficulty(fromNumber(difficulty));
+    project.setNotes(notes);
+
+    for(CompactMaterial material : materials) {
+      project.getMaterials().add(material.toMaterial(id));
+    }
+
+    for(CompactStep step : steps) {
+      project.getSteps().add(step.toStep(id));
+    }
+
+    for(CompactCategory category : categories) {
+      project.getCategories().add(category.toCategory());
+    }
+
+    if(Objects.nonNull(id)) {
+      project.markClean();
+    }
+
+    return project;
+  }
+
+  /**
+   * Converts an amount with at most two decimal places to hundredths.
+   *
+   * @throws IllegalArgumentException Thrown if the amount has more than two decimal places or does
+   *         not fit in a long.
+   */
+  static long toCents(BigDecimal amount) {
+    if(Objects.isNull(amount)) {
+      return NO_AMOUNT;
+    }
+
+    try {
+      long cents = amount.movePointRight(2).longValueExact();
+
+      if(cents == NO_AMOUNT) {
+        throw new ArithmeticException("Overflow");
+      }
+
+      return cents;
+    }
+    catch(ArithmeticException e) {
+      throw new IllegalArgumentException(amount + " cannot be stored in hundredths.", e);
+    }
+  }
+
+  static BigDecimal fromCents(long cents) {
+    return cents == NO_AMOUNT ? null : BigDecimal.valueOf(cents, 2);
+  }
+
+  static int toNumber(Integer value) {
+    if(Objects.isNull(value)) {
+      return NO_NUMBER;
+    }
+
+    if(value == NO_NUMBER) {
+      throw new IllegalArgumentException(value + " is reserved for a missing number.");
+    }
+
+    return value;
+  }
+
+  static Integer fromNumber(int value) {
+    return value == NO_NUMBER ? null : value;
+  }
+
+  @Override
+  public String toString() {
+    return toProject().toString();
+  }
+}
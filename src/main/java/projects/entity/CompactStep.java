@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package projects.entity;
+
+/**
+ * A read-only step of a {@link CompactProject}. The project ID is kept only on the project.
+ *
+ * @author Promineo
+ *
+ */
+public final class CompactStep {
+  private final int stepId;
+  private final String stepText;
+  private final int stepOrder;
+
+  CompactStep(int stepId, String stepText, int stepOrder) {
+    this.stepId = stepId;
+    this.stepText = stepText;
+    this.stepOrder = stepOrder;
+  }
+
+  public int getStepId() {
+    return stepId;
+  }
+
+  public String getStepText() {
+    return stepText;
+  }
+
+  /**
+   * @return The step order, or {@link CompactProject#NO_NUMBER}.
+   */
+  public int getStepOrder() {
+    return stepOrder;
+  }
+
+  Step toStep(Integer projectId) {
+    Step step = new Step();
+
+    step.setStepId(CompactProject.fromNumber(stepId));
+    step.setProjectId(projectId);
+    step.setStepText(stepText);
+    step.setStepOrder(CompactProject.fromNumber(stepOrder));
+
+    return step;
+  }
+
+  @Override
+  public String toString() {
+    return toStep(null).toString();
+  }
+}
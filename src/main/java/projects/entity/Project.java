@@ -4,14 +4,37 @@
 package projects.entity;
 
 import java.math.BigDecimal;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import provided.util.ChangeTracked;
 
 /**
+ * A project tracks which of its detail fields were changed after it was loaded, so that an update
+ * only writes those columns. A project that was created with new and never loaded or saved counts
+ * as having every field changed.
+ * 
+ * A child list can be given a loader instead of its contents. The loader runs the first time the
+ * list's getter is called, so a project fetched for its own fields does not pay for its children.
+ * 
  * @author Promineo
  *
  */
-public class Project {
+public class Project implements ChangeTracked {
+  /**
+   * The detail fields that are written by an update.
+   */
+  public enum Field {
+    PROJECT_NAME, ESTIMATED_HOURS, ACTUAL_HOURS, DIFFICULTY, NOTES;
+  }
+
+  private static final int ALL_FIELDS = (1 << Field.values().length) - 1;
+
   private Integer projectId;
   private String projectName;
   private BigDecimal estimatedHours;
@@ -19,9 +42,15 @@ public class Project {
   private Integer difficulty;
   private String notes;
 
-  private List<Material> materials = new LinkedList<>();
-  private List<Step> steps = new LinkedList<>();
-  private List<Category> categories = new LinkedList<>();
+  private final List<Material> materials = new LinkedList<>();
+  private final List<Step> steps = new LinkedList<>();
+  private final List<Category> categories = new LinkedList<>();
+
+  private volatile ChildLoader<Material> materialsLoader;
+  private volatile ChildLoader<Step> stepsLoader;
+  private volatile ChildLoader<Category> categoriesLoader;
+
+  private int dirtyFields = ALL_FIELDS;
 
   public Integer getProjectId() {
     return projectId;
@@ -36,6 +65,7 @@ public class Project {
   }
 
   public void setProjectName(String projectName) {
+    markChanged(Field.PROJECT_NAME, !Objects.equals(this.projectName, projectName));
     this.projectName = projectName;
   }
 
@@ -44,6 +74,7 @@ public class Project {
   }
 
   public void setEstimatedHours(BigDecimal estimatedHours) {
+    markChanged(Field.ESTIMATED_HOURS, !sameDecimal(this.estimatedHours, estimatedHours));
     this.estimatedHours = estimatedHours;
   }
 
@@ -52,6 +83,7 @@ public class Project {
   }
 
   public void setActualHours(BigDecimal actualHours) {
+    markChanged(Field.ACTUAL_HOURS, !sameDecimal(this.actualHours, actualHours));
     this.actualHours = actualHours;
   }
 
@@ -60,6 +92,7 @@ public class Project {
   }
 
   public void setDifficulty(Integer difficulty) {
+    markChanged(Field.DIFFICULTY, !Objects.equals(this.difficulty, difficulty));
     this.difficulty = difficulty;
   }
 
@@ -68,21 +101,135 @@ public class Project {
   }
 
   public void setNotes(String notes) {
+    markChanged(Field.NOTES, !Objects.equals(this.notes, notes));
     this.notes = notes;
   }
 
   public List<Material> getMaterials() {
+    ChildLoader<Material> loader = materialsLoader;
+
+    if(Objects.nonNull(loader)) {
+      loader.loadInto(materials);
+      materialsLoader = null;
+    }
+
     return materials;
   }
 
   public List<Step> getSteps() {
+    ChildLoader<Step> loader = stepsLoader;
+
+    if(Objects.nonNull(loader)) {
+      loader.loadInto(steps);
+      stepsLoader = null;
+    }
+
     return steps;
   }
 
   public List<Category> getCategories() {
+    ChildLoader<Category> loader = categoriesLoader;
+
+    if(Objects.nonNull(loader)) {
+      loader.loadInto(categories);
+      categoriesLoader = null;
+    }
+
     return categories;
   }
 
+  /**
+   * Sets the loader that fills the materials list the first time {@link #getMaterials()} is called.
+   * 
+   * @param loader Returns the materials of this project.
+   */
+  public void setMaterialsLoader(Supplier<List<Material>> loader) {
+    materialsLoader = Objects.isNull(loader) ? null : new ChildLoader<>(loader);
+  }
+
+  public void setStepsLoader(Supplier<List<Step>> loader) {
+    stepsLoader = Objects.isNull(loader) ? null : new ChildLoader<>(loader);
+  }
+
+  public void setCategoriesLoader(Supplier<List<Category>> loader) {
+    categoriesLoader = Objects.isNull(loader) ? null : new ChildLoader<>(loader);
+  }
+
+  /**
+   * @return True if every child list has been loaded, so reading the children runs no query.
+   */
+  public boolean isFullyLoaded() {
+    return Objects.isNull(materialsLoader) && Objects.isNull(stepsLoader) && Objects.isNull(categoriesLoader);
+  }
+
+  /**
+   * @return True if any detail field was changed since the project was loaded or saved.
+   */
+  public boolean isDirty() {
+    return dirtyFields != 0;
+  }
+
+  public boolean isDirty(Field field) {
+    return (dirtyFields & 1 << field.ordinal()) != 0;
+  }
+
+  /**
+   * @return The detail fields changed since the project was loaded or saved.
+   */
+  public Set<Field> getDirtyFields() {
+    Set<Field> fields = EnumSet.noneOf(Field.class);
+
+    for(Field field : Field.values()) {
+      if(isDirty(field)) {
+        fields.add(field);
+      }
+    }
+
+    return fields;
+  }
+
+  @Override
+  public void markClean() {
+    dirtyFields = 0;
+  }
+
+  /**
+   * Returns a copy to make changes on, leaving this project as it is. The copy has the same
+   * changed fields, and its child lists are new lists holding the same children. A child list that
+   * has not been loaded yet is not loaded by the copy. The copy gets the same loader instead.
+   * 
+   * @return The copy.
+   */
+  public Project copy() {
+    Project copy = new Project();
+
+    copy.projectId = projectId;
+    copy.projectName = projectName;
+    copy.estimatedHours = estimatedHours;
+    copy.actualHours = actualHours;
+    copy.difficulty = difficulty;
+    copy.notes = notes;
+    copy.materialsLoader = copyChildren(materials, materialsLoader, copy.materials);
+    copy.stepsLoader = copyChildren(steps, stepsLoader, copy.steps);
+    copy.categoriesLoader = copyChildren(categories, categoriesLoader, copy.categories);
+    copy.dirtyFields = dirtyFields;
+
+    return copy;
+  }
+
+  private void markChanged(Field field, boolean changed) {
+    if(changed) {
+      dirtyFields |= 1 << field.ordinal();
+    }
+  }
+
+  /**
+   * Decimals are compared by value so that 3.5 and 3.50 do not count as a change.
+   */
+  private static boolean sameDecimal(BigDecimal a, BigDecimal b) {
+    return Objects.isNull(a) ? Objects.isNull(b) : Objects.nonNull(b) && a.compareTo(b) == 0;
+  }
+
   @Override
   public String toString() {
     String result = "";
@@ -96,22 +243,77 @@ public class Project {
     
     result += "\n   Materials:";
     
-    for(Material material : materials) {
+    for(Material material : getMaterials()) {
       result += "\n      " + material;
     }
     
     result += "\n   Steps:";
     
-    for(Step step : steps) {
+    for(Step step : getSteps()) {
       result += "\n      " + step;
     }
     
     result += "\n   Categories:";
     
-    for(Category category : categories) {
+    for(Category category : getCategories()) {
       result += "\n      " + category;
     }
     
     return result;
   }
+
+  /**
+   * Copies a child list into a copy of this project. A list that is still waiting on its loader is
+   * copied under the loader's lock, so the copy either gets every loaded child or a loader of its own.
+   */
+  private static <T> ChildLoader<T> copyChildren(List<T> from, ChildLoader<T> loader, List<T> to) {
+    if(Objects.isNull(loader)) {
+      to.addAll(from);
+      return null;
+    }
+
+    loader.lock.lock();
+
+    try {
+      to.addAll(from);
+      return loader.loaded ? null : new ChildLoader<>(loader.supplier);
+    }
+    finally {
+      loader.lock.unlock();
+    }
+  }
+
+  /**
+   * The loader of a child list that has not been read yet. It is only created when a loader is set,
+   * so a project whose children were loaded with it carries no loader or lock.
+   * 
+   * A cached project can be read by several threads at once. Without the lock, two threads reading
+   * a list that is not loaded yet would both run the query and both add its rows, leaving every
+   * child in the list twice. The lock makes the loader run once. The loader waits on the database,
+   * so the lock is a ReentrantLock, which a virtual thread can wait on without holding its carrier. A
+   * loader that throws is kept, and the next call tries again.
+   */
+  private static final class ChildLoader<T> {
+    private final Supplier<List<T>> supplier;
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean loaded;
+
+    ChildLoader(Supplier<List<T>> supplier) {
+      this.supplier = supplier;
+    }
+
+    void loadInto(List<T> list) {
+      lock.lock();
+
+      try {
+        if(!loaded) {
+          list.addAll(supplier.get());
+          loaded = true;
+        }
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+  }
 }
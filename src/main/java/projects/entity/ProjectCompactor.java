@@ -0,0 +1,138 @@
+/**
+ *
+ */
+package projects.entity;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Converts projects to {@link CompactProject}s. Equal strings are stored once across every project
+ * it converts, so a material name or step text that many projects share costs one String. Every
+ * category with an ID is stored once as well. Use one compactor per catalog. It is not thread-safe.
+ *
+ * @author Promineo
+ *
+ */
+public class ProjectCompactor {
+  private final Map<String, String> strings = new HashMap<>();
+  private final Map<Integer, CompactCategory> categories = new HashMap<>();
+
+  /**
+   * Converts a project with its materials, steps and categories. Hours and costs must have at most
+   * two decimal places, as the database columns do.
+   *
+   * @param project The project to convert. It is not changed.
+   * @return The compact project.
+   * @throws IllegalArgumentException Thrown if an amount has more than two decimal places.
+   */
+  public CompactProject compact(Project project) {
+    return new CompactProject(
+        CompactProject.toNumber(project.getProjectId()),
+        share(project.getProjectName()),
+        CompactProject.toCents(project.getEstimatedHours()),
+        CompactProject.toCents(project.getActualHours()),
+        CompactProject.toNumber(project.getDifficulty()),
+        share(project.getNotes()),
+        compactMaterials(project.getMaterials()),
+        compactSteps(project.getSteps()),
+        compactCategories(project.getCategories()));
+  }
+
+  /**
+   * @return The number of distinct strings held.
+   */
+  public int getStringCount() {
+    return strings.size();
+  }
+
+  /**
+   * @return The number of distinct categories held.
+   */
+  public int getCategoryCount() {
+    return categories.size();
+  }
+
+  private CompactMaterial[] compactMaterials(List<Material> materials) {
+    if(materials.isEmpty()) {
+      return CompactProject.NO_MATERIALS;
+    }
+
+    CompactMaterial[] result = new CompactMaterial[materials.size()];
+    int index = 0;
+
+    for(Material material : materials) {
+      result[index++] = new CompactMaterial(
+          CompactProject.toNumber(material.getMaterialId()),
+          share(material.getMaterialName()),
+          CompactProject.toNumber(material.getNumRequired()),
+          CompactProject.toCents(material.getCost()));
+    }
+
+    return result;
+  }
+
+  private CompactStep[] compactSteps(List<Step> steps) {
+    if(steps.isEmpty()) {
+      return CompactProject.NO_STEPS;
+    }
+
+    CompactStep[] result = new CompactStep[steps.size()];
+    int index = 0;
+
+    for(Step step : steps) {
+      result[index++] = new CompactStep(
+          CompactProject.toNumber(step.getStepId()),
+          share(step.getStepText()),
+          CompactProject.toNumber(step.getStepOrder()));
+    }
+
+    return result;
+  }
+
+  private CompactCategory[] compactCategories(List<Category> categoryList) {
+    if(categoryList.isEmpty()) {
+      return CompactProject.NO_CATEGORIES;
+    }
+
+    CompactCategory[] result = new CompactCategory[categoryList.size()];
+    int index = 0;
+
+    for(Category category : categoryList) {
+      result[index++] = compactCategory(category);
+    }
+
+    return result;
+  }
+
+  /**
+   * A category without an ID has not been saved yet, so it is not shared.
+   */
+  private CompactCategory compactCategory(Category category) {
+    Integer id = category.getCategoryId();
+
+    if(Objects.isNull(id)) {
+      return new CompactCategory(CompactProject.NO_NUMBER, share(category.getCategoryName()));
+    }
+
+    CompactCategory compact = categories.get(id);
+
+    if(Objects.isNull(compact) || !Objects.equals(compact.getCategoryName(), category.getCategoryName())) {
+      compact = new CompactCategory(CompactProject.toNumber(id), share(category.getCategoryName()));
+      categories.put(id, compact);
+    }
+
+    return compact;
+  }
+
+  private String share(String value) {
+    if(Objects.isNull(value)) {
+      return null;
+    }
+
+    String shared = strings.putIfAbsent(value, value);
+    return Objects.isNull(shared) ? value : shared;
+  }
+}
@@ -0,0 +1,19 @@
+/**
+ * 
+ */
+package projects.entity;
+
+/**
+ * The columns of a project that are shown in a listing. It is read with a projection query, so the
+ * notes text and the child lists are never loaded.
+ * 
+ * @author Promineo
+ *
+ */
+public record ProjectSummary(Integer projectId, String projectName) {
+
+  @Override
+  public String toString() {
+    return projectId + ": " + projectName;
+  }
+}
@@ -1,20 +1,26 @@
 package projects.exception;
 
+import provided.util.DaoMetrics;
+
 @SuppressWarnings("serial")
 public class DbException extends RuntimeException {
 
 	public DbException() {
+		DaoMetrics.recordError(DbException.class, null);
 	}
 
 	public DbException(String message) {
 		super(message);
+		DaoMetrics.recordError(DbException.class, null);
 	}
 
 	public DbException(Throwable cause) {
 		super(cause);
+		DaoMetrics.recordError(DbException.class, cause);
 	}
 
 	public DbException(String message, Throwable cause) {
 		super(message, cause);
+		DaoMetrics.recordError(DbException.class, cause);
 	}
 }
@@ -0,0 +1,72 @@
+package projects.server;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import projects.dao.RoutingDataSource;
+
+/*
+ * This class keeps one RoutingDataSource session per client. Every request runs on a new virtual
+ * thread, so a session per thread would forget a client's write before its next request. With a
+ * session per client, the reads that follow a client's write go to the primary until the replicas
+ * have caught up.
+ *
+ * A session is dropped once none of its client's requests are running and its pin has run out, so
+ * only clients that are busy or wrote recently are held.
+ */
+class ClientSessions {
+	private static final int MIN_SWEEP_SIZE = 1024;
+
+	private final Map<String, ClientSession> sessions = new ConcurrentHashMap<>();
+	private volatile int sweepSize = MIN_SWEEP_SIZE;
+
+	/*
+	 * This method returns the client's session and counts a request as running in it
+	 */
+	RoutingDataSource.Session open(String client) {
+		return sessions.compute(client, (key, clientSession) -> {
+			ClientSession result = Objects.isNull(clientSession) ? new ClientSession() : clientSession;
+			result.requests++;
+			return result;
+		}).session;
+	} // open method
+
+	/*
+	 * This method ends a request of the client. Idle sessions of other clients are swept out when the
+	 * map has doubled since the last sweep.
+	 */
+	void close(String client) {
+		long now = System.currentTimeMillis();
+
+		sessions.computeIfPresent(client, (key, clientSession) -> {
+			clientSession.requests--;
+			return isIdle(clientSession, now) ? null : clientSession;
+		});
+
+		if (sessions.size() >= sweepSize) {
+			for (String key : sessions.keySet()) {
+				sessions.computeIfPresent(key, (k, clientSession) -> isIdle(clientSession, now) ? null : clientSession);
+			} // for loop
+
+			sweepSize = Math.max(MIN_SWEEP_SIZE, sessions.size() * 2);
+		} // if statement
+	} // close method
+
+	int size() {
+		return sessions.size();
+	}
+
+	private static boolean isIdle(ClientSession clientSession, long now) {
+		return clientSession.requests == 0 && !clientSession.session.isPinned(now);
+	} // isIdle method
+
+	/*
+	 * This class holds a session and the number of its client's requests that are running. The count is
+	 * only changed inside the map's compute methods, which run one at a time per client.
+	 */
+	private static final class ClientSession {
+		private final RoutingDataSource.Session session = new RoutingDataSource.Session();
+		private int requests;
+	} // class ClientSession
+} // class ClientSessions
@@ -0,0 +1,261 @@
+package projects.server;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * This class parses the JSON request bodies sent to ProjectServer. Objects become a Map, arrays a
+ * List, numbers a BigDecimal, and true, false and null become Boolean and null. Anything that is
+ * not valid JSON throws an IllegalArgumentException, which the server answers with 400 Bad Request.
+ * Objects and arrays can be nested MAX_DEPTH deep, so a body of nested brackets cannot overflow the
+ * stack of the request thread.
+ */
+public class JsonReader {
+	static final int MAX_DEPTH = 32;
+
+	private final String text;
+	private int pos;
+	private int depth;
+
+	private JsonReader(String text) {
+		this.text = text;
+	} // JsonReader constructor
+
+	/*
+	 * This method parses a JSON object
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> parseObject(String text) {
+		JsonReader reader = new JsonReader(text);
+		reader.skipSpace();
+
+		if (!reader.peek('{')) {
+			throw reader.error("Expected a JSON object");
+		} // if statement
+
+		Object value = reader.value();
+		reader.skipSpace();
+
+		if (reader.pos < text.length()) {
+			throw reader.error("Unexpected text after the object");
+		} // if statement
+
+		return (Map<String, Object>) value;
+	} // parseObject method
+
+	private Object value() {
+		skipSpace();
+
+		if (pos >= text.length()) {
+			throw error("Unexpected end of input");
+		} // if statement
+
+		char ch = text.charAt(pos);
+
+		switch (ch) {
+			case '{':
+			case '[':
+				return nested(ch);
+
+			case '"':
+				return string();
+
+			case 't':
+				return literal("true", Boolean.TRUE);
+
+			case 'f':
+				return literal("false", Boolean.FALSE);
+
+			case 'n':
+				return literal("null", null);
+
+			default:
+				return number();
+		} // switch statement
+	} // value method
+
+	/*
+	 * This method parses an object or array one level deeper
+	 */
+	private Object nested(char open) {
+		if (++depth > MAX_DEPTH) {
+			throw error("Objects and arrays are nested more than " + MAX_DEPTH + " deep");
+		} // if statement
+
+		try {
+			return open == '{' ? object() : array();
+		} finally {
+			depth--;
+		} // try-finally block
+	} // nested method
+
+	private Map<String, Object> object() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		pos++;
+		skipSpace();
+
+		if (peek('}')) {
+			pos++;
+			return map;
+		} // if statement
+
+		while (true) {
+			skipSpace();
+
+			if (!peek('"')) {
+				throw error("Expected a field name");
+			} // if statement
+
+			String name = string();
+			skipSpace();
+			expect(':');
+			map.put(name, value());
+			skipSpace();
+
+			if (peek(',')) {
+				pos++;
+			} else {
+				expect('}');
+				return map;
+			} // if statement
+		} // while loop
+	} // object method
+
+	private List<Object> array() {
+		List<Object> list = new ArrayList<>();
+		pos++;
+		skipSpace();
+
+		if (peek(']')) {
+			pos++;
+			return list;
+		} // if statement
+
+		while (true) {
+			list.add(value());
+			skipSpace();
+
+			if (peek(',')) {
+				pos++;
+			} else {
+				expect(']');
+				return list;
+			} // if statement
+		} // while loop
+	} // array method
+
+	private String string() {
+		StringBuilder builder = new StringBuilder();
+		pos++;
+
+		while (pos < text.length()) {
+			char ch = text.charAt(pos++);
+
+			if (ch == '"') {
+				return builder.toString();
+			} // if statement
+
+			if (ch != '\\') {
+				builder.append(ch);
+				continue;
+			} // if statement
+
+			if (pos >= text.length()) {
+				break;
+			} // if statement
+
+			char escaped = text.charAt(pos++);
+
+			switch (escaped) {
+				case 'b':
+					builder.append('\b');
+					break;
+
+				case 'f':
+					builder.append('\f');
+					break;
+
+				case 'n':
+					builder.append('\n');
+					break;
+
+				case 'r':
+					builder.append('\r');
+					break;
+
+				case 't':
+					builder.append('\t');
+					break;
+
+				case 'u':
+					if (pos + 4 > text.length()) {
+						throw error("Incomplete unicode escape");
+					} // if statement
+
+					try {
+						builder.append((char) Integer.parseInt(text, pos, pos + 4, 16));
+					} catch (NumberFormatException e) {
+						throw error("Invalid unicode escape");
+					} // try-catch block
+
+					pos += 4;
+					break;
+
+				default:
+					builder.append(escaped);
+					break;
+			} // switch statement
+		} // while loop
+
+		throw error("Unterminated string");
+	} // string method
+
+	private Object literal(String word, Object value) {
+		if (!text.startsWith(word, pos)) {
+			throw error("Unexpected value");
+		} // if statement
+
+		pos += word.length();
+		return value;
+	} // literal method
+
+	private BigDecimal number() {
+		int start = pos;
+
+		while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+			pos++;
+		} // while loop
+
+		try {
+			return new BigDecimal(text.substring(start, pos));
+		} catch (NumberFormatException e) {
+			pos = start;
+			throw error("Invalid number");
+		} // try-catch block
+	} // number method
+
+	private void skipSpace() {
+		while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+			pos++;
+		} // while loop
+	} // skipSpace method
+
+	private boolean peek(char ch) {
+		return pos < text.length() && text.charAt(pos) == ch;
+	}
+
+	private void expect(char ch) {
+		if (!peek(ch)) {
+			throw error("Expected '" + ch + "'");
+		} // if statement
+
+		pos++;
+	} // expect method
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + pos + " of the request body.");
+	} // error method
+} // class JsonReader
@@ -0,0 +1,350 @@
+package projects.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+import projects.dao.Page;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.ProjectSummary;
+import projects.entity.Step;
+
+/*
+ * This class writes projects as UTF-8 JSON straight into a byte buffer. Numbers are written digit
+ * by digit and strings are encoded a character at a time, so writing a project graph makes no
+ * intermediate strings. The buffer is kept between responses, and its length is known before the
+ * response is sent, so the server can send a Content-Length instead of chunking the body.
+ *
+ * A writer is not thread safe. ProjectServer keeps a pool of them.
+ */
+public class JsonWriter {
+	private static final byte[] HEX = "0123456789abcdef".getBytes();
+	private static final byte[] NULL = "null".getBytes();
+
+	private byte[] buffer;
+	private int size;
+	private boolean first = true;
+
+	public JsonWriter(int initialCapacity) {
+		buffer = new byte[initialCapacity];
+	} // JsonWriter constructor
+
+	/*
+	 * This method empties the writer so it can be used for another response
+	 */
+	public JsonWriter reset() {
+		size = 0;
+		first = true;
+		return this;
+	} // reset method
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return buffer.length;
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(buffer, 0, size);
+	} // writeTo method
+
+	@Override
+	public String toString() {
+		return new String(buffer, 0, size, StandardCharsets.UTF_8);
+	} // toString method
+
+	/*
+	 * This method writes a project with its materials, steps and categories
+	 */
+	public JsonWriter project(Project project) {
+		beginObject();
+		field("projectId", project.getProjectId());
+		field("projectName", project.getProjectName());
+		field("estimatedHours", project.getEstimatedHours());
+		field("actualHours", project.getActualHours());
+		field("difficulty", project.getDifficulty());
+		field("notes", project.getNotes());
+
+		name("materials");
+		beginArray();
+
+		for (Material material : project.getMaterials()) {
+			beginObject();
+			field("materialId", material.getMaterialId());
+			field("materialName", material.getMaterialName());
+			field("numRequired", material.getNumRequired());
+			field("cost", material.getCost());
+			endObject();
+		} // for loop
+
+		endArray();
+		name("steps");
+		beginArray();
+
+		for (Step step : project.getSteps()) {
+			beginObject();
+			field("stepId", step.getStepId());
+			field("stepText", step.getStepText());
+			field("stepOrder", step.getStepOrder());
+			endObject();
+		} // for loop
+
+		endArray();
+		name("categories");
+		beginArray();
+
+		for (Category category : project.getCategories()) {
+			beginObject();
+			field("categoryId", category.getCategoryId());
+			field("categoryName", category.getCategoryName());
+			endObject();
+		} // for loop
+
+		endArray();
+		return endObject();
+	} // project method
+
+	/*
+	 * This method writes a page of a project listing. next is the project ID to pass as "after" to
+	 * get the next page, or null on the last page.
+	 */
+	public JsonWriter summaryPage(Page<ProjectSummary> page) {
+		beginObject();
+		name("projects");
+		beginArray();
+
+		for (ProjectSummary summary : page.items()) {
+			beginObject();
+			field("projectId", summary.projectId());
+			field("projectName", summary.projectName());
+			endObject();
+		} // for loop
+
+		endArray();
+		field("next", page.hasNext() ? page.next().projectId() : null);
+		return endObject();
+	} // summaryPage method
+
+	/*
+	 * This method writes {"error": message}
+	 */
+	public JsonWriter error(String message) {
+		beginObject();
+		field("error", message);
+		return endObject();
+	} // error method
+
+	public JsonWriter beginObject() {
+		separate();
+		write('{');
+		first = true;
+		return this;
+	}
+
+	public JsonWriter endObject() {
+		write('}');
+		first = false;
+		return this;
+	}
+
+	public JsonWriter beginArray() {
+		separate();
+		write('[');
+		first = true;
+		return this;
+	}
+
+	public JsonWriter endArray() {
+		write(']');
+		first = false;
+		return this;
+	}
+
+	/*
+	 * This method writes a field name. The value must be written next.
+	 */
+	public JsonWriter name(String name) {
+		separate();
+		string(name);
+		write(':');
+		first = true;
+		return this;
+	} // name method
+
+	public JsonWriter field(String name, String value) {
+		name(name);
+		first = false;
+
+		if (Objects.isNull(value)) {
+			write(NULL);
+		} else {
+			string(value);
+		} // if statement
+
+		return this;
+	} // field method
+
+	public JsonWriter field(String name, Integer value) {
+		name(name);
+		first = false;
+
+		if (Objects.isNull(value)) {
+			write(NULL);
+		} else {
+			number(value);
+		} // if statement
+
+		return this;
+	} // field method
+
+	public JsonWriter field(String name, BigDecimal value) {
+		name(name);
+		first = false;
+
+		if (Objects.isNull(value)) {
+			write(NULL);
+		} else {
+			ascii(value.toPlainString());
+		} // if statement
+
+		return this;
+	} // field method
+
+	/*
+	 * This method writes the comma between values, except before the first value of an object or array
+	 */
+	private void separate() {
+		if (!first) {
+			write(',');
+		} // if statement
+
+		first = false;
+	} // separate method
+
+	/*
+	 * This method writes an int without creating a String
+	 */
+	private void number(int value) {
+		if (value == Integer.MIN_VALUE) {
+			ascii(String.valueOf(value));
+			return;
+		} // if statement
+
+		if (value < 0) {
+			write('-');
+			value = -value;
+		} // if statement
+
+		int digits = 1;
+
+		for (int rest = value / 10; rest > 0; rest /= 10) {
+			digits++;
+		} // for loop
+
+		ensure(digits);
+
+		for (int index = size + digits - 1; index >= size; index--) {
+			buffer[index] = (byte) ('0' + value % 10);
+			value /= 10;
+		} // for loop
+
+		size += digits;
+	} // number method
+
+	/*
+	 * This method writes a quoted, escaped string encoded as UTF-8
+	 */
+	private void string(String value) {
+		int length = value.length();
+
+		// Most strings are ASCII, so this is usually the only resize
+		ensure(length + 2);
+		write('"');
+
+		for (int index = 0; index < length; index++) {
+			char ch = value.charAt(index);
+
+			if (ch < 0x80) {
+				if (ch == '"' || ch == '\\') {
+					write('\\');
+					write(ch);
+				} else if (ch < 0x20) {
+					escape(ch);
+				} else {
+					write(ch);
+				} // if statement
+			} else if (ch < 0x800) {
+				ensure(2);
+				buffer[size++] = (byte) (0xc0 | ch >> 6);
+				buffer[size++] = (byte) (0x80 | ch & 0x3f);
+			} else if (Character.isHighSurrogate(ch) && index + 1 < length
+					&& Character.isLowSurrogate(value.charAt(index + 1))) {
+				int codePoint = Character.toCodePoint(ch, value.charAt(++index));
+				ensure(4);
+				buffer[size++] = (byte) (0xf0 | codePoint >> 18);
+				buffer[size++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+				buffer[size++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+				buffer[size++] = (byte) (0x80 | codePoint & 0x3f);
+			} else if (Character.isSurrogate(ch)) {
+				// An unpaired surrogate cannot be encoded, so it is escaped instead
+				escape(ch);
+			} else {
+				ensure(3);
+				buffer[size++] = (byte) (0xe0 | ch >> 12);
+				buffer[size++] = (byte) (0x80 | ch >> 6 & 0x3f);
+				buffer[size++] = (byte) (0x80 | ch & 0x3f);
+			} // if statement
+		} // for loop
+
+		write('"');
+	} // string method
+
+	/*
+	 * This method writes a character as a \\u escape
+	 */
+	private void escape(char ch) {
+		ensure(6);
+		buffer[size++] = '\\';
+		buffer[size++] = 'u';
+		buffer[size++] = HEX[ch >> 12 & 0xf];
+		buffer[size++] = HEX[ch >> 8 & 0xf];
+		buffer[size++] = HEX[ch >> 4 & 0xf];
+		buffer[size++] = HEX[ch & 0xf];
+	} // escape method
+
+	/*
+	 * This method writes a string that is known to hold only ASCII characters, such as a number
+	 */
+	private void ascii(String value) {
+		int length = value.length();
+		ensure(length);
+
+		for (int index = 0; index < length; index++) {
+			buffer[size++] = (byte) value.charAt(index);
+		} // for loop
+	} // ascii method
+
+	private void write(char ch) {
+		ensure(1);
+		buffer[size++] = (byte) ch;
+	}
+
+	private void write(byte[] bytes) {
+		ensure(bytes.length);
+		System.arraycopy(bytes, 0, buffer, size, bytes.length);
+		size += bytes.length;
+	}
+
+	private void ensure(int more) {
+		if (size + more > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + more));
+		} // if statement
+	} // ensure method
+} // class JsonWriter
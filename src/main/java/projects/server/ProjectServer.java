@@ -0,0 +1,567 @@
+package projects.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import projects.dao.DbConfig;
+import projects.dao.Page;
+import projects.dao.ProjectSort;
+import projects.dao.RoutingDataSource;
+import projects.entity.Project;
+import projects.service.AsyncProjectService;
+import projects.service.ProjectService;
+
+/*
+ * This class serves the ProjectService operations as a JSON HTTP API on the JDK's built-in server.
+ * Each request is handled on its own virtual thread, and the database call runs through
+ * AsyncProjectService, which limits the calls running at once to the connection pool size.
+ *
+ *   GET    /projects?limit=N&after=ID   one page of project IDs and names
+ *   GET    /projects/{id}               a project with its materials, steps and categories
+ *   POST   /projects                    add a project, answers 201 with the new project
+ *   PUT    /projects/{id}               replace the details of a project
+ *   DELETE /projects/{id}               delete a project
+ *   POST   /admin/reload                create and populate all tables
+ *
+ * Requests of the same client share one read/write routing session, so a client reads its own
+ * writes from the primary while the replicas catch up. A client is named by its X-Client-Id header,
+ * or by its address if it does not send one.
+ *
+ * A database call that takes longer than db.server.requestTimeout milliseconds is answered with
+ * 503 Service Unavailable. Retry-After is only sent for methods that are safe to repeat, since the
+ * call may still complete after the answer. The keep-alive settings are taken from the db.server keys in
+ * db.properties.
+ */
+public class ProjectServer implements AutoCloseable {
+	private static final String JSON_TYPE = "application/json; charset=utf-8";
+	private static final int MAX_BODY_SIZE = 64 * 1024;
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	/* Hours are DECIMAL(7,2), so at most 5 digits before the decimal point. */
+	private static final int MAX_INTEGER_DIGITS = 5;
+
+	/* The largest scale passed to setScale, which keeps it cheap. Trailing zeros past it are refused. */
+	private static final int MAX_SCALE = 32;
+	private static final String CLIENT_ID_HEADER = "X-Client-Id";
+	private static final int MAX_CLIENT_ID_LENGTH = 64;
+	private static final int WRITER_CAPACITY = 4096;
+	private static final int MAX_POOLED_WRITER_CAPACITY = 1024 * 1024;
+	private static final int WRITER_POOL_SIZE = 256;
+	private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE");
+
+	private final HttpServer server;
+	private final ExecutorService requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+	private final AsyncProjectService projectService;
+	private final BlockingQueue<JsonWriter> writers = new ArrayBlockingQueue<>(WRITER_POOL_SIZE);
+	private final ClientSessions clientSessions = new ClientSessions();
+	private final long requestTimeout;
+	private final long reloadTimeout;
+	private final int defaultPageSize;
+
+	private ProjectServer(DbConfig config, AsyncProjectService projectService) throws IOException {
+		this.projectService = projectService;
+		this.requestTimeout = config.getLong("db.server.requestTimeout", 5000);
+		this.reloadTimeout = config.getLong("db.server.reloadTimeout", 120000);
+		this.defaultPageSize = config.getInt("db.server.pageSize", 100);
+
+		server = HttpServer.create(new InetSocketAddress(config.getInt("db.server.port", 8080)),
+				config.getInt("db.server.backlog", 1024));
+		server.setExecutor(requestExecutor);
+		server.createContext("/projects", this::handleProjects);
+		server.createContext("/admin/reload", this::handleReload);
+	} // ProjectServer constructor
+
+	/*
+	 * This method starts a server with the db.server settings
+	 */
+	public static ProjectServer start(DbConfig config) throws IOException {
+		configureKeepAlive(config);
+
+		AsyncProjectService projectService = new AsyncProjectService(new ProjectService(), config.getMaxPoolSize());
+		ProjectServer projectServer = new ProjectServer(config, projectService);
+
+		projectServer.server.start();
+		return projectServer;
+	} // start method
+
+	/*
+	 * This method copies the keep-alive settings to the system properties the JDK's HTTP server reads.
+	 * The server reads them once, when the first HttpServer is created, so this has to run before that.
+	 * A property that is already set on the command line is left alone.
+	 *
+	 * The JDK defaults keep at most 200 idle connections and close them after 30 seconds, and they
+	 * delay small responses with Nagle's algorithm. Clients that send many small requests do better
+	 * with more idle connections kept open and TCP_NODELAY on.
+	 */
+	private static void configureKeepAlive(DbConfig config) {
+		// @formatter:off
+		Map<String, String> settings = Map.of(
+			"sun.net.httpserver.idleInterval", config.getString("db.server.idleInterval", "30"),
+			"sun.net.httpserver.maxIdleConnections", config.getString("db.server.maxIdleConnections", "1000"),
+			"sun.net.httpserver.maxReqTime", config.getString("db.server.maxReqTime", "10"),
+			"sun.net.httpserver.maxRspTime", config.getString("db.server.maxRspTime", "10"),
+			"sun.net.httpserver.nodelay", config.getString("db.server.noDelay", "true"),
+			"jdk.httpserver.maxConnections", config.getString("db.server.maxConnections", "-1")
+		);
+		// @formatter:on
+
+		settings.forEach((key, value) -> {
+			if (Objects.isNull(System.getProperty(key))) {
+				System.setProperty(key, value);
+			} // if statement
+		});
+	} // configureKeepAlive method
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/*
+	 * This method stops accepting connections, gives running requests a second to finish and then
+	 * stops the service
+	 */
+	@Override
+	public void close() {
+		server.stop(1);
+		requestExecutor.shutdown();
+		projectService.close();
+	} // close method
+
+	/*
+	 * This method handles everything under /projects
+	 */
+	private void handleProjects(HttpExchange exchange) throws IOException {
+		respond(exchange, json -> routeProjects(exchange, json));
+	} // handleProjects method
+
+	/*
+	 * This method routes a request under /projects and returns the status code
+	 */
+	private int routeProjects(HttpExchange exchange, JsonWriter json) throws Exception {
+		String path = exchange.getRequestURI().getRawPath();
+		String method = exchange.getRequestMethod();
+
+		if (path.equals("/projects") || path.equals("/projects/")) {
+			// @formatter:off
+			switch (method) {
+				case "GET":
+					return listProjects(exchange, json);
+
+				case "POST":
+					return createProject(exchange, json);
+
+				default:
+					return methodNotAllowed(exchange, json, "GET, POST");
+			} // @formatter:on
+			// switch statement
+		} // if statement
+
+		Integer projectId = parseProjectId(path.substring("/projects/".length()));
+
+		if (Objects.isNull(projectId)) {
+			json.error("Unknown resource " + path);
+			return 404;
+		} // if statement
+
+		// @formatter:off
+		switch (method) {
+			case "GET":
+				return getProject(projectId, json);
+
+			case "PUT":
+				return updateProject(exchange, projectId, json);
+
+			case "DELETE":
+				return deleteProject(projectId);
+
+			default:
+				return methodNotAllowed(exchange, json, "GET, PUT, DELETE");
+		} // @formatter:on
+		// switch statement
+	} // routeProjects method
+
+	/*
+	 * This method handles POST /admin/reload
+	 */
+	private void handleReload(HttpExchange exchange) throws IOException {
+		respond(exchange, json -> {
+			if (!exchange.getRequestMethod().equals("POST")) {
+				return methodNotAllowed(exchange, json, "POST");
+			} // if statement
+
+			await(projectService.createAndPopulateTables(), reloadTimeout);
+			return 204;
+		});
+	} // handleReload method
+
+	/*
+	 * This method runs a handler and always answers the exchange, even when the handler fails with an
+	 * Error, so the connection is closed and the writer goes back to the pool
+	 */
+	private void respond(HttpExchange exchange, RequestHandler handler) throws IOException {
+		JsonWriter json = borrowWriter();
+		String client = clientName(exchange);
+		RoutingDataSource.Session session = clientSessions.open(client);
+		int status = 500;
+		boolean completed = false;
+
+		try {
+			status = RoutingDataSource.callInSession(session, () -> handle(exchange, handler, json));
+			completed = true;
+		} finally {
+			clientSessions.close(client);
+
+			if (!completed) {
+				json.reset();
+				json.error("Internal server error");
+			} // if statement
+
+			send(exchange, status, json);
+		} // try-finally block
+	} // respond method
+
+	/*
+	 * This method runs a handler and turns an exception it throws into an error response
+	 */
+	private int handle(HttpExchange exchange, RequestHandler handler, JsonWriter json) {
+		try {
+			return handler.handle(json);
+		} catch (Exception e) {
+			return handleError(exchange, json, e);
+		} // try-catch block
+	} // handle method
+
+	/*
+	 * This method names the client of a request by its X-Client-Id header, or by its address when the
+	 * header is missing or longer than MAX_CLIENT_ID_LENGTH
+	 */
+	private static String clientName(HttpExchange exchange) {
+		String clientId = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+
+		if (Objects.nonNull(clientId) && !clientId.isEmpty() && clientId.length() <= MAX_CLIENT_ID_LENGTH) {
+			return "id:" + clientId;
+		} // if statement
+
+		return "address:" + exchange.getRemoteAddress().getAddress().getHostAddress();
+	} // clientName method
+
+	/*
+	 * This method returns one page of project summaries in project ID order
+	 */
+	private int listProjects(HttpExchange exchange, JsonWriter json) throws Exception {
+		String query = exchange.getRequestURI().getRawQuery();
+		String limit = queryParameter(query, "limit");
+		String after = queryParameter(query, "after");
+
+		int pageSize = Objects.isNull(limit) ? defaultPageSize : parseInt("limit", limit);
+		Page.Cursor cursor = Objects.isNull(after) ? null : new Page.Cursor(parseInt("after", after), null);
+
+		if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+		} // if statement
+
+		json.summaryPage(await(projectService.fetchProjectSummaryPage(ProjectSort.ID, false, pageSize, cursor),
+				requestTimeout));
+		return 200;
+	} // listProjects method
+
+	private int getProject(Integer projectId, JsonWriter json) throws Exception {
+		json.project(await(projectService.fetchProjectById(projectId), requestTimeout));
+		return 200;
+	} // getProject method
+
+	private int createProject(HttpExchange exchange, JsonWriter json) throws Exception {
+		Project project = readProject(exchange);
+		Project dbProject = await(projectService.addProject(project), requestTimeout);
+
+		exchange.getResponseHeaders().set("Location", "/projects/" + dbProject.getProjectId());
+		json.project(dbProject);
+		return 201;
+	} // createProject method
+
+	private int updateProject(HttpExchange exchange, Integer projectId, JsonWriter json) throws Exception {
+		Project project = readProject(exchange);
+		project.setProjectId(projectId);
+
+		await(projectService.modifyProjectDetails(project), requestTimeout);
+		return 204;
+	} // updateProject method
+
+	private int deleteProject(Integer projectId) throws Exception {
+		await(projectService.deleteProject(projectId), requestTimeout);
+		return 204;
+	} // deleteProject method
+
+	private int methodNotAllowed(HttpExchange exchange, JsonWriter json, String allowed) {
+		exchange.getResponseHeaders().set("Allow", allowed);
+		json.error(exchange.getRequestMethod() + " is not allowed here.");
+		return 405;
+	} // methodNotAllowed method
+
+	/*
+	 * This method waits for a service call. If it does not finish in time it is cancelled, which also
+	 * skips it if it has not started yet.
+	 */
+	private <T> T await(CompletableFuture<T> call, long timeout) throws Exception {
+		try {
+			return call.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			call.cancel(false);
+			throw e;
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		} // try-catch block
+	} // await method
+
+	/*
+	 * This method turns an exception into an error response and returns the status code
+	 */
+	private int handleError(HttpExchange exchange, JsonWriter json, Exception e) {
+		json.reset();
+
+		if (e instanceof NoSuchElementException) {
+			json.error(String.valueOf(e.getMessage()).trim());
+			return 404;
+		} // if statement
+
+		if (e instanceof IllegalArgumentException) {
+			json.error(e.getMessage());
+			return 400;
+		} // if statement
+
+		if (e instanceof BodyTooLargeException) {
+			json.error(e.getMessage());
+			return 413;
+		} // if statement
+
+		if (e instanceof TimeoutException || e instanceof InterruptedException) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			} // if statement
+
+			/*
+			 * The timed-out call may still finish, so only a request that can safely run twice is invited
+			 * to retry. A retried POST could add the same project twice.
+			 */
+			if (IDEMPOTENT_METHODS.contains(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				json.error("The request timed out.");
+			} else {
+				json.error("The request timed out and may still complete.");
+			} // if statement
+
+			return 503;
+		} // if statement
+
+		/* The message may hold SQL or driver details, so it is only logged. */
+		System.err.println(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " failed: " + e);
+		json.error("Internal server error.");
+		return 500;
+	} // handleError method
+
+	/*
+	 * This method sends the response with its exact length, so the connection can be kept alive without
+	 * chunked encoding, and returns the writer to the pool
+	 */
+	private void send(HttpExchange exchange, int status, JsonWriter json) throws IOException {
+		try {
+			if (json.size() == 0) {
+				exchange.sendResponseHeaders(status, -1);
+			} else {
+				exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+				exchange.sendResponseHeaders(status, json.size());
+
+				try (OutputStream out = exchange.getResponseBody()) {
+					json.writeTo(out);
+				} // try-with-resources block
+			} // if statement
+		} finally {
+			exchange.close();
+			releaseWriter(json);
+		} // try-finally block
+	} // send method
+
+	private JsonWriter borrowWriter() {
+		JsonWriter json = writers.poll();
+		return Objects.isNull(json) ? new JsonWriter(WRITER_CAPACITY) : json.reset();
+	} // borrowWriter method
+
+	/*
+	 * This method keeps the writer for another response unless the pool is full or the writer grew
+	 * too large to be worth keeping
+	 */
+	private void releaseWriter(JsonWriter json) {
+		if (json.capacity() <= MAX_POOLED_WRITER_CAPACITY) {
+			writers.offer(json);
+		} // if statement
+	} // releaseWriter method
+
+	/*
+	 * This method reads a project's details from the request body
+	 */
+	private Project readProject(HttpExchange exchange) throws IOException {
+		Map<String, Object> body = JsonReader.parseObject(readBody(exchange));
+		Project project = new Project();
+
+		Object projectName = body.get("projectName");
+
+		if (!(projectName instanceof String) || ((String) projectName).isBlank()) {
+			throw new IllegalArgumentException("projectName is required.");
+		} // if statement
+
+		project.setProjectName(((String) projectName).trim());
+		project.setEstimatedHours(getDecimal(body, "estimatedHours"));
+		project.setActualHours(getDecimal(body, "actualHours"));
+		project.setDifficulty(getInteger(body, "difficulty"));
+		project.setNotes(getString(body, "notes"));
+
+		return project;
+	} // readProject method
+
+	private String readBody(HttpExchange exchange) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			byte[] body = in.readNBytes(MAX_BODY_SIZE + 1);
+
+			if (body.length > MAX_BODY_SIZE) {
+				throw new BodyTooLargeException("The request body is larger than " + MAX_BODY_SIZE + " bytes.");
+			} // if statement
+
+			return new String(body, StandardCharsets.UTF_8);
+		} // try-with-resources block
+	} // readBody method
+
+	private static String getString(Map<String, Object> body, String name) {
+		Object value = body.get(name);
+
+		if (Objects.nonNull(value) && !(value instanceof String)) {
+			throw new IllegalArgumentException(name + " must be a string.");
+		} // if statement
+
+		return (String) value;
+	} // getString method
+
+	private static BigDecimal getDecimal(Map<String, Object> body, String name) {
+		Object value = body.get(name);
+
+		if (Objects.isNull(value)) {
+			return null;
+		} // if statement
+
+		if (!(value instanceof BigDecimal)) {
+			throw new IllegalArgumentException(name + " must be a number.");
+		} // if statement
+
+		BigDecimal decimal = (BigDecimal) value;
+
+		/*
+		 * The bounds are checked first, because setScale on a number like 1e20000000 can take seconds
+		 */
+		if (decimal.precision() - decimal.scale() > MAX_INTEGER_DIGITS) {
+			throw new IllegalArgumentException(
+					name + " must have at most " + MAX_INTEGER_DIGITS + " digits before the decimal point.");
+		} // if statement
+
+		if (decimal.scale() > MAX_SCALE) {
+			throw new IllegalArgumentException(name + " can have at most 2 decimal places.");
+		} // if statement
+
+		try {
+			return decimal.setScale(2);
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException(name + " can have at most 2 decimal places.");
+		} // try-catch block
+	} // getDecimal method
+
+	private static Integer getInteger(Map<String, Object> body, String name) {
+		Object value = body.get(name);
+
+		if (Objects.isNull(value)) {
+			return null;
+		} // if statement
+
+		try {
+			return ((BigDecimal) value).intValueExact();
+		} catch (ClassCastException | ArithmeticException e) {
+			throw new IllegalArgumentException(name + " must be a whole number.");
+		} // try-catch block
+	} // getInteger method
+
+	/*
+	 * This method returns the project ID in a path segment, or null if it is not a number
+	 */
+	private static Integer parseProjectId(String segment) {
+		if (segment.isEmpty() || segment.length() > 10) {
+			return null;
+		} // if statement
+
+		try {
+			return Integer.valueOf(segment);
+		} catch (NumberFormatException e) {
+			return null;
+		} // try-catch block
+	} // parseProjectId method
+
+	private static int parseInt(String name, String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(name + "=" + value + " is not a valid number.");
+		} // try-catch block
+	} // parseInt method
+
+	/*
+	 * This method returns the value of a query parameter, or null if it is not there
+	 */
+	private static String queryParameter(String query, String name) {
+		if (Objects.isNull(query)) {
+			return null;
+		} // if statement
+
+		for (String pair : query.split("&")) {
+			int equals = pair.indexOf('=');
+
+			if (equals == name.length() && pair.startsWith(name)) {
+				return pair.substring(equals + 1);
+			} // if statement
+		} // for loop
+
+		return null;
+	} // queryParameter method
+
+	/*
+	 * This interface writes the response body of a request and returns the status code
+	 */
+	@FunctionalInterface
+	private interface RequestHandler {
+		int handle(JsonWriter json) throws Exception;
+	} // interface RequestHandler
+
+	/*
+	 * This exception is thrown when a request body is larger than MAX_BODY_SIZE
+	 */
+	@SuppressWarnings("serial")
+	private static class BodyTooLargeException extends RuntimeException {
+		BodyTooLargeException(String message) {
+			super(message);
+		} // BodyTooLargeException constructor
+	} // class BodyTooLargeException
+} // class ProjectServer
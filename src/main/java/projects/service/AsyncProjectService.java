@@ -0,0 +1,148 @@
+package projects.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import projects.dao.DbConfig;
+import projects.dao.Page;
+import projects.dao.ProjectSort;
+import projects.dao.RoutingDataSource;
+import projects.entity.Project;
+import projects.entity.ProjectSummary;
+import projects.exception.DbException;
+
+/*
+ * This class is an asynchronous front end to ProjectService. Each call runs on its own virtual
+ * thread and returns a CompletableFuture, so a caller can start many lookups and wait for them
+ * together.
+ *
+ * A virtual thread is cheap, but a database connection is not. The number of calls running against
+ * the database at once is limited to the connection pool size; the rest wait on a semaphore, which
+ * parks the virtual thread instead of tying up a platform thread.
+ */
+public class AsyncProjectService implements AutoCloseable {
+	private final ProjectService projectService;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final Semaphore permits;
+
+	public AsyncProjectService() {
+		this(new ProjectService(), DbConfig.load().getMaxPoolSize());
+	} // AsyncProjectService constructor
+
+	/*
+	 * maxConcurrency is the largest number of calls that run against the database at once
+	 */
+	public AsyncProjectService(ProjectService projectService, int maxConcurrency) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("The concurrency limit must be at least 1.");
+		} // if statement
+
+		this.projectService = projectService;
+		this.permits = new Semaphore(maxConcurrency, true);
+	} // AsyncProjectService constructor
+
+	public CompletableFuture<Project> addProject(Project project) {
+		return submit(() -> projectService.addProject(project));
+	} // addProject method
+
+	public CompletableFuture<Project> fetchProjectById(Integer projectId) {
+		return submit(() -> projectService.fetchProjectById(projectId));
+	} // fetchProjectById method
+
+	/*
+	 * This method looks up each project on its own virtual thread and completes when all of them have
+	 * been found, with the projects in the order of the IDs. If any lookup fails the future fails with
+	 * that exception.
+	 */
+	public CompletableFuture<List<Project>> fetchProjectsById(Collection<Integer> projectIds) {
+		List<CompletableFuture<Project>> lookups = new ArrayList<>(projectIds.size());
+
+		for (Integer projectId : projectIds) {
+			lookups.add(fetchProjectById(projectId));
+		} // for loop
+
+		return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]))
+				.thenApply(done -> lookups.stream().map(CompletableFuture::join).toList());
+	} // fetchProjectsById method
+
+	public CompletableFuture<List<Project>> fetchAllProjects() {
+		return submit(projectService::fetchAllProjects);
+	} // fetchAllProjects method
+
+	public CompletableFuture<Page<ProjectSummary>> fetchProjectSummaryPage(ProjectSort sort, boolean descending,
+			int pageSize, Page.Cursor after) {
+		return submit(() -> projectService.fetchProjectSummaryPage(sort, descending, pageSize, after));
+	} // fetchProjectSummaryPage method
+
+	public CompletableFuture<Project> modifyProjectDetails(Project project) {
+		return submit(() -> projectService.modifyProjectDetails(project));
+	} // modifyProjectDetails method
+
+	public CompletableFuture<Void> deleteProject(Integer projectId) {
+		return submit(() -> {
+			projectService.deleteProject(projectId);
+			return null;
+		});
+	} // deleteProject method
+
+	public CompletableFuture<Void> createAndPopulateTables() {
+		return submit(() -> {
+			projectService.createAndPopulateTables();
+			return null;
+		});
+	} // createAndPopulateTables method
+
+	/*
+	 * This method returns the number of calls waiting for a free slot
+	 */
+	public int getQueuedCalls() {
+		return permits.getQueueLength();
+	} // getQueuedCalls method
+
+	/*
+	 * This method stops accepting calls. Calls already submitted still complete.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	} // close method
+
+	/*
+	 * This method runs the call on a new virtual thread once a slot is free. A call whose future was
+	 * cancelled or timed out while it waited for a slot is skipped. The call runs in the caller's
+	 * replica routing session, so the caller reads its own writes.
+	 */
+	private <T> CompletableFuture<T> submit(Supplier<T> call) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		RoutingDataSource.Session session = RoutingDataSource.currentSession();
+
+		executor.execute(() -> {
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				future.completeExceptionally(
+						new DbException("Interrupted while waiting for a database connection slot.", e));
+				return;
+			} // try-catch block
+
+			try {
+				if (!future.isDone()) {
+					future.complete(RoutingDataSource.callInSession(session, call));
+				} // if statement
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			} finally {
+				permits.release();
+			} // try-catch block
+		});
+
+		return future;
+	} // submit method
+} // class AsyncProjectService
@@ -0,0 +1,109 @@
+package projects.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import projects.entity.CompactProject;
+import projects.entity.Project;
+import projects.entity.ProjectCompactor;
+
+/*
+ * This class holds many projects in memory in their compact form, for jobs that plan over the whole
+ * catalog. The projects are kept in one array that is sorted by ID when it is first read after adds.
+ * A lookup is a binary search, so there is no boxed key or map entry per project.
+ *
+ * Projects are added from one thread. Once it is loaded, the catalog can be read by many threads.
+ */
+public class ProjectCatalog {
+	private static final int INITIAL_CAPACITY = 16;
+	private static final Comparator<CompactProject> BY_ID = Comparator.comparingInt(CompactProject::getProjectId);
+
+	private final ProjectCompactor compactor = new ProjectCompactor();
+	private CompactProject[] projects = new CompactProject[INITIAL_CAPACITY];
+	private int size;
+	private boolean sorted = true;
+
+	/*
+	 * This method converts the project and adds it. The project must have been saved, so it has an ID.
+	 */
+	public CompactProject add(Project project) {
+		if (Objects.isNull(project.getProjectId())) {
+			throw new IllegalArgumentException("Only saved projects can be added to the catalog.");
+		} // if statement
+
+		CompactProject compact = compactor.compact(project);
+
+		if (size == projects.length) {
+			projects = Arrays.copyOf(projects, Math.max(INITIAL_CAPACITY, size * 2));
+		} // if statement
+
+		if (size > 0 && projects[size - 1].getProjectId() >= compact.getProjectId()) {
+			sorted = false;
+		} // if statement
+
+		projects[size++] = compact;
+		return compact;
+	} // add method
+
+	/*
+	 * This method returns the project with the ID, or null if it is not in the catalog
+	 */
+	public CompactProject get(int projectId) {
+		CompactProject[] byId = sortedProjects();
+		int low = 0;
+		int high = size - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int id = byId[middle].getProjectId();
+
+			if (id < projectId) {
+				low = middle + 1;
+			} else if (id > projectId) {
+				high = middle - 1;
+			} else {
+				return byId[middle];
+			} // if statement
+		} // while loop
+
+		return null;
+	} // get method
+
+	public int size() {
+		return size;
+	}
+
+	/*
+	 * This method returns the projects in project ID order
+	 */
+	public Stream<CompactProject> stream() {
+		return Arrays.stream(sortedProjects(), 0, size);
+	} // stream method
+
+	/*
+	 * This method sorts the projects by ID the first time they are read after an out of order add
+	 */
+	private synchronized CompactProject[] sortedProjects() {
+		if (!sorted) {
+			Arrays.sort(projects, 0, size, BY_ID);
+			sorted = true;
+		} // if statement
+
+		return projects;
+	} // sortedProjects method
+
+	/*
+	 * This method trims the project array to the number of projects once loading is done
+	 */
+	public void trimToSize() {
+		projects = Arrays.copyOf(projects, size);
+	} // trimToSize method
+
+	@Override
+	public String toString() {
+		return "ProjectCatalog(projects=" + size + ", strings=" + compactor.getStringCount() + ", categories="
+				+ compactor.getCategoryCount() + ")";
+	} // toString method
+} // class ProjectCatalog
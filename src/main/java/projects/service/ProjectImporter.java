@@ -0,0 +1,389 @@
+package projects.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import projects.dao.ProjectDao;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+import projects.exception.DbException;
+
+/*
+ * This class imports projects from a CSV export. The file is read one record at a time and the
+ * projects are written in chunks, each chunk in its own transaction, so memory use depends on the
+ * chunk size and not on the file size. A failure only rolls back the chunk that was being written.
+ *
+ * Each record starts with its type. Child records belong to the project record above them:
+ *
+ *   project,<name>,<estimated hours>,<actual hours>,<difficulty>,<notes>
+ *   material,<name>,<number required>,<cost>
+ *   step,<text>[,<order>]
+ *   category,<category id>
+ *
+ * Fields may be quoted with double quotes, and a quoted field may contain commas, new lines and
+ * doubled quotes. Blank lines and lines starting with # are skipped.
+ */
+public class ProjectImporter {
+	private final ProjectDao projectDao;
+	private final int chunkSize;
+
+	public ProjectImporter(ProjectDao projectDao, int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("The chunk size must be at least 1.");
+		} // if statement
+
+		this.projectDao = projectDao;
+		this.chunkSize = chunkSize;
+	} // ProjectImporter constructor
+
+	/*
+	 * This method reads the whole file and writes it chunk by chunk. Progress is printed after each
+	 * chunk and the totals are returned.
+	 */
+	public ImportResult importProjects(Reader reader) {
+		CsvRecordReader records = new CsvRecordReader(reader);
+		ImportResult result = new ImportResult();
+		List<Project> chunk = new ArrayList<>(chunkSize);
+		Project current = null;
+		long start = System.nanoTime();
+
+		try {
+			List<String> fields;
+
+			while (Objects.nonNull(fields = records.next())) {
+				String type = fields.get(0).trim().toLowerCase();
+
+				if (type.equals("project")) {
+					if (chunk.size() == chunkSize) {
+						writeChunk(chunk, result, start);
+					} // if statement
+
+					current = toProject(fields, records.getLineNumber());
+					chunk.add(current);
+					continue;
+				} // if statement
+
+				if (Objects.isNull(current)) {
+					throw new DbException("Line " + records.getLineNumber() + ": " + type + " record before any project record.");
+				} // if statement
+
+				switch (type) {
+					case "material":
+						current.getMaterials().add(toMaterial(fields, records.getLineNumber()));
+						break;
+
+					case "step":
+						current.getSteps().add(toStep(fields, records.getLineNumber()));
+						break;
+
+					case "category":
+						current.getCategories().add(toCategory(fields, records.getLineNumber()));
+						break;
+
+					default:
+						throw new DbException("Line " + records.getLineNumber() + ": unknown record type " + type);
+				} // switch statement
+			} // while block
+
+			if (!chunk.isEmpty()) {
+				writeChunk(chunk, result, start);
+			} // if statement
+		} catch (IOException e) {
+			throw new DbException("Import failed after " + result.getProjects() + " projects were committed.", e);
+		} // try-catch block
+
+		result.elapsedNanos = System.nanoTime() - start;
+		return result;
+	} // importProjects method
+
+	/*
+	 * This method writes and commits one chunk, then clears it for reuse
+	 */
+	private void writeChunk(List<Project> chunk, ImportResult result, long start) {
+		try {
+			projectDao.insertProjectGraphs(chunk);
+		} catch (DbException e) {
+			throw new DbException("Import failed after " + result.getProjects() + " projects were committed.", e);
+		} // try-catch block
+
+		for (Project project : chunk) {
+			result.projects++;
+			result.materials += project.getMaterials().size();
+			result.steps += project.getSteps().size();
+			result.categories += project.getCategories().size();
+		} // for loop
+
+		result.chunks++;
+		result.elapsedNanos = System.nanoTime() - start;
+		chunk.clear();
+
+		System.out.println("Imported " + result);
+	} // writeChunk method
+
+	private Project toProject(List<String> fields, long line) {
+		Project project = new Project();
+		project.setProjectName(required(fields, 1, line));
+		project.setEstimatedHours(toDecimal(optional(fields, 2), line));
+		project.setActualHours(toDecimal(optional(fields, 3), line));
+		project.setDifficulty(toInteger(optional(fields, 4), line));
+		project.setNotes(optional(fields, 5));
+
+		return project;
+	} // toProject method
+
+	private Material toMaterial(List<String> fields, long line) {
+		Material material = new Material();
+		material.setMaterialName(required(fields, 1, line));
+		material.setNumRequired(toInteger(optional(fields, 2), line));
+		material.setCost(toDecimal(optional(fields, 3), line));
+
+		return material;
+	} // toMaterial method
+
+	private Step toStep(List<String> fields, long line) {
+		Step step = new Step();
+		step.setStepText(required(fields, 1, line));
+		step.setStepOrder(toInteger(optional(fields, 2), line));
+
+		return step;
+	} // toStep method
+
+	private Category toCategory(List<String> fields, long line) {
+		Category category = new Category();
+		category.setCategoryId(toInteger(required(fields, 1, line), line));
+
+		return category;
+	} // toCategory method
+
+	private String required(List<String> fields, int index, long line) {
+		String value = optional(fields, index);
+
+		if (Objects.isNull(value)) {
+			throw new DbException("Line " + line + ": field " + (index + 1) + " is required.");
+		} // if statement
+
+		return value;
+	} // required method
+
+	private String optional(List<String> fields, int index) {
+		if (index >= fields.size() || fields.get(index).isBlank()) {
+			return null;
+		} // if statement
+
+		return fields.get(index).trim();
+	} // optional method
+
+	private Integer toInteger(String value, long line) {
+		try {
+			return Objects.isNull(value) ? null : Integer.valueOf(value);
+		} catch (NumberFormatException e) {
+			throw new DbException("Line " + line + ": " + value + " is not a valid number.");
+		} // try-catch block
+	} // toInteger method
+
+	private BigDecimal toDecimal(String value, long line) {
+		try {
+			return Objects.isNull(value) ? null : new BigDecimal(value);
+		} catch (NumberFormatException e) {
+			throw new DbException("Line " + line + ": " + value + " is not a valid decimal number.");
+		} // try-catch block
+	} // toDecimal method
+
+	/*
+	 * This class holds the running totals of an import
+	 */
+	public static class ImportResult {
+		private long projects;
+		private long materials;
+		private long steps;
+		private long categories;
+		private long chunks;
+		private long elapsedNanos;
+
+		public long getProjects() {
+			return projects;
+		}
+
+		public long getMaterials() {
+			return materials;
+		}
+
+		public long getSteps() {
+			return steps;
+		}
+
+		public long getCategories() {
+			return categories;
+		}
+
+		public long getChunks() {
+			return chunks;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedNanos / 1_000_000;
+		}
+
+		/*
+		 * This method returns the number of rows of all types written per second
+		 */
+		public double getRowsPerSecond() {
+			long rows = projects + materials + steps + categories;
+			return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+		} // getRowsPerSecond method
+
+		@Override
+		public String toString() {
+			return String.format("%d projects, %d materials, %d steps, %d categories in %d chunks, %d ms (%.0f rows/s)",
+					projects, materials, steps, categories, chunks, getElapsedMillis(), getRowsPerSecond());
+		} // toString method
+	} // class ImportResult
+
+	/*
+	 * This class reads CSV records from a reader one at a time
+	 */
+	private static class CsvRecordReader {
+		private final Reader reader;
+		private final char[] buffer = new char[8192];
+		private int position;
+		private int limit;
+		private long lineNumber;
+		private long recordLine;
+
+		CsvRecordReader(Reader reader) {
+			this.reader = reader;
+		}
+
+		long getLineNumber() {
+			return recordLine;
+		}
+
+		/*
+		 * This method returns the fields of the next record, or null at the end of the input
+		 */
+		List<String> next() throws IOException {
+			while (true) {
+				int ch = read();
+
+				if (ch == -1) {
+					return null;
+				} // if statement
+
+				lineNumber++;
+
+				if (ch == '\n' || ch == '\r') {
+					skipLineFeed(ch);
+					continue;
+				} // if statement
+
+				if (ch == '#') {
+					skipLine();
+					continue;
+				} // if statement
+
+				recordLine = lineNumber;
+				return readRecord(ch);
+			} // while block
+		} // next method
+
+		private List<String> readRecord(int first) throws IOException {
+			List<String> fields = new ArrayList<>();
+			StringBuilder field = new StringBuilder();
+			boolean quoted = false;
+			int ch = first;
+
+			while (true) {
+				if (ch == -1) {
+					if (quoted) {
+						throw new IOException("Line " + recordLine + ": unterminated quoted field.");
+					} // if statement
+
+					fields.add(field.toString());
+					return fields;
+				} // if statement
+
+				if (quoted) {
+					if (ch == '"') {
+						int peek = read();
+
+						if (peek == '"') {
+							field.append('"');
+						} else {
+							quoted = false;
+							ch = peek;
+							continue;
+						} // if statement
+					} else {
+						if (ch == '\n') {
+							lineNumber++;
+						} // if statement
+
+						field.append((char) ch);
+					} // if statement
+				} else if (ch == '"' && field.length() == 0) {
+					quoted = true;
+				} else if (ch == ',') {
+					fields.add(field.toString());
+					field.setLength(0);
+				} else if (ch == '\n' || ch == '\r') {
+					skipLineFeed(ch);
+					fields.add(field.toString());
+					return fields;
+				} else {
+					field.append((char) ch);
+				} // if statement
+
+				ch = read();
+			} // while block
+		} // readRecord method
+
+		private void skipLine() throws IOException {
+			int ch;
+
+			while ((ch = read()) != -1) {
+				if (ch == '\n' || ch == '\r') {
+					skipLineFeed(ch);
+					return;
+				} // if statement
+			} // while block
+		} // skipLine method
+
+		private void skipLineFeed(int ch) throws IOException {
+			if (ch == '\r') {
+				if (position == limit && !fill()) {
+					return;
+				} // if statement
+
+				if (buffer[position] == '\n') {
+					position++;
+				} // if statement
+			} // if statement
+		} // skipLineFeed method
+
+		private int read() throws IOException {
+			if (position == limit && !fill()) {
+				return -1;
+			} // if statement
+
+			return buffer[position++];
+		} // read method
+
+		private boolean fill() throws IOException {
+			limit = reader.read(buffer);
+			position = 0;
+
+			if (limit <= 0) {
+				limit = 0;
+				return false;
+			} // if statement
+
+			return true;
+		} // fill method
+	} // class CsvRecordReader
+} // class ProjectImporter
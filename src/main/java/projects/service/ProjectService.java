@@ -1,158 +1,325 @@
 package projects.service;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import projects.dao.DbConfig;
+import projects.dao.DbConnection;
+import projects.dao.FetchPlan;
+import projects.dao.Page;
 import projects.dao.ProjectDao;
+import projects.dao.ProjectSort;
+import projects.dao.RoutingDataSource;
 import projects.entity.Project;
+import projects.entity.ProjectSummary;
 import projects.exception.DbException;
+import provided.util.SharedConnection;
 
 public class ProjectService {
 	private static final String SCHEMA_FILE = "projects_schema.sql";
 	private static final String DATA_FILE = "project_data.sql";
+	private static final int SCRIPT_CHUNK_SIZE = 1000;
+	private static final int SEED_PARALLELISM = 4;
 
 	private ProjectDao projectDao = new ProjectDao();
+	private ReadThroughCache<Integer, Project> projectCache = createProjectCache();
 
 	/*
-	 * This method redirects to ProjectDao to add a project
+	 * This method creates the project cache from the db.cache settings in db.properties
+	 */
+	private static ReadThroughCache<Integer, Project> createProjectCache() {
+		DbConfig config = DbConfig.load();
+		return new ReadThroughCache<>(config.getInt("db.cache.maxSize", 1000), config.getLong("db.cache.ttl", 0));
+	} // createProjectCache method
+
+	/*
+	 * This method redirects to ProjectDao to add a project. The caller keeps the project object, so it is
+	 * not cached. The next fetch reads the project as it was stored.
 	 */
 	public Project addProject(Project project) {
-		return projectDao.insertProject(project);
+		Project dbProject = projectDao.insertProject(project);
+		projectCache.invalidate(dbProject.getProjectId());
+
+		return dbProject;
 	} // addProject method
 	
 	/*
-	 * This method redirects to ProjectDao to get all the projects
-	 * and it sorts the projects by number
+	 * This method redirects to ProjectDao to add many projects in one batch. Only the project rows are
+	 * written, so the objects, which may still hold child lists, are not cached.
+	 */
+	public List<Project> addProjects(List<Project> projects) {
+		List<Project> dbProjects = projectDao.insertProjects(projects);
+
+		for (Project project : dbProjects) {
+			projectCache.invalidate(project.getProjectId());
+		} // for loop
+
+		return dbProjects;
+	} // addProjects method
+
+	/*
+	 * This method imports projects with their materials, steps and categories from a CSV export.
+	 * Each chunk of projects is committed on its own.
+	 */
+	public ProjectImporter.ImportResult importProjects(Reader reader, int chunkSize) {
+		return new ProjectImporter(projectDao, chunkSize).importProjects(reader);
+	} // importProjects method
+
+	/*
+	 * This method redirects to ProjectDao to get all the projects.
+	 * They are already sorted by number in the query.
 	 */
 	public List<Project> fetchAllProjects() {
-		// @formatter:off
-		return projectDao.fetchAllProjects()
-			.stream()
-			.sorted((r1, r2) -> r1.getProjectId() - r2.getProjectId())
-			.collect(Collectors.toList());
-		// @formatter:on
+		return projectDao.fetchAllProjects();
 	} // fetchAllProjects method
 
 	/*
-	 * This method redirects to ProjectDao to get a project by Id number
+	 * This method redirects to ProjectDao to get one page of projects.
+	 * Pass null for the cursor to get the first page, then pass the previous page's next cursor.
+	 */
+	public Page<Project> fetchProjectPage(ProjectSort sort, boolean descending, int pageSize, Page.Cursor after) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("The page size must be at least 1.");
+		} // if statement
+
+		return projectDao.fetchProjectPage(sort, descending, pageSize, after);
+	} // fetchProjectPage method
+
+	/*
+	 * This method redirects to ProjectDao to get one page of project IDs and names for a listing
+	 */
+	public Page<ProjectSummary> fetchProjectSummaryPage(ProjectSort sort, boolean descending, int pageSize,
+			Page.Cursor after) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("The page size must be at least 1.");
+		} // if statement
+
+		return projectDao.fetchProjectSummaryPage(sort, descending, pageSize, after);
+	} // fetchProjectSummaryPage method
+
+	/*
+	 * This method redirects to ProjectDao to stream all the projects in project ID order.
+	 * The stream holds a database connection, so it must be closed.
+	 */
+	public Stream<Project> streamAllProjects() {
+		return projectDao.streamAllProjects();
+	} // streamAllProjects method
+
+	/*
+	 * This method redirects to ProjectDao to get a project by Id number.
+	 * Projects are served from the cache when possible.
 	 */
 	public Project fetchProjectById(Integer projectId) {
-		return projectDao.fetchProjectId(projectId).orElseThrow(
+		return fetchProjectById(projectId, FetchPlan.ALL);
+	} // fetchProjectById method
+
+	/*
+	 * This method gets a project by Id, loading only the child collections in the plan with it. The
+	 * others are loaded when they are first read. Only projects fetched with every child collection are
+	 * cached, so a caller never gets a shared project whose lists are still waiting on a query. A smaller
+	 * plan uses the cached project if there is one and otherwise reads past the cache.
+	 *
+	 * A cached project lives until it is invalidated or expires, so the cache is filled from the primary.
+	 * A project read from a replica that has not applied a write yet would stay stale after the replica
+	 * catches up.
+	 *
+	 * The cached project is shared by every caller, so each caller gets its own copy to change. The
+	 * materials, steps and categories in the copy are still shared and must not be changed.
+	 */
+	public Project fetchProjectById(Integer projectId, FetchPlan plan) {
+		Project project;
+
+		if (FetchPlan.ALL.equals(plan) && projectCache.isEnabled()) {
+			project = copyOf(projectCache.get(projectId, id -> RoutingDataSource
+					.callOnPrimary(() -> projectDao.fetchProjectId(id, plan).orElse(null))));
+		} else {
+			project = copyOf(projectCache.peek(projectId));
+
+			if (Objects.isNull(project)) {
+				project = projectDao.fetchProjectId(projectId, plan).orElse(null);
+			} // if statement
+		} // if statement
+
+		return Optional.ofNullable(project).orElseThrow(
 				() -> new NoSuchElementException(" Project with project ID=" + projectId + " does not exist."));
 	} // fetchProjectById method
 
+	private static Project copyOf(Project cached) {
+		return Objects.isNull(cached) ? null : cached.copy();
+	} // copyOf method
+
+	/*
+	 * This method redirects to ProjectDao to get many projects, with their materials, steps and
+	 * categories, using a fixed number of queries
+	 */
+	public List<Project> fetchProjectsWithChildren(Collection<Integer> projectIds) {
+		return projectDao.fetchProjectsWithChildren(projectIds);
+	} // fetchProjectsWithChildren method
+
 	/*
-	 * This method redirects to ProjectDao to modify the current working project
+	 * This method loads every project with its materials, steps and categories into a compact in-memory
+	 * catalog. The projects are read a page at a time, so only one page of full entities is held while
+	 * the catalog is built.
 	 */
-	public void modifyProjectDetails(Project project) {
-		if(!projectDao.modifyProjectsDetails(project)) {
-			throw new DbException("Project with ID=" + project.getProjectId() + " does not exist.");
+	public ProjectCatalog loadCatalog(int pageSize) {
+		ProjectCatalog catalog = new ProjectCatalog();
+		Page.Cursor cursor = null;
+
+		do {
+			Page<ProjectSummary> page = fetchProjectSummaryPage(ProjectSort.ID, false, pageSize, cursor);
+			List<Integer> ids = page.items().stream().map(ProjectSummary::projectId).toList();
+
+			projectDao.fetchProjectsWithChildren(ids).forEach(catalog::add);
+			cursor = page.next();
+		} while (Objects.nonNull(cursor));
+
+		catalog.trimToSize();
+		return catalog;
+	} // loadCatalog method
+
+	/*
+	 * This method redirects to ProjectDao to modify the current working project. Only the fields changed
+	 * since the project was loaded are written, and the project is returned as it now is in the
+	 * database, so it does not need to be fetched again.
+	 */
+	public Project modifyProjectDetails(Project project) {
+		boolean modified = projectDao.modifyProjectsDetails(project);
+		projectCache.invalidate(project.getProjectId());
+
+		if(!modified) {
+			throw new NoSuchElementException("Project with ID=" + project.getProjectId() + " does not exist.");
 		} // if statement
 		
+		return project;
 	} // modifyProjectDetails method
 
 	/*
 	 * This method redirects to ProjectDao to delete a project
 	 */
 	public void deleteProject(Integer projectId) {
-		if(!projectDao.deleteProject(projectId)) {
-			throw new DbException("Project with ID=" + projectId + " does not exist.");
+		boolean deleted = projectDao.deleteProject(projectId);
+		projectCache.invalidate(projectId);
+
+		if(!deleted) {
+			throw new NoSuchElementException("Project with ID=" + projectId + " does not exist.");
 		} // if statement
 		
 	} // deleteProject method
 
 	/*
-	 * This method pulls in the SCHEMA and DATA files to create the starting tables
+	 * This method borrows one pooled connection that every call on this thread uses until it is closed.
+	 * Consecutive writes can be committed together with SharedConnection.beginGroup and commitGroup.
+	 */
+	public SharedConnection openSharedConnection() {
+		try {
+			return SharedConnection.open(DbConnection.getDataSource());
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // try-catch block
+	} // openSharedConnection method
+
+	/*
+	 * This method returns the project cache so its hit, miss and eviction counts can be reported
+	 */
+	public ReadThroughCache<Integer, Project> getProjectCache() {
+		return projectCache;
+	} // getProjectCache method
+
+	/*
+	 * This method resets the schema, creates the tables with the migrations and loads the DATA file
 	 */
 	public void createAndPopulateTables() {
 		loadFromFile(SCHEMA_FILE);
-		loadFromFile(DATA_FILE);		
+		migrateSchema();
+		loadSeedData(DATA_FILE, SEED_PARALLELISM);
+		projectCache.invalidateAll();
 	} // createAndPopulateTables method
 	
 	/*
-	 * This method loads the indicated file and runs it to create the tables 
+	 * This method streams the indicated classpath file and runs its statements in chunks. Only one
+	 * chunk of statements is held in memory at a time.
 	 */
 	private void loadFromFile(String fileName) {
-		String content = readFileContent(fileName);
-		List<String> sqlStatements = convertContentToSqlStatements(content);
+		InputStream in = getClass().getClassLoader().getResourceAsStream(fileName);
+
+		if (Objects.isNull(in)) {
+			throw new DbException("Unable to find " + fileName + " on the classpath.");
+		} // if statement
 
-		projectDao.executeBatch(sqlStatements);
+		try (SqlScriptReader script = new SqlScriptReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			loadFromScript(script);
+		} catch (IOException e) {
+			throw new DbException(e);
+		} // try-catch block
 	} // loadFromFile method
-	
+
 	/*
-	 * This method reads the indicated file
+	 * This method upgrades the schema in place by applying any migrations that have not run yet
 	 */
-	private String readFileContent(String fileName) {
-		try {
-			Path path = Paths.get(getClass().getClassLoader().getResource(fileName).toURI());
-			return Files.readString(path);
-		} catch (Exception e) {
-			throw new DbException(e);
-		}// try-catch block
-	} // readFileContent method
-	
+	public List<String> migrateSchema() {
+		return new SchemaMigrator(projectDao).migrate();
+	} // migrateSchema method
+
 	/*
-	 * This method converts the starting files into usable sql data
+	 * This method runs EXPLAIN on the ProjectDao queries and returns the ones that do not use an index
 	 */
-	private List<String> convertContentToSqlStatements(String content) {
-		content = removeComments(content);
-		content = replaceWhiteSpaceSequencesWithSingleSpace(content);
+	public List<String> verifyIndexUsage() {
+		return projectDao.explainIndexUsage();
+	} // verifyIndexUsage method
 
-		return extractLinesFromContent(content);
-	} // convertContentToSqlStatements method
-	
 	/*
-	 * This method removes comments from the files so it can be usable
+	 * This method loads a seed or restore script table by table in foreign key order. Tables that do not
+	 * depend on each other are loaded in parallel. The time taken per table is returned.
 	 */
-	private String removeComments(String content) {
-		StringBuilder builder = new StringBuilder(content);
-		int commentPos = 0;
+	public Map<String, Long> loadSeedData(String fileName, int parallelism) {
+		InputStream in = getClass().getClassLoader().getResourceAsStream(fileName);
 
-		while ((commentPos = builder.indexOf("-- ", commentPos)) != -1) {
-			int eolPos = builder.indexOf("\n", commentPos + 1);
+		if (Objects.isNull(in)) {
+			throw new DbException("Unable to find " + fileName + " on the classpath.");
+		} // if statement
+
+		try (SqlScriptReader script = new SqlScriptReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			Map<String, Long> timings = new SeedLoader(projectDao, parallelism).load(script);
+			projectCache.invalidateAll();
+
+			return timings;
+		} catch (IOException e) {
+			throw new DbException(e);
+		} // try-catch block
+	} // loadSeedData method
 
-			if (eolPos == -1) {
-				builder.replace(commentPos, builder.length(), "");
-			} else {
-				builder.replace(commentPos, eolPos + 1, "");
-			} // if statement
-		} // while block
-		return builder.toString();
-	} // removeComments method
-	
-	/*
-	 * This method removes whitespace that can cause problems with the sql
-	 */
-	private String replaceWhiteSpaceSequencesWithSingleSpace(String content) {
-		return content.replaceAll("\\s+", " ");
-	} // replaceWhiteSpaceSequencesWithSingleSpace method
-	
 	/*
-	 * This method converts the modified files into usable sql
+	 * This method sends the statements of a script to ProjectDao.executeBatch in chunks of
+	 * SCRIPT_CHUNK_SIZE statements
 	 */
-	private List<String> extractLinesFromContent(String content) {
-		List<String> lines = new LinkedList<>();
+	public void loadFromScript(SqlScriptReader script) throws IOException {
+		List<String> sqlStatements = new ArrayList<>(SCRIPT_CHUNK_SIZE);
+		String sql;
 
-		while (!content.isEmpty()) {
-			int semicolon = content.indexOf(";");
+		while (Objects.nonNull(sql = script.next())) {
+			sqlStatements.add(sql);
 
-			if (semicolon == -1) {
-				if (!content.isBlank()) {
-					lines.add(content);
-				} // if statement
-				content = "";
-			} else {
-				lines.add(content.substring(0, semicolon).trim());
-				content = content.substring(semicolon + 1);
+			if (sqlStatements.size() == SCRIPT_CHUNK_SIZE) {
+				projectDao.executeBatch(sqlStatements);
+				sqlStatements.clear();
 			} // if statement
 		} // while block
 
-		return lines;
-	} // extractLinesFromContent method
+		if (!sqlStatements.isEmpty()) {
+			projectDao.executeBatch(sqlStatements);
+		} // if statement
+	} // loadFromScript method
 
 } //class ProjectService 
@@ -0,0 +1,205 @@
+package projects.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+ * This class is a size bounded, read-through LRU cache with an optional time to live.
+ *
+ * When several threads miss on the same key at once, only the first one runs the loader. The others
+ * wait for its result instead of all going to the database. A load that was started before an
+ * invalidation is returned to its callers but not stored, so a write is never hidden by an older read.
+ *
+ * Every caller of get or peek receives the same cached instance. A mutable value must either be
+ * treated as read-only or be copied by the caller before it is changed.
+ */
+public class ReadThroughCache<K, V> {
+	private final int maxSize;
+	private final long ttlMillis;
+	private final LinkedHashMap<K, Entry<V>> entries;
+	private final Map<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+	private final AtomicLong writeEpoch = new AtomicLong();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/*
+	 * A maxSize of 0 disables caching. A ttlMillis of 0 means entries never expire.
+	 */
+	public ReadThroughCache(int maxSize, long ttlMillis) {
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				if (size() > ReadThroughCache.this.maxSize) {
+					evictions.increment();
+					return true;
+				} // if statement
+
+				return false;
+			} // removeEldestEntry method
+		};
+	} // ReadThroughCache constructor
+
+	/*
+	 * This method returns the cached value or loads it. A null from the loader is returned but not
+	 * cached.
+	 */
+	public V get(K key, Function<K, V> loader) {
+		if (maxSize <= 0) {
+			misses.increment();
+			return loader.apply(key);
+		} // if statement
+
+		V cached = lookup(key);
+
+		if (Objects.nonNull(cached)) {
+			hits.increment();
+			return cached;
+		} // if statement
+
+		misses.increment();
+
+		CompletableFuture<V> future = new CompletableFuture<>();
+		CompletableFuture<V> inFlight = loading.putIfAbsent(key, future);
+
+		if (Objects.nonNull(inFlight)) {
+			return await(inFlight);
+		} // if statement
+
+		long epoch = writeEpoch.get();
+
+		try {
+			V value = loader.apply(key);
+
+			if (Objects.nonNull(value)) {
+				synchronized (entries) {
+					if (epoch == writeEpoch.get()) {
+						entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+					} // if statement
+				} // synchronized block
+			} // if statement
+
+			future.complete(value);
+			return value;
+		} catch (Throwable e) {
+			/* Errors too, or the threads waiting on the future would wait forever. */
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(key, future);
+		} // try-catch block
+	} // get method
+
+	/*
+	 * This method returns the cached value, or null if the key is not cached. Nothing is loaded.
+	 */
+	public V peek(K key) {
+		if (maxSize <= 0) {
+			return null;
+		} // if statement
+
+		V cached = lookup(key);
+
+		if (Objects.nonNull(cached)) {
+			hits.increment();
+		} else {
+			misses.increment();
+		} // if statement
+
+		return cached;
+	} // peek method
+
+	/*
+	 * This method removes a key after its row has been changed or deleted
+	 */
+	public void invalidate(K key) {
+		synchronized (entries) {
+			writeEpoch.incrementAndGet();
+			entries.remove(key);
+		} // synchronized block
+	} // invalidate method
+
+	public void invalidateAll() {
+		synchronized (entries) {
+			writeEpoch.incrementAndGet();
+			entries.clear();
+		} // synchronized block
+	} // invalidateAll method
+
+	public boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		} // synchronized block
+	} // size method
+
+	@Override
+	public String toString() {
+		return "hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount()
+				+ ", size=" + size();
+	} // toString method
+
+	private V lookup(K key) {
+		synchronized (entries) {
+			Entry<V> entry = entries.get(key);
+
+			if (Objects.isNull(entry)) {
+				return null;
+			} // if statement
+
+			if (ttlMillis > 0 && System.currentTimeMillis() - entry.loadedAt > ttlMillis) {
+				entries.remove(key);
+				evictions.increment();
+				return null;
+			} // if statement
+
+			return entry.value;
+		} // synchronized block
+	} // lookup method
+
+	private V await(CompletableFuture<V> inFlight) {
+		try {
+			return inFlight.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			} // if statement
+
+			if (e.getCause() instanceof Error cause) {
+				throw cause;
+			} // if statement
+
+			throw e;
+		} // try-catch block
+	} // await method
+
+	private record Entry<V>(V value, long loadedAt) {
+	} // record Entry
+} // class ReadThroughCache
@@ -0,0 +1,92 @@
+package projects.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import projects.dao.ProjectDao;
+import projects.exception.DbException;
+
+/*
+ * This class upgrades the schema in place. Each migration is a script in db/migration named
+ * V<version>__<description>.sql. The versions that have been applied are kept in the schema_version
+ * table, and only the newer migrations are run, in version order. New migrations are added to the
+ * end of MIGRATIONS.
+ */
+public class SchemaMigrator {
+	private static final String MIGRATION_DIR = "db/migration/";
+
+	// @formatter:off
+	private static final List<String> MIGRATIONS = List.of(
+		"V1__baseline.sql",
+		"V2__performance_indexes.sql"
+	);
+	// @formatter:on
+
+	private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+	private final ProjectDao projectDao;
+
+	public SchemaMigrator(ProjectDao projectDao) {
+		this.projectDao = projectDao;
+	} // SchemaMigrator constructor
+
+	/*
+	 * This method applies every migration that has not been applied yet and returns the names of the
+	 * ones it ran
+	 */
+	public List<String> migrate() {
+		Set<Integer> applied = projectDao.fetchAppliedSchemaVersions();
+		List<String> ran = new ArrayList<>();
+
+		for (String fileName : MIGRATIONS) {
+			Matcher matcher = MIGRATION_NAME.matcher(fileName);
+
+			if (!matcher.matches()) {
+				throw new DbException("Migration " + fileName + " is not named V<version>__<description>.sql");
+			} // if statement
+
+			int version = Integer.parseInt(matcher.group(1));
+
+			if (applied.contains(version)) {
+				continue;
+			} // if statement
+
+			String description = matcher.group(2).replace('_', ' ');
+			projectDao.applyMigration(version, description, readStatements(fileName));
+			ran.add(fileName);
+
+			System.out.println("Applied migration " + fileName);
+		} // for loop
+
+		return ran;
+	} // migrate method
+
+	private List<String> readStatements(String fileName) {
+		InputStream in = getClass().getClassLoader().getResourceAsStream(MIGRATION_DIR + fileName);
+
+		if (Objects.isNull(in)) {
+			throw new DbException("Unable to find " + MIGRATION_DIR + fileName + " on the classpath.");
+		} // if statement
+
+		try (SqlScriptReader script = new SqlScriptReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			List<String> statements = new ArrayList<>();
+			String sql;
+
+			while (Objects.nonNull(sql = script.next())) {
+				statements.add(sql);
+			} // while block
+
+			return statements;
+		} catch (IOException e) {
+			throw new DbException(e);
+		} // try-catch block
+	} // readStatements method
+} // class SchemaMigrator
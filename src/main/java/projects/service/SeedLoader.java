@@ -0,0 +1,426 @@
+package projects.service;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import projects.dao.DbConnection;
+import projects.dao.ProjectDao;
+import projects.exception.DbException;
+import provided.util.SharedConnection;
+
+/*
+ * This class loads a seed or restore script table by table. The INSERT statements are grouped by
+ * target table, and runs of single-row INSERTs with the same column list are coalesced into
+ * multi-row INSERTs. The groups are loaded in foreign key order: a table is only loaded after every
+ * table it references. Tables that do not depend on each other are loaded at the same time by
+ * worker threads, each on a connection of its own.
+ *
+ * Every other statement is a barrier: the groups read before it are loaded first and it then runs
+ * in its script position on the session connection of the thread calling load. So an ALTER never
+ * runs ahead of rows written for the old table, and a LOCK TABLES is held by the connection that
+ * loads the rows it guards: between LOCK TABLES and UNLOCK TABLES the groups are loaded on the
+ * session connection instead of by the workers. SET and USE statements are also run on each worker
+ * connection before its next group.
+ *
+ * The script may change the session of every connection it runs on, so none of them is returned to
+ * the pool. They are aborted once the load is over.
+ *
+ * At most MAX_BUFFERED_ROWS rows are held before the groups are loaded, so memory use does not grow
+ * with the size of the script. Rows in each table keep their script order, so AUTO_INCREMENT ids come
+ * out the same as a sequential load.
+ */
+public class SeedLoader {
+	private static final Pattern INSERT_TABLE_PATTERN = Pattern.compile("(?is)^insert\\s+(?:ignore\\s+)?into\\s+`?(\\w+)`?.*$");
+
+	private static final Pattern SIMPLE_INSERT_PATTERN = Pattern
+			.compile("(?is)^insert\\s+into\\s+`?(\\w+)`?\\s*(\\([^)]*\\))?\\s*values\\s*(\\(.*\\))$");
+
+	private static final Pattern VALUES_PATTERN = Pattern.compile("(?is)\\bvalues\\s*(\\(.*\\))");
+
+	private static final Pattern ON_DUPLICATE_PATTERN = Pattern.compile("(?i)\\bon\\s+duplicate\\s+key\\b");
+
+	private static final Pattern SESSION_PATTERN = Pattern.compile("(?is)^(set|use)\\b.*$");
+
+	private static final Pattern LOCK_PATTERN = Pattern.compile("(?is)^lock\\s+tables?\\b.*$");
+
+	private static final Pattern UNLOCK_PATTERN = Pattern.compile("(?is)^unlock\\s+tables?\\b.*$");
+
+	private static final int ROWS_PER_INSERT = 500;
+
+	/* The number of rows read into the groups before they are loaded. */
+	static final int MAX_BUFFERED_ROWS = 10_000;
+
+	private final ProjectDao projectDao;
+	private final DataSource dataSource;
+	private final int parallelism;
+	private final List<String> sessionStatements = new ArrayList<>();
+	private final Map<String, TableBatch> tables = new LinkedHashMap<>();
+	private final List<WorkerSession> workerSessions = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<WorkerSession> workerSession = new ThreadLocal<>();
+	private Map<String, Set<String>> dependencies;
+	private int bufferedRows;
+	private boolean locked;
+
+	public SeedLoader(ProjectDao projectDao, int parallelism) {
+		this(projectDao, DbConnection.getDataSource(), parallelism);
+	} // SeedLoader constructor
+
+	SeedLoader(ProjectDao projectDao, DataSource dataSource, int parallelism) {
+		this.projectDao = projectDao;
+		this.dataSource = dataSource;
+		this.parallelism = Math.max(1, parallelism);
+	} // SeedLoader constructor
+
+	/*
+	 * This method streams the script and loads it group by group. The rows loaded and the time taken by
+	 * each table are printed, and the times are returned.
+	 */
+	public Map<String, Long> load(SqlScriptReader script) throws IOException {
+		SharedConnection session = openSession();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		String sql;
+
+		try {
+			while (Objects.nonNull(sql = script.next())) {
+				Matcher insert = INSERT_TABLE_PATTERN.matcher(sql);
+
+				if (insert.matches()) {
+					addInsert(insert.group(1).toLowerCase(Locale.ROOT), sql);
+
+					if (bufferedRows >= MAX_BUFFERED_ROWS) {
+						loadGroups(executor);
+					} // if statement
+				} else {
+					loadGroups(executor);
+					projectDao.executeBatch(List.of(sql));
+					afterBarrier(sql);
+				} // if statement
+			} // while block
+
+			loadGroups(executor);
+		} finally {
+			executor.shutdown();
+
+			for (WorkerSession worker : workerSessions) {
+				abort(worker.session);
+			} // for loop
+
+			workerSessions.clear();
+			abort(session);
+		} // try-finally block
+
+		Map<String, Long> timings = new LinkedHashMap<>();
+
+		for (TableBatch batch : tables.values()) {
+			timings.put(batch.table, batch.millis);
+			System.out.println("Loaded " + batch.table + ": " + batch.rows + " rows in " + batch.millis + " ms");
+		} // for loop
+
+		return timings;
+	} // load method
+
+	/*
+	 * This method notes what a barrier that has just run changed. SET and USE are kept for the worker
+	 * connections. Any other statement may have changed the foreign keys, so they are read again
+	 * before the next load.
+	 */
+	private void afterBarrier(String sql) {
+		if (SESSION_PATTERN.matcher(sql).matches()) {
+			sessionStatements.add(sql);
+		} else if (LOCK_PATTERN.matcher(sql).matches()) {
+			locked = true;
+		} else if (UNLOCK_PATTERN.matcher(sql).matches()) {
+			locked = false;
+		} else {
+			dependencies = null;
+		} // if statement
+	} // afterBarrier method
+
+	private void addInsert(String table, String sql) {
+		TableBatch batch = tables.computeIfAbsent(table, TableBatch::new);
+		Matcher simple = SIMPLE_INSERT_PATTERN.matcher(sql);
+		Matcher onDuplicate = ON_DUPLICATE_PATTERN.matcher(sql);
+
+		if (simple.matches() && !onDuplicate.find()) {
+			String columns = Objects.isNull(simple.group(2)) ? "" : simple.group(2);
+			bufferedRows += batch.add(columns, simple.group(3));
+		} else {
+			Matcher values = VALUES_PATTERN.matcher(onDuplicate.find(0) ? sql.substring(0, onDuplicate.start()) : sql);
+			int rows = values.find() ? countRows(values.group(1)) : 0;
+
+			batch.addStatement(sql, rows);
+			bufferedRows += Math.max(1, rows);
+		} // if statement
+	} // addInsert method
+
+	/*
+	 * This method counts the row tuples in a VALUES list: the parentheses that are not nested and not
+	 * inside a quoted value
+	 */
+	static int countRows(String values) {
+		int rows = 0;
+		int depth = 0;
+		char quote = 0;
+
+		for (int index = 0; index < values.length(); index++) {
+			char c = values.charAt(index);
+
+			if (quote != 0) {
+				if (c == '\\') {
+					index++;
+				} else if (c == quote) {
+					quote = 0;
+				} // if statement
+			} else if (c == '\'' || c == '"' || c == '`') {
+				quote = c;
+			} else if (c == '(') {
+				if (depth++ == 0) {
+					rows++;
+				} // if statement
+			} else if (c == ')') {
+				depth--;
+			} // if statement
+		} // for loop
+
+		return rows;
+	} // countRows method
+
+	/*
+	 * This method loads the rows waiting in the groups level by level. The foreign keys are read again
+	 * after any statement that may have changed them. While tables are locked the groups are loaded
+	 * one by one on the session connection, which holds the locks.
+	 */
+	private void loadGroups(ExecutorService executor) {
+		List<String> pending = tables.values().stream().filter(TableBatch::hasStatements).map(batch -> batch.table)
+				.toList();
+
+		if (pending.isEmpty()) {
+			return;
+		} // if statement
+
+		if (Objects.isNull(dependencies)) {
+			dependencies = projectDao.fetchTableDependencies();
+		} // if statement
+
+		for (List<String> level : orderByDependencies(pending, dependencies)) {
+			List<Future<?>> futures = new ArrayList<>();
+
+			for (String table : level) {
+				TableBatch batch = tables.get(table);
+				List<String> statements = batch.drain();
+
+				if (locked) {
+					loadGroup(batch, statements);
+				} else {
+					futures.add(executor.submit(() -> runOnWorker(batch, statements)));
+				} // if statement
+			} // for loop
+
+			awaitAll(futures);
+		} // for loop
+
+		bufferedRows = 0;
+	} // loadGroups method
+
+	private void loadGroup(TableBatch batch, List<String> statements) {
+		long start = System.nanoTime();
+		projectDao.executeBatch(statements);
+		batch.millis += (System.nanoTime() - start) / 1_000_000;
+	} // loadGroup method
+
+	/*
+	 * This method loads a group on the worker thread's own connection. The connection is opened on the
+	 * worker's first group, and the SET and USE statements it has not run yet are run ahead of the
+	 * group.
+	 */
+	private void runOnWorker(TableBatch batch, List<String> statements) {
+		WorkerSession worker = workerSession.get();
+
+		if (Objects.isNull(worker)) {
+			worker = new WorkerSession(openSession());
+			workerSession.set(worker);
+			workerSessions.add(worker);
+		} // if statement
+
+		if (worker.applied < sessionStatements.size()) {
+			projectDao.executeBatch(sessionStatements.subList(worker.applied, sessionStatements.size()));
+			worker.applied = sessionStatements.size();
+		} // if statement
+
+		loadGroup(batch, statements);
+	} // runOnWorker method
+
+	private SharedConnection openSession() {
+		try {
+			return SharedConnection.openSession(dataSource);
+		} catch (SQLException e) {
+			throw new DbException(e);
+		} // try-catch block
+	} // openSession method
+
+	/*
+	 * This method closes a session connection, which aborts it. The workers are idle by the time their
+	 * connections are aborted, so this can be done from the thread calling load.
+	 */
+	private static void abort(SharedConnection session) {
+		try {
+			session.close();
+		} catch (SQLException e) {
+			/* The connection is being thrown away. There is nothing more to do with it. */
+		} // try-catch block
+	} // abort method
+
+	/*
+	 * This method groups the tables into levels. Every table in a level only references tables in
+	 * earlier levels, so the tables within a level can be loaded in parallel. A table that references
+	 * itself does not wait for itself.
+	 */
+	static List<List<String>> orderByDependencies(Collection<String> tables, Map<String, Set<String>> dependencies) {
+		List<List<String>> levels = new ArrayList<>();
+		Set<String> remaining = new LinkedHashSet<>(tables);
+
+		while (!remaining.isEmpty()) {
+			List<String> level = new ArrayList<>();
+
+			for (String table : remaining) {
+				Set<String> references = dependencies.getOrDefault(table, Set.of());
+
+				if (references.stream().noneMatch(reference -> !reference.equals(table) && remaining.contains(reference))) {
+					level.add(table);
+				} // if statement
+			} // for loop
+
+			if (level.isEmpty()) {
+				throw new DbException("Circular foreign keys between tables " + remaining);
+			} // if statement
+
+			level.forEach(remaining::remove);
+			levels.add(level);
+		} // while block
+
+		return levels;
+	} // orderByDependencies method
+
+	private void awaitAll(List<Future<?>> futures) {
+		DbException failure = null;
+
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DbException("Interrupted while loading seed data.", e);
+			} catch (ExecutionException e) {
+				if (Objects.isNull(failure)) {
+					failure = e.getCause() instanceof DbException cause ? cause : new DbException(e.getCause());
+				} // if statement
+			} // try-catch block
+		} // for loop
+
+		if (Objects.nonNull(failure)) {
+			throw failure;
+		} // if statement
+	} // awaitAll method
+
+	/*
+	 * This class collects the rows for one table and coalesces them into multi-row INSERTs
+	 */
+	private static class TableBatch {
+		private final String table;
+		private final List<String> statements = new ArrayList<>();
+		private StringBuilder current;
+		private String currentColumns;
+		private int currentRows;
+		private int rows;
+		private volatile long millis;
+
+		TableBatch(String table) {
+			this.table = table;
+		}
+
+		/*
+		 * This method adds the row tuples of a VALUES list and returns how many there were
+		 */
+		int add(String columns, String values) {
+			int valueRows = countRows(values);
+
+			if (Objects.isNull(current) || !columns.equals(currentColumns)
+					|| currentRows + valueRows > ROWS_PER_INSERT) {
+				flush();
+				current = new StringBuilder("INSERT INTO ").append(table).append(' ').append(columns).append(" VALUES ");
+				currentColumns = columns;
+			} else {
+				current.append(", ");
+			} // if statement
+
+			current.append(values);
+			currentRows += valueRows;
+			rows += valueRows;
+			return valueRows;
+		} // add method
+
+		/*
+		 * This method keeps an INSERT that cannot be coalesced (INSERT ... SELECT, ON DUPLICATE KEY, ...)
+		 * in its place among the table's rows. Only the rows of a VALUES list can be counted.
+		 */
+		void addStatement(String sql, int valueRows) {
+			flush();
+			statements.add(sql);
+			rows += valueRows;
+		} // addStatement method
+
+		boolean hasStatements() {
+			return Objects.nonNull(current) || !statements.isEmpty();
+		} // hasStatements method
+
+		/*
+		 * This method returns the statements built so far and starts a new group
+		 */
+		List<String> drain() {
+			flush();
+
+			List<String> drained = new ArrayList<>(statements);
+			statements.clear();
+			return drained;
+		} // drain method
+
+		private void flush() {
+			if (Objects.nonNull(current)) {
+				statements.add(current.toString());
+				current = null;
+				currentRows = 0;
+			} // if statement
+		} // flush method
+	} // class TableBatch
+
+	/*
+	 * This class holds a worker thread's connection and how many of the SET and USE statements have
+	 * been run on it
+	 */
+	private static class WorkerSession {
+		private final SharedConnection session;
+		private int applied;
+
+		WorkerSession(SharedConnection session) {
+			this.session = session;
+		}
+	} // class WorkerSession
+} // class SeedLoader
@@ -0,0 +1,241 @@
+package projects.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/*
+ * This class splits a SQL script into statements in a single pass over a Reader. Only the statement
+ * being read is held in memory, so scripts of any size are read in linear time.
+ *
+ * - semicolons inside '...', "..." and `...` are part of the statement
+ * - -- comments, # comments and block comments are removed
+ * - runs of white space outside quotes become a single space
+ * - a DELIMITER line at the start of a statement changes the statement terminator
+ */
+public class SqlScriptReader implements AutoCloseable {
+	private static final String DELIMITER_COMMAND = "DELIMITER";
+
+	private final Reader reader;
+	private final char[] buffer = new char[8192];
+	private int position;
+	private int limit;
+	private int pushback = -2;
+
+	private String delimiter = ";";
+	private final StringBuilder statement = new StringBuilder();
+
+	public SqlScriptReader(Reader reader) {
+		this.reader = reader;
+	} // SqlScriptReader constructor
+
+	/*
+	 * This method returns the next statement without its terminator, or null at the end of the script
+	 */
+	public String next() throws IOException {
+		statement.setLength(0);
+		boolean pendingSpace = false;
+		int ch;
+
+		while ((ch = read()) != -1) {
+			if (ch == '\'' || ch == '"' || ch == '`') {
+				appendSpace(pendingSpace);
+				pendingSpace = false;
+				readQuoted(ch);
+				continue;
+			} // if statement
+
+			if (ch == '-' && peek() == '-') {
+				read();
+				int after = peek();
+
+				if (after == -1 || Character.isWhitespace(after)) {
+					skipToEndOfLine();
+					pendingSpace = true;
+					continue;
+				} // if statement
+
+				appendSpace(pendingSpace);
+				pendingSpace = false;
+				statement.append("--");
+				continue;
+			} // if statement
+
+			if (ch == '#') {
+				skipToEndOfLine();
+				pendingSpace = true;
+				continue;
+			} // if statement
+
+			if (ch == '/' && peek() == '*') {
+				read();
+				skipBlockComment();
+				pendingSpace = true;
+				continue;
+			} // if statement
+
+			if (Character.isWhitespace(ch)) {
+				if (ch == '\n' && isDelimiterCommand()) {
+					delimiter = statement.substring(DELIMITER_COMMAND.length()).trim();
+					statement.setLength(0);
+					pendingSpace = false;
+					continue;
+				} // if statement
+
+				pendingSpace = statement.length() > 0;
+				continue;
+			} // if statement
+
+			appendSpace(pendingSpace);
+			pendingSpace = false;
+			statement.append((char) ch);
+
+			if (endsWithDelimiter() && !isDelimiterCommand()) {
+				statement.setLength(statement.length() - delimiter.length());
+				String sql = statement.toString().trim();
+
+				if (!sql.isEmpty()) {
+					return sql;
+				} // if statement
+
+				statement.setLength(0);
+			} // if statement
+		} // while block
+
+		if (isDelimiterCommand()) {
+			return null;
+		} // if statement
+
+		String sql = statement.toString().trim();
+		return sql.isEmpty() ? null : sql;
+	} // next method
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	} // close method
+
+	private void appendSpace(boolean pendingSpace) {
+		if (pendingSpace && statement.length() > 0) {
+			statement.append(' ');
+		} // if statement
+	} // appendSpace method
+
+	/*
+	 * This method copies a quoted literal or identifier. A doubled quote or a backslash escape does not
+	 * end it.
+	 */
+	private void readQuoted(int quote) throws IOException {
+		statement.append((char) quote);
+		int ch;
+
+		while ((ch = read()) != -1) {
+			statement.append((char) ch);
+
+			if (ch == '\\' && quote != '`') {
+				int escaped = read();
+
+				if (escaped != -1) {
+					statement.append((char) escaped);
+				} // if statement
+			} else if (ch == quote) {
+				if (peek() != quote) {
+					return;
+				} // if statement
+
+				statement.append((char) read());
+			} // if statement
+		} // while block
+
+		throw new IOException("Unterminated quoted text in SQL script: " + abbreviate());
+	} // readQuoted method
+
+	private void skipToEndOfLine() throws IOException {
+		int ch;
+
+		while ((ch = read()) != -1 && ch != '\n') {
+			/* Skip the comment text. */
+		} // while block
+
+		if (ch == '\n') {
+			unread(ch);
+		} // if statement
+	} // skipToEndOfLine method
+
+	private void skipBlockComment() throws IOException {
+		int previous = 0;
+		int ch;
+
+		while ((ch = read()) != -1) {
+			if (previous == '*' && ch == '/') {
+				return;
+			} // if statement
+
+			previous = ch;
+		} // while block
+
+		throw new IOException("Unterminated comment in SQL script: " + abbreviate());
+	} // skipBlockComment method
+
+	private boolean isDelimiterCommand() {
+		return statement.length() > DELIMITER_COMMAND.length()
+				&& statement.substring(0, DELIMITER_COMMAND.length()).equalsIgnoreCase(DELIMITER_COMMAND)
+				&& statement.charAt(DELIMITER_COMMAND.length()) == ' ';
+	} // isDelimiterCommand method
+
+	private boolean endsWithDelimiter() {
+		int length = delimiter.length();
+		int start = statement.length() - length;
+
+		if (start < 0) {
+			return false;
+		} // if statement
+
+		for (int index = 0; index < length; index++) {
+			if (statement.charAt(start + index) != delimiter.charAt(index)) {
+				return false;
+			} // if statement
+		} // for loop
+
+		return true;
+	} // endsWithDelimiter method
+
+	private String abbreviate() {
+		return statement.length() > 80 ? statement.substring(0, 80) + "..." : statement.toString();
+	} // abbreviate method
+
+	private int peek() throws IOException {
+		if (pushback == -2) {
+			pushback = readBuffered();
+		} // if statement
+
+		return pushback;
+	} // peek method
+
+	private void unread(int ch) {
+		pushback = ch;
+	} // unread method
+
+	private int read() throws IOException {
+		if (pushback != -2) {
+			int ch = pushback;
+			pushback = -2;
+			return ch;
+		} // if statement
+
+		return readBuffered();
+	} // read method
+
+	private int readBuffered() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer);
+			position = 0;
+
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			} // if statement
+		} // if statement
+
+		return buffer[position++];
+	} // readBuffered method
+} // class SqlScriptReader
@@ -0,0 +1,19 @@
+/**
+ *
+ */
+package provided.util;
+
+/**
+ * Implemented by pooled connections that keep a {@link StatementCache} for their physical
+ * connection. {@link DaoBase} checks for this interface and prepares statements through the cache
+ * when it is present.
+ *
+ * @author Promineo
+ *
+ */
+public interface CachingConnection {
+  /**
+   * @return The statement cache of the physical connection.
+   */
+  StatementCache getStatementCache();
+}
@@ -0,0 +1,19 @@
+/**
+ *
+ */
+package provided.util;
+
+/**
+ * An entity that records which of its fields were changed after it was loaded, so that an update
+ * only needs to write those columns. {@link RowMapper} calls {@link #markClean()} on every entity
+ * it maps, and a DAO calls it after writing the changes.
+ *
+ * @author Promineo
+ *
+ */
+public interface ChangeTracked {
+  /**
+   * Forgets the changes recorded so far. The entity now matches its row in the database.
+   */
+  void markClean();
+}
@@ -3,21 +3,18 @@
  */
 package provided.util;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.math.BigDecimal;
+import java.lang.ref.WeakReference;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Time;
-import java.sql.Timestamp;
-import java.sql.Types;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
+import javax.sql.DataSource;
+
 /**
  * This class contains utility methods for the DAO class.
  * 
@@ -25,6 +22,135 @@ import java.util.Objects;
  *
  */
 public abstract class DaoBase {
+  private static final ThreadLocal<LastMapper> LAST_MAPPER =
+      ThreadLocal.withInitial(LastMapper::new);
+
+  private final DataSource dataSource;
+
+  /**
+   * @param dataSource The source of connections for this DAO. Normally this is a connection pool,
+   *        so closing a connection obtained from {@link #getConnection()} returns it to the pool.
+   */
+  protected DaoBase(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  /**
+   * Borrows a connection from the data source. The caller must close the connection, preferably
+   * with try-with-resources. If the thread has a {@link SharedConnection}, that connection is
+   * returned instead and closing it does nothing.
+   * 
+   * @return A connection.
+   * @throws SQLException Thrown if a connection cannot be obtained.
+   */
+  protected Connection getConnection() throws SQLException {
+    SharedConnection shared = SharedConnection.current();
+    return Objects.isNull(shared) ? dataSource.getConnection() : shared.getView();
+  }
+
+  /**
+   * Borrows a connection for a named operation. When {@link DaoMetrics} is enabled, the time taken
+   * by the operation and its phases is recorded under the name until the connection is closed.
+   * Otherwise this is the same as {@link #getConnection()}.
+   * 
+   * @param operation The name the metrics are recorded under, normally the DAO method name.
+   * @return A connection.
+   * @throws SQLException Thrown if a connection cannot be obtained.
+   */
+  protected Connection getConnection(String operation) throws SQLException {
+    if(!DaoMetrics.isEnabled()) {
+      return getConnection();
+    }
+
+    return DaoMetrics.acquire(this::getConnection, operation);
+  }
+
+  /**
+   * Borrows a connection for a named operation that only reads. If the data source is a
+   * {@link ReadWriteDataSource} the connection may come from a replica. Inside a
+   * {@link SharedConnection}, or with any other data source, this is the same as
+   * {@link #getConnection(String)}.
+   * 
+   * @param operation The name the metrics are recorded under, normally the DAO method name.
+   * @return A connection.
+   * @throws SQLException Thrown if a connection cannot be obtained.
+   */
+  protected Connection getReadConnection(String operation) throws SQLException {
+    if(Objects.nonNull(SharedConnection.current())
+        || !(dataSource instanceof ReadWriteDataSource)) {
+      return getConnection(operation);
+    }
+
+    ReadWriteDataSource router = (ReadWriteDataSource)dataSource;
+
+    if(!DaoMetrics.isEnabled()) {
+      return router.getReadConnection();
+    }
+
+    return DaoMetrics.acquire(router::getReadConnection, operation);
+  }
+
+  /**
+   * Returns a ready-to-bind prepared statement for the SQL. If the connection keeps a
+   * {@link StatementCache} (see {@link CachingConnection}), the statement is taken from the cache so
+   * that the SQL is only prepared once per physical connection. Closing the statement returns it to
+   * the cache. The SQL should be a constant so that the same text is used every time.
+   * 
+   * @param conn The connection
+   * @param sql The SQL to prepare
+   * @return The statement. The caller must close it, preferably with try-with-resources.
+   * @throws SQLException Thrown if the statement cannot be prepared.
+   */
+  protected PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+    return prepare(conn, sql, Statement.NO_GENERATED_KEYS);
+  }
+
+  /**
+   * Same as {@link #prepare(Connection, String)}, with control over generated keys.
+   * 
+   * @param conn The connection
+   * @param sql The SQL to prepare
+   * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or
+   *        {@link Statement#NO_GENERATED_KEYS}
+   * @return The statement. The caller must close it, preferably with try-with-resources.
+   * @throws SQLException Thrown if the statement cannot be prepared.
+   */
+  protected PreparedStatement prepare(Connection conn, String sql, int autoGeneratedKeys)
+      throws SQLException {
+    PreparedStatement stmt;
+
+    if(conn instanceof CachingConnection) {
+      stmt = ((CachingConnection)conn).getStatementCache().prepare(conn, sql, autoGeneratedKeys);
+    }
+    else {
+      stmt = conn.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    return instrument(stmt, sql);
+  }
+
+  /**
+   * Prepares a statement without the statement cache. Use this for SQL that is built per call, such
+   * as an IN list sized to its values, or that runs too rarely to be worth a cache slot. The statement
+   * is still timed by the slow query log and the DAO metrics.
+   * 
+   * @param conn The connection
+   * @param sql The SQL to prepare
+   * @return The statement. The caller must close it, preferably with try-with-resources.
+   * @throws SQLException Thrown if the statement cannot be prepared.
+   */
+  protected PreparedStatement prepareUncached(Connection conn, String sql) throws SQLException {
+    return instrument(conn.prepareStatement(sql), sql);
+  }
+
+  private PreparedStatement instrument(PreparedStatement stmt, String sql) {
+    if(SlowQueryLog.isEnabled()) {
+      stmt = SlowQueryLog.instrument(stmt, sql);
+    }
+
+    return DaoMetrics.isEnabled() ? DaoMetrics.instrument(stmt, PreparedStatement.class) : stmt;
+  }
+
   /**
    * This starts a MySQL transaction. Normally MySQL starts a transaction before every request and
    * commits it after each request. By turning auto-commit off, the transaction is only committed
@@ -38,23 +164,62 @@ public abstract class DaoBase {
   }
 
   /**
-   * Commit the transaction. This will write all the changes, if any, to the database.
+   * Commit the transaction. This will write all the changes, if any, to the database. Inside a
+   * {@link SharedConnection} group transaction nothing is committed until the group is.
+   * 
+   * The commit is done by turning auto-commit back on, which commits the open transaction in the
+   * same request. The connection is then returned to the pool ready for the next borrower, without
+   * the pool having to roll back and reset it.
    * 
    * @param conn The connection on which to commit the transaction.
    * @throws SQLException Thrown if an error occurs committing the transaction.
    */
   protected void commitTransaction(Connection conn) throws SQLException {
-    conn.commit();
+    SharedConnection shared = SharedConnection.current();
+
+    if(Objects.nonNull(shared) && shared.isGrouping()) {
+      return;
+    }
+
+    OperationMetrics metrics = DaoMetrics.isEnabled() ? DaoMetrics.current() : null;
+
+    if(Objects.isNull(metrics)) {
+      conn.setAutoCommit(true);
+      return;
+    }
+
+    long start = System.nanoTime();
+
+    try {
+      conn.setAutoCommit(true);
+    }
+    finally {
+      metrics.record(OperationMetrics.Phase.COMMIT, System.nanoTime() - start);
+    }
   }
 
   /**
-   * Rolls back the changes so that nothing is committed.
+   * Rolls back the changes so that nothing is committed and turns auto-commit back on. Inside a
+   * {@link SharedConnection} group transaction this rolls back and ends the whole group.
    * 
    * @param conn The connection on which to roll back the transaction.
    * @throws SQLException Thrown if an error occurs rolling back the transaction.
    */
   protected void rollbackTransaction(Connection conn) throws SQLException {
-    conn.rollback();
+    OperationMetrics metrics = DaoMetrics.isEnabled() ? DaoMetrics.current() : null;
+    SharedConnection shared = SharedConnection.current();
+
+    if(Objects.nonNull(metrics)) {
+      metrics.recordRollback();
+    }
+
+    if(Objects.nonNull(shared) && shared.isGrouping()) {
+      shared.rollbackGroup();
+    }
+    else {
+      conn.rollback();
+      conn.setAutoCommit(true);
+    }
   }
 
   /**
@@ -68,72 +233,13 @@ public abstract class DaoBase {
    * @param value The parameter value. This may be null.
    * @param classType This is the Java class type of the parameter. It is used to select the correct
    *        method on the driver so that the parameter is added correctly. It is also used to set
-   *        the type in case the parameter is null.
+   *        the type in case the parameter is null. See {@link ParameterType} for the supported
+   *        types. Statements that bind whole entities should use an {@link EntityBinder} instead.
    * @throws SQLException Thrown if an error occurs.
    */
   protected void setParameter(PreparedStatement stmt, int parameterIndex, Object value,
       Class<?> classType) throws SQLException {
-    int sqlType = convertJavaClassToSqlType(classType);
-
-    if(Objects.isNull(value)) {
-      stmt.setNull(parameterIndex, sqlType);
-    }
-    else {
-      switch(sqlType) {
-        case Types.DECIMAL:
-          stmt.setBigDecimal(parameterIndex, (BigDecimal)value);
-          break;
-
-        case Types.DOUBLE:
-          stmt.setDouble(parameterIndex, (Double)value);
-          break;
-
-        case Types.INTEGER:
-          stmt.setInt(parameterIndex, (Integer)value);
-          break;
-
-        case Types.OTHER:
-          stmt.setObject(parameterIndex, value);
-          break;
-
-        case Types.VARCHAR:
-          stmt.setString(parameterIndex, (String)value);
-          break;
-
-        default:
-          throw new DaoException("Unknown parameter type: " + classType);
-      }
-    }
-  }
-
-  /**
-   * Converts from a Java class to a java.sql.Types value.
-   * 
-   * @param classType The class type
-   * @return A java.sql.Types value
-   */
-  private int convertJavaClassToSqlType(Class<?> classType) {
-    if(Integer.class.equals(classType)) {
-      return Types.INTEGER;
-    }
-
-    if(String.class.equals(classType)) {
-      return Types.VARCHAR;
-    }
-
-    if(Double.class.equals(classType)) {
-      return Types.DOUBLE;
-    }
-
-    if(BigDecimal.class.equals(classType)) {
-      return Types.DECIMAL;
-    }
-
-    if(LocalTime.class.equals(classType)) {
-      return Types.OTHER;
-    }
-
-    throw new DaoException("Unsupported class type: " + classType.getName());
+    ParameterType.forClass(classType).bind(stmt, parameterIndex, value);
   }
 
   /**
@@ -166,20 +272,21 @@ public abstract class DaoBase {
   }
 
   /**
-   * This returns the integer primary key value of the last row inserted into the given table. It
-   * allows the ID to be inserted into the entity object after inserting it into the table.
+   * This returns the integer primary key value of the last row inserted on the connection. It allows
+   * the ID to be inserted into the entity object after inserting it into the table.
    * 
-   * The other way of doing this is to call {@link Statement#getGeneratedKeys()}, but this returns a
-   * result set that needs to be parsed for the ID. It's not really any easier than this approach
-   * but should be closer to database-agnostic.
+   * Prefer {@link #getGeneratedKeys(Statement)} when the statement was prepared with
+   * {@link Statement#RETURN_GENERATED_KEYS}. The driver already has the keys from the insert
+   * response, so no extra query is sent.
    * 
    * @param conn The connection
-   * @param table The name of the table on which to get the last inserted primary key value
+   * @param table The name of the table on which to get the last inserted primary key value. It is
+   *        not needed by the query and is kept for compatibility.
    * @return The primary key value
    * @throws SQLException Thrown if an error occurs
    */
   protected Integer getLastInsertId(Connection conn, String table) throws SQLException {
-    String sql = String.format("SELECT LAST_INSERT_ID() FROM %s", table);
+    String sql = "SELECT LAST_INSERT_ID()";
 
     try(Statement stmt = conn.createStatement()) {
       try(ResultSet rs = stmt.executeQuery(sql)) {
@@ -192,17 +299,41 @@ public abstract class DaoBase {
     }
   }
 
+  /**
+   * This returns the integer primary key values generated by the last insert or batch of inserts
+   * executed by the statement, in the order the rows were added. The statement must have been
+   * prepared with {@link Statement#RETURN_GENERATED_KEYS}.
+   * 
+   * @param stmt The statement that performed the insert
+   * @return The generated primary key values
+   * @throws SQLException Thrown if an error occurs or no keys were generated
+   */
+  protected List<Integer> getGeneratedKeys(Statement stmt) throws SQLException {
+    try(ResultSet rs = stmt.getGeneratedKeys()) {
+      List<Integer> keys = new ArrayList<>();
+
+      while(rs.next()) {
+        keys.add(rs.getInt(1));
+      }
+
+      if(keys.isEmpty()) {
+        throw new SQLException("Unable to retrieve the primary key value. No generated keys!");
+      }
+
+      return keys;
+    }
+  }
+
   /**
    * This extracts an object of the given type from a result set. The object must have a
-   * zero-argument constructor. It builds an object from a result set using reflection as follows:
+   * zero-argument constructor. The work is done by a {@link RowMapper} that is compiled once for
+   * each class and result set shape:
    * <ol>
-   * <li>The zero-argument constructor is obtained.</li>
-   * <li>An object of the given class type is created.</li>
-   * <li>A list of fields is obtained using reflection.</li>
-   * <li>The field name is converted from Java naming to SQL naming conventions (camel case to snake
-   * case). Obviously, for this to work, the Java name must match the column name. So, if the Java
-   * name is numServings, the column name must be num_servings.</li>
-   * <li>The value is assigned to the field in the object.</li>
+   * <li>The column labels are read from the result set metadata.</li>
+   * <li>Each field name is converted from Java naming to SQL naming conventions (camel case to
+   * snake case). Obviously, for this to work, the Java name must match the column name. So, if the
+   * Java name is numServings, the column name must be num_servings.</li>
+   * <li>Matching fields are bound to their column index and a method handle setter.</li>
    * </ol>
    * 
    * Example: if a query returns values for a recipe, a Recipe object is returned. So:
@@ -224,6 +355,10 @@ public abstract class DaoBase {
    * Since the result set does not contain a column named "ingredients", the value is left alone and
    * the list initialization is preserved.
    * 
+   * The mapper for the last result set seen on the calling thread is remembered, so calling this in
+   * a row loop does not read the metadata again. Loops can also call
+   * {@link #rowMapper(ResultSet, Class)} once and use the mapper directly.
+   * 
    * @param <T> The Generic for the type of object to create and return.
    * @param rs The result set in which to extract values. The result set must be positioned on the
    *        correct row by the caller.
@@ -231,80 +366,46 @@ public abstract class DaoBase {
    * @return A populated class.
    */
   protected <T> T extract(ResultSet rs, Class<T> classType) {
-    try {
-      /* Obtain the constructor and create an object of the correct type. */
-      Constructor<T> con = classType.getConstructor();
-      T obj = con.newInstance();
-
-      /* Get the list of fields and loop through them. */
-      for(Field field : classType.getDeclaredFields()) {
-        String colName = camelCaseToSnakeCase(field.getName());
-        Class<?> fieldType = field.getType();
-
-        /*
-         * Set the field accessible flag which means that we can populate even private fields
-         * without using the setter.
-         */
-        field.setAccessible(true);
-        Object fieldValue = null;
-
-        try {
-          fieldValue = rs.getObject(colName);
-        }
-        catch(SQLException e) {
-          /*
-           * An exception caught here means that the field name isn't in the result set. Don't take
-           * any action.
-           */
-        }
+    LastMapper last = LAST_MAPPER.get();
 
-        /*
-         * Only set the value in the object if there is a value with the same name in the result
-         * set. This will preserve instance variables (like lists) that are assigned values when the
-         * object is created.
-         */
-        if(Objects.nonNull(fieldValue)) {
-          /*
-           * Convert the following types: Time -> LocalTime, and Timestamp -> LocalDateTime.
-           */
-          if(fieldValue instanceof Time && fieldType.equals(LocalTime.class)) {
-            fieldValue = ((Time)fieldValue).toLocalTime();
-          }
-          else if(fieldValue instanceof Timestamp && fieldType.equals(LocalDateTime.class)) {
-            fieldValue = ((Timestamp)fieldValue).toLocalDateTime();
-          }
-
-          field.set(obj, fieldValue);
-        }
+    if(last.rs.get() != rs || last.classType != classType) {
+      try {
+        last.mapper = RowMapper.forResultSet(rs, classType);
+      }
+      catch(SQLException e) {
+        throw new DaoException("Unable to create object of type " + classType.getName(), e);
       }
 
-      return obj;
-
-    }
-    catch(Exception e) {
-      throw new DaoException("Unable to create object of type " + classType.getName(), e);
+      last.rs = new WeakReference<>(rs);
+      last.classType = classType;
     }
+
+    @SuppressWarnings("unchecked")
+    RowMapper<T> mapper = (RowMapper<T>)last.mapper;
+
+    return mapper.map(rs);
   }
 
   /**
-   * This converts a camel case value (rowInsertTime) to snake case (row_insert_time).
+   * Returns the cached mapper for the given class and result set shape.
    * 
-   * @param identifier The name in camel case to convert.
-   * @return The name converted to snake case.
+   * @param <T> The type of object the mapper creates.
+   * @param rs The result set. Only its metadata is read.
+   * @param classType The class type of the object to create.
+   * @return The mapper.
+   * @throws SQLException Thrown if the result set metadata cannot be read.
    */
-  private String camelCaseToSnakeCase(String identifier) {
-    StringBuilder nameBuilder = new StringBuilder();
-
-    for(char ch : identifier.toCharArray()) {
-      if(Character.isUpperCase(ch)) {
-        nameBuilder.append('_').append(Character.toLowerCase(ch));
-      }
-      else {
-        nameBuilder.append(ch);
-      }
-    }
+  protected <T> RowMapper<T> rowMapper(ResultSet rs, Class<T> classType) throws SQLException {
+    return RowMapper.forResultSet(rs, classType);
+  }
 
-    return nameBuilder.toString();
+  /**
+   * Holds the mapper most recently used by {@link DaoBase#extract(ResultSet, Class)} on a thread.
+   */
+  private static final class LastMapper {
+    private WeakReference<ResultSet> rs = new WeakReference<>(null);
+    private Class<?> classType;
+    private RowMapper<?> mapper;
   }
 
   /**
@@ -323,6 +424,7 @@ public abstract class DaoBase {
      */
     public DaoException(String message, Throwable cause) {
       super(message, cause);
+      DaoMetrics.recordError(DaoException.class, cause);
     }
 
     /**
@@ -330,6 +432,7 @@ public abstract class DaoBase {
      */
     public DaoException(String message) {
       super(message);
+      DaoMetrics.recordError(DaoException.class, null);
     }
   }
 }
@@ -0,0 +1,420 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import provided.util.OperationMetrics.Phase;
+
+/**
+ * Collects latency and row metrics for DAO operations and publishes them through JMX and an
+ * optional periodic dump to System.out.
+ *
+ * An operation starts when {@link DaoBase#getConnection(String)} borrows a connection and ends
+ * when that connection is closed. While it runs it is the current operation of the thread, and the
+ * DaoBase helpers record their phases against it:
+ *
+ * <ul>
+ * <li>acquire - borrowing the connection</li>
+ * <li>execute - the execute methods of statements from {@link DaoBase#prepare(Connection, String)}
+ * and Connection.createStatement</li>
+ * <li>map - {@link RowMapper#map(java.sql.ResultSet)}, which also counts the rows read</li>
+ * <li>commit - {@link DaoBase#commitTransaction(Connection)}</li>
+ * </ul>
+ *
+ * When metrics are disabled, which is the default, the only cost is a volatile read in each of
+ * those places.
+ *
+ * @author Promineo
+ *
+ */
+public final class DaoMetrics {
+  private static final String OBJECT_NAME = "projects.dao:type=DaoMetrics";
+
+  private static final Map<String, OperationMetrics> OPERATIONS = new ConcurrentHashMap<>();
+  private static final ThreadLocal<OperationMetrics> CURRENT = new ThreadLocal<>();
+  private static final LongAdder UNATTRIBUTED_ERRORS = new LongAdder();
+  private static final Control CONTROL = new Control();
+
+  private static volatile boolean enabled;
+  private static ScheduledExecutorService dumper;
+  private static boolean registered;
+
+  private DaoMetrics() {}
+
+  /**
+   * Turns metrics on or off, registers the JMX beans and starts or stops the periodic dump. This
+   * may be called more than once.
+   *
+   * @param enable True to collect metrics.
+   * @param dumpIntervalMillis How often to print the report, or zero for never.
+   */
+  public static synchronized void configure(boolean enable, long dumpIntervalMillis) {
+    enabled = enable;
+
+    if(!registered) {
+      registered = register(OBJECT_NAME, CONTROL);
+    }
+
+    if(Objects.nonNull(dumper)) {
+      dumper.shutdownNow();
+      dumper = null;
+    }
+
+    if(dumpIntervalMillis > 0) {
+      dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dao-metrics-dump");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+      dumper.scheduleWithFixedDelay(DaoMetrics::printDump, dumpIntervalMillis, dumpIntervalMillis,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean enable) {
+    enabled = enable;
+  }
+
+  /**
+   * @return The operation running on this thread, or null if there is none.
+   */
+  public static OperationMetrics current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * @param operation The operation name.
+   * @return The metrics for the operation, or null if it has not run yet.
+   */
+  public static OperationMetrics getOperation(String operation) {
+    return OPERATIONS.get(operation);
+  }
+
+  /**
+   * Counts a DAO exception against the current operation. This is called by the exception
+   * constructors. An exception that wraps another DAO exception is not counted again.
+   *
+   * @param type The class of the exception being created.
+   * @param cause The cause passed to the exception. This may be null.
+   */
+  public static void recordError(Class<? extends RuntimeException> type, Throwable cause) {
+    if(!enabled || type.isInstance(cause) || cause instanceof DaoBase.DaoException) {
+      return;
+    }
+
+    OperationMetrics metrics = CURRENT.get();
+
+    if(Objects.isNull(metrics)) {
+      UNATTRIBUTED_ERRORS.increment();
+    }
+    else {
+      metrics.recordError();
+    }
+  }
+
+  /**
+   * @return The report of every operation that has run.
+   */
+  public static String dump() {
+    StringBuilder report = new StringBuilder("DAO metrics (latency in microseconds)")
+        .append(System.lineSeparator());
+
+    OPERATIONS.values().stream()
+        .sorted((a, b) -> a.getOperation().compareTo(b.getOperation()))
+        .forEach(metrics -> metrics.appendTo(report));
+
+    if(UNATTRIBUTED_ERRORS.sum() > 0) {
+      report.append("unattributed errors=").append(UNATTRIBUTED_ERRORS.sum())
+          .append(System.lineSeparator());
+    }
+
+    return report.toString();
+  }
+
+  /**
+   * Clears all collected metrics.
+   */
+  public static void reset() {
+    OPERATIONS.values().forEach(OperationMetrics::reset);
+    UNATTRIBUTED_ERRORS.reset();
+  }
+
+  /**
+   * Where {@link #acquire(ConnectionSource, String)} gets its connection: the data source, or the
+   * {@link SharedConnection} of the thread.
+   */
+  @FunctionalInterface
+  interface ConnectionSource {
+    Connection getConnection() throws SQLException;
+  }
+
+  /**
+   * Borrows a connection for an operation and makes the operation current on this thread until the
+   * connection is closed. Only called when metrics are enabled.
+   */
+  static Connection acquire(ConnectionSource source, String operation) throws SQLException {
+    OperationMetrics metrics = OPERATIONS.computeIfAbsent(operation, DaoMetrics::createOperation);
+    OperationMetrics previous = CURRENT.get();
+    long start = System.nanoTime();
+    Connection conn;
+
+    CURRENT.set(metrics);
+
+    try {
+      conn = source.getConnection();
+    }
+    catch(SQLException | RuntimeException e) {
+      restore(previous);
+      throw e;
+    }
+
+    metrics.record(Phase.ACQUIRE, System.nanoTime() - start);
+
+    List<Class<?>> interfaces = new ArrayList<>(List.of(Connection.class));
+
+    if(conn instanceof CachingConnection) {
+      interfaces.add(CachingConnection.class);
+    }
+
+    return (Connection)Proxy.newProxyInstance(DaoMetrics.class.getClassLoader(),
+        interfaces.toArray(new Class<?>[0]),
+        new ConnectionHandler(conn, metrics, previous, start, Thread.currentThread()));
+  }
+
+  /**
+   * Wraps a statement so that its execute methods are timed against the current operation.
+   */
+  static <S extends Statement> S instrument(S stmt, Class<S> type) {
+    return type.cast(Proxy.newProxyInstance(DaoMetrics.class.getClassLoader(),
+        new Class<?>[] {type}, new StatementHandler(stmt)));
+  }
+
+  private static OperationMetrics createOperation(String operation) {
+    OperationMetrics metrics = new OperationMetrics(operation);
+    register(OBJECT_NAME + ",operation=" + ObjectName.quote(operation), metrics);
+    return metrics;
+  }
+
+  private static boolean register(String name, Object bean) {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(name));
+      return true;
+    }
+    catch(JMException e) {
+      System.err.println("Unable to register " + name + " with JMX: " + e.getMessage());
+      return false;
+    }
+  }
+
+  private static void printDump() {
+    if(enabled && !OPERATIONS.isEmpty()) {
+      System.out.print(dump());
+    }
+  }
+
+  private static void restore(OperationMetrics previous) {
+    if(Objects.isNull(previous)) {
+      CURRENT.remove();
+    }
+    else {
+      CURRENT.set(previous);
+    }
+  }
+
+  /**
+   * Returns the rows written according to the result of an execute method.
+   */
+  static long countRows(Object result) {
+    if(result instanceof Integer) {
+      return Math.max(0, (Integer)result);
+    }
+
+    if(result instanceof Long) {
+      return Math.max(0, (Long)result);
+    }
+
+    long rows = 0;
+
+    if(result instanceof int[]) {
+      for(int count : (int[])result) {
+        rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+      }
+    }
+    else if(result instanceof long[]) {
+      for(long count : (long[])result) {
+        rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+      }
+    }
+
+    return rows;
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    }
+    catch(InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Ends the operation when the connection is closed and instruments plain statements.
+   */
+  private static final class ConnectionHandler implements InvocationHandler {
+    private final Connection conn;
+    private final OperationMetrics metrics;
+    private final OperationMetrics previous;
+    private final long start;
+    private final Thread owner;
+    private boolean closed;
+
+    ConnectionHandler(Connection conn, OperationMetrics metrics, OperationMetrics previous,
+        long start, Thread owner) {
+      this.conn = conn;
+      this.metrics = metrics;
+      this.previous = previous;
+      this.start = start;
+      this.owner = owner;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch(method.getName()) {
+        case "close":
+          if(!closed) {
+            closed = true;
+
+            try {
+              conn.close();
+            }
+            finally {
+              metrics.record(Phase.TOTAL, System.nanoTime() - start);
+              metrics.recordCall();
+
+              if(Thread.currentThread() == owner) {
+                restore(previous);
+              }
+            }
+          }
+          return null;
+
+        case "createStatement":
+          return instrument((Statement)DaoMetrics.invoke(conn, method, args), Statement.class);
+
+        case "equals":
+          return proxy == args[0];
+
+        case "hashCode":
+          return System.identityHashCode(proxy);
+
+        case "toString":
+          return "metered " + conn;
+
+        default:
+          return DaoMetrics.invoke(conn, method, args);
+      }
+    }
+  }
+
+  /**
+   * Times the execute methods of a statement and counts the rows they write.
+   */
+  private static final class StatementHandler implements InvocationHandler {
+    private final Statement stmt;
+
+    StatementHandler(Statement stmt) {
+      this.stmt = stmt;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      OperationMetrics metrics = CURRENT.get();
+
+      if(!method.getName().startsWith("execute") || Objects.isNull(metrics)) {
+        switch(method.getName()) {
+          case "equals":
+            return proxy == args[0];
+
+          case "hashCode":
+            return System.identityHashCode(proxy);
+
+          default:
+            return DaoMetrics.invoke(stmt, method, args);
+        }
+      }
+
+      long start = System.nanoTime();
+
+      try {
+        Object result = DaoMetrics.invoke(stmt, method, args);
+        metrics.recordRowsWritten(countRows(result));
+        return result;
+      }
+      finally {
+        metrics.record(Phase.EXECUTE, System.nanoTime() - start);
+      }
+    }
+  }
+
+  /**
+   * The JMX bean for the DaoMetrics controls.
+   */
+  private static final class Control implements DaoMetricsMXBean {
+    @Override
+    public boolean isEnabled() {
+      return DaoMetrics.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enable) {
+      DaoMetrics.setEnabled(enable);
+    }
+
+    @Override
+    public List<String> getOperations() {
+      return OPERATIONS.keySet().stream().sorted().toList();
+    }
+
+    @Override
+    public long getUnattributedErrors() {
+      return UNATTRIBUTED_ERRORS.sum();
+    }
+
+    @Override
+    public void reset() {
+      DaoMetrics.reset();
+    }
+
+    @Override
+    public String dump() {
+      return DaoMetrics.dump();
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.util.List;
+
+/**
+ * The JMX controls for {@link DaoMetrics}.
+ *
+ * @author Promineo
+ *
+ */
+public interface DaoMetricsMXBean {
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  List<String> getOperations();
+
+  /**
+   * @return The number of DAO exceptions raised outside of any operation.
+   */
+  long getUnattributedErrors();
+
+  void reset();
+
+  /**
+   * @return The text report that is also written by the periodic dump.
+   */
+  String dump();
+}
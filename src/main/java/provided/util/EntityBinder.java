@@ -0,0 +1,203 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Describes how an entity is bound to the parameters of a statement. The parameters are listed in
+ * order, each one as a typed setter bound to an entity getter. The driver method for each parameter
+ * is chosen when the binder is defined, so binding an entity is a straight sequence of setter calls.
+ *
+ * Binders are normally defined once as constants next to the SQL they belong to:
+ *
+ * <pre>
+ * private static final EntityBinder&lt;Recipe&gt; RECIPE_COLUMNS = EntityBinder.&lt;Recipe&gt;create()
+ *     .string(Recipe::getRecipeName)
+ *     .integer(Recipe::getNumServings);
+ * </pre>
+ *
+ * @author Promineo
+ *
+ * @param <E> The entity type.
+ */
+public final class EntityBinder<E> {
+  private final List<Setter<E>> setters = new ArrayList<>();
+
+  private EntityBinder() {}
+
+  /**
+   * @param <E> The entity type.
+   * @return An empty binder.
+   */
+  public static <E> EntityBinder<E> create() {
+    return new EntityBinder<>();
+  }
+
+  public EntityBinder<E> string(Function<E, String> getter) {
+    return add((stmt, index, entity) -> {
+      String value = getter.apply(entity);
+
+      if(Objects.isNull(value)) {
+        stmt.setNull(index, Types.VARCHAR);
+      }
+      else {
+        stmt.setString(index, value);
+      }
+    });
+  }
+
+  public EntityBinder<E> integer(Function<E, Integer> getter) {
+    return add((stmt, index, entity) -> {
+      Integer value = getter.apply(entity);
+
+      if(Objects.isNull(value)) {
+        stmt.setNull(index, Types.INTEGER);
+      }
+      else {
+        stmt.setInt(index, value);
+      }
+    });
+  }
+
+  public EntityBinder<E> longValue(Function<E, Long> getter) {
+    return add((stmt, index, entity) -> {
+      Long value = getter.apply(entity);
+
+      if(Objects.isNull(value)) {
+        stmt.setNull(index, Types.BIGINT);
+      }
+      else {
+        stmt.setLong(index, value);
+      }
+    });
+  }
+
+  public EntityBinder<E> decimal(Function<E, BigDecimal> getter) {
+    return add((stmt, index, entity) -> {
+      BigDecimal value = getter.apply(entity);
+
+      if(Objects.isNull(value)) {
+        stmt.setNull(index, Types.DECIMAL);
+      }
+      else {
+        stmt.setBigDecimal(index, value);
+      }
+    });
+  }
+
+  public EntityBinder<E> bool(Function<E, Boolean> getter) {
+    return add((stmt, index, entity) -> {
+      Boolean value = getter.apply(entity);
+
+      if(Objects.isNull(value)) {
+        stmt.setNull(index, Types.BOOLEAN);
+      }
+      else {
+        stmt.setBoolean(index, value);
+      }
+    });
+  }
+
+  public EntityBinder<E> date(Function<E, LocalDate> getter) {
+    return add((stmt, index, entity) -> ParameterType.DATE.bind(stmt, index, getter.apply(entity)));
+  }
+
+  public EntityBinder<E> dateTime(Function<E, LocalDateTime> getter) {
+    return add(
+        (stmt, index, entity) -> ParameterType.DATE_TIME.bind(stmt, index, getter.apply(entity)));
+  }
+
+  public EntityBinder<E> bytes(Function<E, byte[]> getter) {
+    return add((stmt, index, entity) -> {
+      byte[] value = getter.apply(entity);
+
+      if(Objects.isNull(value)) {
+        stmt.setNull(index, Types.VARBINARY);
+      }
+      else {
+        stmt.setBytes(index, value);
+      }
+    });
+  }
+
+  /**
+   * @return The number of parameters this binder sets.
+   */
+  public int size() {
+    return setters.size();
+  }
+
+  /**
+   * Binds the entity to parameters 1 to {@link #size()}.
+   *
+   * @param stmt The prepared statement.
+   * @param entity The entity.
+   * @throws SQLException Thrown if an error occurs.
+   */
+  public void bind(PreparedStatement stmt, E entity) throws SQLException {
+    bind(stmt, 1, entity);
+  }
+
+  /**
+   * Binds the entity starting at the given parameter index.
+   *
+   * @param stmt The prepared statement.
+   * @param firstIndex The one-based index of the first parameter.
+   * @param entity The entity.
+   * @return The index of the parameter after the last one bound.
+   * @throws SQLException Thrown if an error occurs.
+   */
+  public int bind(PreparedStatement stmt, int firstIndex, E entity) throws SQLException {
+    int index = firstIndex;
+
+    for(Setter<E> setter : setters) {
+      setter.set(stmt, index++, entity);
+    }
+
+    return index;
+  }
+
+  /**
+   * Binds each entity and adds it to the statement's batch.
+   *
+   * @param stmt The prepared statement.
+   * @param entities The entities.
+   * @return The number of rows added to the batch.
+   * @throws SQLException Thrown if an error occurs.
+   */
+  public int addBatch(PreparedStatement stmt, Iterable<? extends E> entities) throws SQLException {
+    int rows = 0;
+
+    for(E entity : entities) {
+      bind(stmt, 1, entity);
+      stmt.addBatch();
+      rows++;
+    }
+
+    return rows;
+  }
+
+  private EntityBinder<E> add(Setter<E> setter) {
+    setters.add(setter);
+    return this;
+  }
+
+  /**
+   * Sets one parameter from an entity.
+   */
+  @FunctionalInterface
+  private interface Setter<E> {
+    void set(PreparedStatement stmt, int index, E entity) throws SQLException;
+  }
+}
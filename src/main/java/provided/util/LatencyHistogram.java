@@ -0,0 +1,131 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets in the style of HdrHistogram. Each power of
+ * two is split into 16 linear sub-buckets, so a recorded value is reported within about 6% of its
+ * true value. Values from 1ns up to about 18 minutes are tracked; larger values land in the last
+ * bucket. Recording is a few adds with no allocation, so it is safe to call on every operation.
+ *
+ * @author Promineo
+ *
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 40;
+  private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+
+  private final AtomicLongArray counts =
+      new AtomicLongArray((MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+  /**
+   * Records one value.
+   *
+   * @param nanos The latency in nanoseconds. Negative values are recorded as zero.
+   */
+  public void record(long nanos) {
+    long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+
+    counts.incrementAndGet(indexOf(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * @return The number of values recorded.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * @param unit The unit of the result.
+   * @return The mean of the recorded values, or zero if nothing was recorded.
+   */
+  public double getMean(TimeUnit unit) {
+    long n = count.sum();
+    return n == 0 ? 0 : (double)sum.sum() / n / unit.toNanos(1);
+  }
+
+  /**
+   * @param unit The unit of the result.
+   * @return The largest recorded value.
+   */
+  public double getMax(TimeUnit unit) {
+    return (double)max.get() / unit.toNanos(1);
+  }
+
+  /**
+   * Returns the value at or below which the given percentage of the recorded values fall. The
+   * result is the upper edge of the bucket holding that value, capped at the recorded maximum.
+   *
+   * @param percentile The percentile, from 0 to 100.
+   * @param unit The unit of the result.
+   * @return The value, or zero if nothing was recorded.
+   */
+  public double getPercentile(double percentile, TimeUnit unit) {
+    long total = count.sum();
+
+    if(total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long)Math.ceil(total * Math.min(percentile, 100) / 100));
+    long seen = 0;
+
+    for(int index = 0; index < counts.length(); index++) {
+      seen += counts.get(index);
+
+      if(seen >= rank) {
+        return (double)Math.min(highestValueOf(index), max.get()) / unit.toNanos(1);
+      }
+    }
+
+    return getMax(unit);
+  }
+
+  /**
+   * Clears all recorded values. Values recorded while the reset runs may be partly kept.
+   */
+  public void reset() {
+    for(int index = 0; index < counts.length(); index++) {
+      counts.set(index, 0);
+    }
+
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+
+  private static int indexOf(long value) {
+    if(value < SUB_BUCKETS) {
+      return (int)value;
+    }
+
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int)((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  private static long highestValueOf(int index) {
+    if(index < SUB_BUCKETS) {
+      return index;
+    }
+
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+
+    return lowest + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,179 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency histograms and counters for one DAO operation, such as "insertProject". Instances
+ * are created and registered with JMX by {@link DaoMetrics}.
+ *
+ * @author Promineo
+ *
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+  /**
+   * The phases of an operation. TOTAL runs from borrowing the connection to closing it.
+   */
+  public enum Phase {
+    ACQUIRE, EXECUTE, MAP, COMMIT, TOTAL;
+  }
+
+  private static final double[] PERCENTILES = {50, 90, 99};
+
+  private final String operation;
+  private final Map<Phase, LatencyHistogram> latencies = new EnumMap<>(Phase.class);
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder rollbacks = new LongAdder();
+  private final LongAdder rowsRead = new LongAdder();
+  private final LongAdder rowsWritten = new LongAdder();
+
+  OperationMetrics(String operation) {
+    this.operation = operation;
+
+    for(Phase phase : Phase.values()) {
+      latencies.put(phase, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * Records the time taken by one phase.
+   *
+   * @param phase The phase.
+   * @param nanos The time in nanoseconds.
+   */
+  public void record(Phase phase, long nanos) {
+    latencies.get(phase).record(nanos);
+  }
+
+  public LatencyHistogram getLatency(Phase phase) {
+    return latencies.get(phase);
+  }
+
+  void recordCall() {
+    calls.increment();
+  }
+
+  void recordError() {
+    errors.increment();
+  }
+
+  void recordRollback() {
+    rollbacks.increment();
+  }
+
+  void recordRowsRead(long rows) {
+    rowsRead.add(rows);
+  }
+
+  void recordRowsWritten(long rows) {
+    rowsWritten.add(rows);
+  }
+
+  @Override
+  public String getOperation() {
+    return operation;
+  }
+
+  @Override
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getRollbacks() {
+    return rollbacks.sum();
+  }
+
+  @Override
+  public long getRowsRead() {
+    return rowsRead.sum();
+  }
+
+  @Override
+  public long getRowsWritten() {
+    return rowsWritten.sum();
+  }
+
+  @Override
+  public Map<String, Long> getPhaseCounts() {
+    Map<String, Long> phaseCounts = new LinkedHashMap<>();
+
+    for(Phase phase : Phase.values()) {
+      phaseCounts.put(phaseName(phase), latencies.get(phase).getCount());
+    }
+
+    return phaseCounts;
+  }
+
+  @Override
+  public Map<String, Double> getLatencyMicros() {
+    Map<String, Double> micros = new LinkedHashMap<>();
+
+    for(Phase phase : Phase.values()) {
+      LatencyHistogram histogram = latencies.get(phase);
+      String name = phaseName(phase);
+
+      micros.put(name + ".mean", histogram.getMean(TimeUnit.MICROSECONDS));
+
+      for(double percentile : PERCENTILES) {
+        micros.put(name + ".p" + (int)percentile,
+            histogram.getPercentile(percentile, TimeUnit.MICROSECONDS));
+      }
+
+      micros.put(name + ".max", histogram.getMax(TimeUnit.MICROSECONDS));
+    }
+
+    return micros;
+  }
+
+  /**
+   * Appends a text report of this operation. Phases that were never recorded are left out.
+   *
+   * @param report The report being built.
+   */
+  void appendTo(StringBuilder report) {
+    report.append(String.format(Locale.ROOT,
+        "%s calls=%d errors=%d rollbacks=%d rowsRead=%d rowsWritten=%d%n", operation, getCalls(),
+        getErrors(), getRollbacks(), getRowsRead(), getRowsWritten()));
+
+    for(Phase phase : Phase.values()) {
+      LatencyHistogram histogram = latencies.get(phase);
+
+      if(histogram.getCount() > 0) {
+        report.append(String.format(Locale.ROOT,
+            "  %-8s count=%-8d mean=%-10.1f p50=%-10.1f p90=%-10.1f p99=%-10.1f max=%.1f%n",
+            phaseName(phase), histogram.getCount(), histogram.getMean(TimeUnit.MICROSECONDS),
+            histogram.getPercentile(50, TimeUnit.MICROSECONDS),
+            histogram.getPercentile(90, TimeUnit.MICROSECONDS),
+            histogram.getPercentile(99, TimeUnit.MICROSECONDS),
+            histogram.getMax(TimeUnit.MICROSECONDS)));
+      }
+    }
+  }
+
+  void reset() {
+    latencies.values().forEach(LatencyHistogram::reset);
+    calls.reset();
+    errors.reset();
+    rollbacks.reset();
+    rowsRead.reset();
+    rowsWritten.reset();
+  }
+
+  private static String phaseName(Phase phase) {
+    return phase.name().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,31 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the metrics for one DAO operation. Latencies are in microseconds and are keyed
+ * by phase and statistic, for example "execute.p99".
+ *
+ * @author Promineo
+ *
+ */
+public interface OperationMetricsMXBean {
+  String getOperation();
+
+  long getCalls();
+
+  long getErrors();
+
+  long getRollbacks();
+
+  long getRowsRead();
+
+  long getRowsWritten();
+
+  Map<String, Long> getPhaseCounts();
+
+  Map<String, Double> getLatencyMicros();
+}
@@ -0,0 +1,28 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * A data source that can send read-only work to a different server than writes, such as a replica.
+ * {@link DataSource#getConnection()} is used for writes. DAO methods that only read borrow their
+ * connection with {@link DaoBase#getReadConnection(String)}, which calls
+ * {@link #getReadConnection()} when the DAO's data source implements this interface.
+ *
+ * @author Promineo
+ *
+ */
+public interface ReadWriteDataSource extends DataSource {
+  /**
+   * Borrows a connection for read-only work. What it reads may lag behind recent writes.
+   *
+   * @return A connection. The caller must close it, preferably with try-with-resources.
+   * @throws SQLException Thrown if a connection cannot be obtained.
+   */
+  Connection getReadConnection() throws SQLException;
+}
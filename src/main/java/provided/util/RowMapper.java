@@ -0,0 +1,277 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compiled mapper from one result set shape to one entity class. The mapper is built once for
+ * each class and set of column labels, and then reused for every row with that shape.
+ *
+ * When the mapper is built:
+ * <ol>
+ * <li>The column labels are read from {@link ResultSetMetaData} and matched to the snake case form
+ * of each field name. Fields without a matching column (like child lists) are skipped, so no
+ * exceptions are used to detect missing columns.</li>
+ * <li>Each matched field gets a {@link MethodHandle} setter and a column index.</li>
+ * </ol>
+ *
+ * Mapping a row is then a constructor call plus one getObject/setter pair per matched column.
+ * Entities that implement {@link ChangeTracked} are marked clean once they are populated.
+ *
+ * @author Promineo
+ *
+ * @param <T> The entity type produced by this mapper.
+ */
+public final class RowMapper<T> {
+  /**
+   * These types are fetched with {@link ResultSet#getObject(int, Class)} so that the driver does the
+   * conversion (INT to Integer, BIGINT to Long, etc.).
+   */
+  private static final Set<Class<?>> DIRECT_TYPES = Set.of(Integer.class, Long.class, String.class,
+      BigDecimal.class, Double.class, Boolean.class, LocalDate.class, LocalTime.class,
+      LocalDateTime.class, byte[].class);
+
+  private static final Map<Class<?>, ClassModel> CLASS_MODELS = new ConcurrentHashMap<>();
+
+  private final String typeName;
+  private final MethodHandle constructor;
+  private final int[] columns;
+  private final Class<?>[] types;
+  private final boolean[] direct;
+  private final MethodHandle[] setters;
+  private final boolean changeTracked;
+
+  private RowMapper(String typeName, MethodHandle constructor, int[] columns, Class<?>[] types,
+      boolean[] direct, MethodHandle[] setters, boolean changeTracked) {
+    this.typeName = typeName;
+    this.constructor = constructor;
+    this.columns = columns;
+    this.types = types;
+    this.direct = direct;
+    this.setters = setters;
+    this.changeTracked = changeTracked;
+  }
+
+  /**
+   * Returns the mapper for the given class and the shape of the given result set. The mapper is
+   * cached, so this is a map lookup after the first call for a shape.
+   *
+   * @param <T> The entity type.
+   * @param rs The result set. Only its metadata is read.
+   * @param classType The entity class. It must have a zero-argument constructor.
+   * @return The mapper.
+   * @throws SQLException Thrown if the metadata cannot be read.
+   */
+  public static <T> RowMapper<T> forResultSet(ResultSet rs, Class<T> classType)
+      throws SQLException {
+    ResultSetMetaData meta = rs.getMetaData();
+    int count = meta.getColumnCount();
+    String[] labels = new String[count];
+
+    for(int col = 1; col <= count; col++) {
+      labels[col - 1] = meta.getColumnLabel(col).toLowerCase(Locale.ROOT);
+    }
+
+    ClassModel model = CLASS_MODELS.computeIfAbsent(classType, ClassModel::new);
+
+    @SuppressWarnings("unchecked")
+    RowMapper<T> mapper = (RowMapper<T>)model.mappers
+        .computeIfAbsent(String.join(",", labels), key -> model.compile(labels));
+
+    return mapper;
+  }
+
+  /**
+   * Creates an object from the current row. The result set must be positioned on the row by the
+   * caller. Fields whose column is null are left with their initial value.
+   *
+   * @param rs The result set.
+   * @return The populated object.
+   */
+  public T map(ResultSet rs) {
+    OperationMetrics metrics = DaoMetrics.isEnabled() ? DaoMetrics.current() : null;
+
+    if(Objects.isNull(metrics)) {
+      return mapRow(rs);
+    }
+
+    long start = System.nanoTime();
+
+    try {
+      return mapRow(rs);
+    }
+    finally {
+      metrics.record(OperationMetrics.Phase.MAP, System.nanoTime() - start);
+      metrics.recordRowsRead(1);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T mapRow(ResultSet rs) {
+    try {
+      Object obj = constructor.invokeExact();
+
+      for(int i = 0; i < columns.length; i++) {
+        Object value = direct[i] ? rs.getObject(columns[i], types[i]) : rs.getObject(columns[i]);
+
+        if(Objects.nonNull(value)) {
+          if(!direct[i]) {
+            value = convert(value, types[i]);
+          }
+
+          setters[i].invokeExact(obj, value);
+        }
+      }
+
+      if(changeTracked) {
+        ((ChangeTracked)obj).markClean();
+      }
+
+      return (T)obj;
+    }
+    catch(Throwable e) {
+      throw new DaoBase.DaoException("Unable to create object of type " + typeName, e);
+    }
+  }
+
+  /**
+   * Applies the legacy conversions for drivers that return java.sql date/time types.
+   */
+  private static Object convert(Object value, Class<?> fieldType) {
+    if(value instanceof Time && fieldType.equals(LocalTime.class)) {
+      return ((Time)value).toLocalTime();
+    }
+
+    if(value instanceof Timestamp && fieldType.equals(LocalDateTime.class)) {
+      return ((Timestamp)value).toLocalDateTime();
+    }
+
+    return value;
+  }
+
+  /**
+   * This converts a camel case value (rowInsertTime) to snake case (row_insert_time).
+   */
+  static String camelCaseToSnakeCase(String identifier) {
+    StringBuilder nameBuilder = new StringBuilder(identifier.length() + 4);
+
+    for(char ch : identifier.toCharArray()) {
+      if(Character.isUpperCase(ch)) {
+        nameBuilder.append('_').append(Character.toLowerCase(ch));
+      }
+      else {
+        nameBuilder.append(ch);
+      }
+    }
+
+    return nameBuilder.toString();
+  }
+
+  /**
+   * The reflective information for one class. This is computed once per class and shared by all
+   * the mappers for that class.
+   */
+  private static final class ClassModel {
+    private final String typeName;
+    private final MethodHandle constructor;
+    private final boolean changeTracked;
+    private final List<Field> fields = new ArrayList<>();
+    private final List<String> columnNames = new ArrayList<>();
+    private final List<MethodHandle> setters = new ArrayList<>();
+    private final Map<String, RowMapper<?>> mappers = new ConcurrentHashMap<>();
+
+    ClassModel(Class<?> classType) {
+      typeName = classType.getName();
+      changeTracked = ChangeTracked.class.isAssignableFrom(classType);
+
+      try {
+        MethodHandles.Lookup lookup =
+            MethodHandles.privateLookupIn(classType, MethodHandles.lookup());
+
+        constructor = lookup.findConstructor(classType, MethodType.methodType(void.class))
+            .asType(MethodType.methodType(Object.class));
+
+        for(Field field : classType.getDeclaredFields()) {
+          int modifiers = field.getModifiers();
+
+          if(Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+            continue;
+          }
+
+          fields.add(field);
+          columnNames.add(camelCaseToSnakeCase(field.getName()));
+          setters.add(lookup.unreflectSetter(field)
+              .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+        }
+      }
+      catch(ReflectiveOperationException e) {
+        throw new DaoBase.DaoException("Unable to create a row mapper for " + classType.getName(),
+            e);
+      }
+    }
+
+    RowMapper<?> compile(String[] labels) {
+      List<Integer> matched = new ArrayList<>();
+
+      for(int i = 0; i < fields.size(); i++) {
+        if(indexOf(labels, columnNames.get(i)) > 0) {
+          matched.add(i);
+        }
+      }
+
+      int size = matched.size();
+      int[] columns = new int[size];
+      Class<?>[] types = new Class<?>[size];
+      boolean[] direct = new boolean[size];
+      MethodHandle[] handles = new MethodHandle[size];
+
+      for(int i = 0; i < size; i++) {
+        int fieldIndex = matched.get(i);
+        Class<?> fieldType = fields.get(fieldIndex).getType();
+
+        columns[i] = indexOf(labels, columnNames.get(fieldIndex));
+        types[i] = fieldType;
+        direct[i] = DIRECT_TYPES.contains(fieldType);
+        handles[i] = setters.get(fieldIndex);
+      }
+
+      return new RowMapper<>(typeName, constructor, columns, types, direct, handles,
+          changeTracked);
+    }
+
+    /**
+     * Returns the one-based column index for the name or zero if the column is not present.
+     */
+    private static int indexOf(String[] labels, String name) {
+      for(int i = 0; i < labels.length; i++) {
+        if(labels[i].equals(name)) {
+          return i + 1;
+        }
+      }
+
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+/**
+ * Holds one connection for a run of DAO calls on the current thread. While it is open,
+ * {@link DaoBase#getConnection(String)} hands out this connection instead of borrowing a new one
+ * from the pool, and closing it in the DAO does nothing. This saves a pool round trip per call when
+ * a single thread makes many calls in a row, as a batch run does.
+ *
+ * A group transaction can be started with {@link #beginGroup()}. Until the group is committed or
+ * rolled back, {@link DaoBase#commitTransaction(Connection)} leaves the changes uncommitted, so the
+ * DAO calls in the group are committed together. A DAO call that rolls back its own transaction
+ * rolls back the whole group.
+ *
+ * A connection opened with {@link #openSession(DataSource)} may have its session state changed by
+ * the statements run on it, so it is aborted on close instead of being returned to the pool.
+ *
+ * @author Promineo
+ *
+ */
+public final class SharedConnection implements AutoCloseable {
+  private static final ThreadLocal<SharedConnection> CURRENT = new ThreadLocal<>();
+
+  private final Connection conn;
+  private final Connection view;
+  private final boolean discard;
+  private boolean grouping;
+  private int groupCount;
+
+  private SharedConnection(Connection conn, boolean discard) {
+    this.conn = conn;
+    this.discard = discard;
+
+    List<Class<?>> interfaces = new ArrayList<>(List.of(Connection.class));
+
+    if(conn instanceof CachingConnection) {
+      interfaces.add(CachingConnection.class);
+    }
+
+    this.view = (Connection)Proxy.newProxyInstance(SharedConnection.class.getClassLoader(),
+        interfaces.toArray(new Class<?>[0]), new ViewHandler(conn));
+  }
+
+  /**
+   * Borrows a connection and makes it the shared connection of this thread until it is closed.
+   *
+   * @param dataSource The source of the connection, normally the pool.
+   * @return The shared connection. The caller must close it, preferably with try-with-resources.
+   * @throws SQLException Thrown if a connection cannot be obtained.
+   * @throws IllegalStateException Thrown if this thread already has a shared connection.
+   */
+  public static SharedConnection open(DataSource dataSource) throws SQLException {
+    return open(dataSource, false);
+  }
+
+  /**
+   * Borrows a connection for statements that change the session, such as SET, USE or LOCK TABLES,
+   * and makes it the shared connection of this thread until it is closed. Closing it aborts the
+   * connection, so no later borrower from the pool inherits the changed session.
+   *
+   * @param dataSource The source of the connection, normally the pool.
+   * @return The shared connection. The caller must close it, preferably with try-with-resources.
+   * @throws SQLException Thrown if a connection cannot be obtained.
+   * @throws IllegalStateException Thrown if this thread already has a shared connection.
+   */
+  public static SharedConnection openSession(DataSource dataSource) throws SQLException {
+    return open(dataSource, true);
+  }
+
+  private static SharedConnection open(DataSource dataSource, boolean discard) throws SQLException {
+    if(Objects.nonNull(CURRENT.get())) {
+      throw new IllegalStateException("This thread already has a shared connection.");
+    }
+
+    SharedConnection shared = new SharedConnection(dataSource.getConnection(), discard);
+    CURRENT.set(shared);
+    return shared;
+  }
+
+  /**
+   * @return The shared connection of this thread, or null if there is none.
+   */
+  static SharedConnection current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * @return The connection handed to DAO methods. Closing it does nothing.
+   */
+  Connection getView() {
+    return view;
+  }
+
+  /**
+   * Starts a group transaction. The changes of the DAO calls that follow are not committed until
+   * {@link #commitGroup()} is called.
+   *
+   * @throws SQLException Thrown if auto-commit cannot be turned off.
+   */
+  public void beginGroup() throws SQLException {
+    if(grouping) {
+      throw new IllegalStateException("A group transaction is already open.");
+    }
+
+    conn.setAutoCommit(false);
+    grouping = true;
+    groupCount++;
+  }
+
+  public boolean isGrouping() {
+    return grouping;
+  }
+
+  /**
+   * @return The number of group transactions started on this connection.
+   */
+  public int getGroupCount() {
+    return groupCount;
+  }
+
+  /**
+   * Commits the changes made since {@link #beginGroup()} by turning auto-commit back on.
+   *
+   * @throws SQLException Thrown if the commit fails. The group is over either way.
+   */
+  public void commitGroup() throws SQLException {
+    if(!grouping) {
+      return;
+    }
+
+    grouping = false;
+    conn.setAutoCommit(true);
+  }
+
+  /**
+   * Rolls back the changes made since {@link #beginGroup()}.
+   *
+   * @throws SQLException Thrown if the rollback fails. The group is over either way.
+   */
+  public void rollbackGroup() throws SQLException {
+    if(!grouping) {
+      return;
+    }
+
+    grouping = false;
+
+    try {
+      conn.rollback();
+    }
+    finally {
+      conn.setAutoCommit(true);
+    }
+  }
+
+  /**
+   * Rolls back an open group, returns the connection to the pool (or aborts it if it was opened with
+   * {@link #openSession(DataSource)}) and clears the shared connection of this thread.
+   */
+  @Override
+  public void close() throws SQLException {
+    if(CURRENT.get() == this) {
+      CURRENT.remove();
+    }
+
+    try {
+      rollbackGroup();
+    }
+    finally {
+      if(discard) {
+        conn.abort(Runnable::run);
+      }
+      else {
+        conn.close();
+      }
+    }
+  }
+
+  /**
+   * Passes every call to the shared connection except close.
+   */
+  private static final class ViewHandler implements InvocationHandler {
+    private final Connection conn;
+
+    ViewHandler(Connection conn) {
+      this.conn = conn;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch(method.getName()) {
+        case "close":
+          return null;
+
+        case "equals":
+          return proxy == args[0];
+
+        case "hashCode":
+          return System.identityHashCode(proxy);
+
+        case "toString":
+          return "shared " + conn;
+
+        default:
+          try {
+            return method.invoke(conn, args);
+          }
+          catch(InvocationTargetException e) {
+            throw e.getCause();
+          }
+      }
+    }
+  }
+}
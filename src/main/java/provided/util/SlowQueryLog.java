@@ -0,0 +1,512 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * An opt-in log of prepared statements that take longer than a threshold. A statement is timed from
+ * its first execute call until it is closed, so the time spent reading the results is included.
+ * Each entry has the SQL, the bound parameters, the row count, the execute and fetch times, the
+ * current {@link DaoMetrics} operation if there is one and the calling method.
+ *
+ * Parameters are captured from the set methods of the statement, so values bound by
+ * {@link DaoBase#setParameter(PreparedStatement, int, Object, Class)} and by {@link EntityBinder}
+ * are both seen. Values bound to a redacted column are logged as &lt;redacted&gt;, and long values
+ * are cut short.
+ *
+ * Entries are handed to a bounded buffer and written by a daemon thread. If the buffer is full the
+ * entry is dropped and counted, so logging never blocks the thread running the statement. An entry
+ * always goes to the buffer of the current settings, even from a statement that started before the
+ * log was configured again.
+ *
+ * @author Promineo
+ *
+ */
+public final class SlowQueryLog {
+  private static final String REDACTED = "<redacted>";
+  private static final Set<String> OPERATORS = Set.of("in", "like", "not", "is", "and", "or");
+
+  private static final LongAdder LOGGED = new LongAdder();
+  private static final LongAdder DROPPED = new LongAdder();
+  private static final Map<String, String[]> PARAMETER_COLUMNS = new ConcurrentHashMap<>();
+
+  /* Held while an entry is offered and while the settings are swapped. */
+  private static final Object OFFER_LOCK = new Object();
+
+  private static volatile Settings settings;
+  private static volatile Consumer<String> sink = System.err::println;
+  private static Thread writer;
+
+  private SlowQueryLog() {}
+
+  /**
+   * Turns the log on or off. This may be called more than once. The new settings are swapped in
+   * first, so no entry is offered to the old buffer afterwards, and the old writer then writes what
+   * is left in the old buffer before it stops.
+   *
+   * @param thresholdMillis Statements taking at least this long are logged. A negative value turns
+   *        the log off.
+   * @param capacity The number of entries the buffer holds before new ones are dropped.
+   * @param redactedColumns Columns whose bound values are never logged. Case is ignored.
+   * @param maxValueLength Longer parameter values are cut to this length.
+   * @param callerPackage The package of the classes reported as the caller, for example
+   *        "projects.service". The first method of that package on the stack is logged.
+   */
+  public static synchronized void configure(long thresholdMillis, int capacity,
+      Collection<String> redactedColumns, int maxValueLength, String callerPackage) {
+    Thread oldWriter = writer;
+    Settings next = null;
+    writer = null;
+
+    if(thresholdMillis >= 0) {
+      Set<String> redacted = redactedColumns.stream().map(column -> column.trim().toLowerCase(Locale.ROOT))
+          .filter(column -> !column.isEmpty()).collect(Collectors.toUnmodifiableSet());
+      BlockingQueue<Entry> buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+
+      writer = new Thread(new Writer(buffer), "slow-query-log");
+      writer.setDaemon(true);
+      writer.start();
+
+      next = new Settings(thresholdMillis * 1_000_000, redacted, Math.max(8, maxValueLength),
+          callerPackage + ".", buffer);
+    }
+
+    synchronized(OFFER_LOCK) {
+      settings = next;
+    }
+
+    if(Objects.nonNull(oldWriter)) {
+      oldWriter.interrupt();
+    }
+  }
+
+  public static boolean isEnabled() {
+    return Objects.nonNull(settings);
+  }
+
+  /**
+   * Replaces where entries are written. The default is System.err.
+   *
+   * @param entrySink Receives each formatted entry on the writer thread.
+   */
+  public static void setSink(Consumer<String> entrySink) {
+    sink = Objects.requireNonNull(entrySink);
+  }
+
+  /**
+   * @return The number of entries written.
+   */
+  public static long getLoggedCount() {
+    return LOGGED.sum();
+  }
+
+  /**
+   * @return The number of entries dropped because the buffer was full, or because the log was
+   *         turned off while their statements ran.
+   */
+  public static long getDroppedCount() {
+    return DROPPED.sum();
+  }
+
+  /**
+   * Wraps a prepared statement so that it is logged if it is slow. Only called when the log is on.
+   */
+  static PreparedStatement instrument(PreparedStatement stmt, String sql) {
+    return (PreparedStatement)Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(),
+        new Class<?>[] {PreparedStatement.class}, new StatementHandler(stmt, sql, settings));
+  }
+
+  /**
+   * Hands an entry to the buffer of the current settings. The lock keeps configure from swapping the
+   * buffer between reading the settings and the offer, which would leave the entry in a buffer whose
+   * writer has stopped.
+   */
+  private static void offer(Entry entry) {
+    synchronized(OFFER_LOCK) {
+      Settings current = settings;
+
+      if(Objects.isNull(current) || !current.buffer().offer(entry)) {
+        DROPPED.increment();
+      }
+    }
+  }
+
+  /**
+   * Returns the column each parameter of the SQL is bound to, or null where it cannot be told. For
+   * an INSERT the parameters in the VALUES list follow the column list. Elsewhere a parameter
+   * belongs to the identifier before it, as in "project_id = ?" or "notes LIKE ?".
+   */
+  static String[] parameterColumns(String sql) {
+    return PARAMETER_COLUMNS.computeIfAbsent(sql, SlowQueryLog::findParameterColumns);
+  }
+
+  private static String[] findParameterColumns(String sql) {
+    List<String> tokens = tokenize(sql);
+    List<String> columns = new ArrayList<>();
+    List<String> insertColumns = new ArrayList<>();
+    boolean insert = !tokens.isEmpty() && tokens.get(0).equals("insert");
+    boolean inColumnList = false;
+    boolean inValues = false;
+    int valuePosition = 0;
+    String lastIdentifier = null;
+
+    for(String token : tokens) {
+      if(insert && token.equals("(") && !inValues && insertColumns.isEmpty()) {
+        inColumnList = true;
+      }
+      else if(inColumnList && token.equals(")")) {
+        inColumnList = false;
+      }
+      else if(inColumnList && isIdentifier(token)) {
+        insertColumns.add(token);
+      }
+      else if(insert && token.equals("values")) {
+        inValues = true;
+      }
+      else if(inValues && token.equals("(")) {
+        valuePosition = 0;
+      }
+      else if(inValues && token.equals(",")) {
+        valuePosition++;
+      }
+      else if(token.equals("?")) {
+        if(inValues && !insertColumns.isEmpty()) {
+          columns.add(insertColumns.get(valuePosition % insertColumns.size()));
+        }
+        else {
+          columns.add(lastIdentifier);
+        }
+      }
+      else if(isIdentifier(token) && !OPERATORS.contains(token)) {
+        lastIdentifier = token;
+      }
+    }
+
+    return columns.toArray(new String[0]);
+  }
+
+  /**
+   * Splits SQL into lower case identifiers (without any table qualifier), punctuation and "?".
+   * Quoted strings are skipped.
+   */
+  private static List<String> tokenize(String sql) {
+    List<String> tokens = new ArrayList<>();
+    int pos = 0;
+
+    while(pos < sql.length()) {
+      char ch = sql.charAt(pos);
+
+      if(ch == '\'' || ch == '"') {
+        int end = sql.indexOf(ch, pos + 1);
+        pos = end < 0 ? sql.length() : end + 1;
+      }
+      else if(Character.isLetter(ch) || ch == '_' || ch == '`') {
+        int start = pos;
+
+        while(pos < sql.length() && (Character.isLetterOrDigit(sql.charAt(pos))
+            || "_`.".indexOf(sql.charAt(pos)) >= 0)) {
+          pos++;
+        }
+
+        String word = sql.substring(start, pos).replace("`", "").toLowerCase(Locale.ROOT);
+        tokens.add(word.substring(word.lastIndexOf('.') + 1));
+      }
+      else {
+        if(!Character.isWhitespace(ch)) {
+          tokens.add(String.valueOf(ch));
+        }
+
+        pos++;
+      }
+    }
+
+    return tokens;
+  }
+
+  private static boolean isIdentifier(String token) {
+    return !token.isEmpty() && (Character.isLetter(token.charAt(0)) || token.charAt(0) == '_');
+  }
+
+  /**
+   * Returns the first method on the stack whose class is in the caller package, for example
+   * "ProjectService.fetchProjectById".
+   */
+  private static String findCaller(String callerPackage) {
+    Optional<String> caller = StackWalker.getInstance().walk(frames -> frames
+        .filter(frame -> frame.getClassName().startsWith(callerPackage))
+        .map(frame -> frame.getClassName().substring(callerPackage.length()) + "."
+            + frame.getMethodName())
+        .findFirst());
+
+    return caller.orElse("-");
+  }
+
+  private record Settings(long thresholdNanos, Set<String> redactedColumns, int maxValueLength,
+      String callerPackage, BlockingQueue<Entry> buffer) {}
+
+  /**
+   * One slow statement. The parameters are already redacted and turned into strings.
+   */
+  private record Entry(long totalNanos, long executeNanos, long fetchNanos, long rows, int batches,
+      String operation, String caller, String sql, Map<Integer, String> parameters) {
+
+    String format() {
+      StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+          "SLOW QUERY %.1fms (execute=%.1fms fetch=%.1fms) rows=%d", totalNanos / 1e6,
+          executeNanos / 1e6, fetchNanos / 1e6, rows));
+
+      if(batches > 0) {
+        line.append(" batch=").append(batches);
+      }
+
+      line.append(" operation=").append(Objects.requireNonNullElse(operation, "-"));
+      line.append(" caller=").append(caller);
+      line.append(" sql=[").append(sql).append(']');
+      line.append(" params=").append(parameters);
+
+      return line.toString();
+    }
+  }
+
+  /**
+   * Writes entries from the buffer until it is interrupted and the buffer is empty.
+   */
+  private static final class Writer implements Runnable {
+    private final BlockingQueue<Entry> entries;
+
+    Writer(BlockingQueue<Entry> entries) {
+      this.entries = entries;
+    }
+
+    @Override
+    public void run() {
+      boolean running = true;
+
+      while(running || !entries.isEmpty()) {
+        try {
+          Entry entry = running ? entries.take() : entries.poll();
+
+          if(Objects.nonNull(entry)) {
+            sink.accept(entry.format());
+            LOGGED.increment();
+          }
+        }
+        catch(InterruptedException e) {
+          running = false;
+        }
+        catch(RuntimeException e) {
+          System.err.println("Slow query log: unable to write entry: " + e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Captures the parameters of one statement and times it from the first execute until close.
+   */
+  private static final class StatementHandler implements InvocationHandler {
+    private final PreparedStatement stmt;
+    private final String sql;
+    private final Settings settings;
+    private final Map<Integer, Object> parameters = new TreeMap<>();
+    private Map<Integer, Object> firstBatchRow;
+    private int batches;
+    private long started;
+    private long executed;
+    private long executeNanos;
+    private long rows;
+
+    StatementHandler(PreparedStatement stmt, String sql, Settings settings) {
+      this.stmt = stmt;
+      this.sql = sql;
+      this.settings = settings;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+
+      if(name.startsWith("set") && Objects.nonNull(args) && args.length >= 2
+          && args[0] instanceof Integer) {
+        parameters.put((Integer)args[0], name.equals("setNull") ? null : args[1]);
+      }
+
+      switch(name) {
+        case "clearParameters":
+          parameters.clear();
+          break;
+
+        case "addBatch":
+          if(batches++ == 0) {
+            firstBatchRow = new TreeMap<>(parameters);
+          }
+          break;
+
+        case "close":
+          try {
+            return invokeTarget(method, args);
+          }
+          finally {
+            finish();
+          }
+
+        case "equals":
+          return proxy == args[0];
+
+        case "hashCode":
+          return System.identityHashCode(proxy);
+
+        default:
+          break;
+      }
+
+      if(!name.startsWith("execute")) {
+        Object result = invokeTarget(method, args);
+        return result instanceof ResultSet ? countingResultSet((ResultSet)result) : result;
+      }
+
+      finish();
+
+      long start = System.nanoTime();
+      started = start;
+
+      try {
+        Object result = invokeTarget(method, args);
+        rows += DaoMetrics.countRows(result);
+        return result instanceof ResultSet ? countingResultSet((ResultSet)result) : result;
+      }
+      finally {
+        executed = System.nanoTime();
+        executeNanos = executed - start;
+      }
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+      try {
+        return method.invoke(stmt, args);
+      }
+      catch(InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+
+    /**
+     * Logs the last execution if it was slow and starts over.
+     */
+    private void finish() {
+      if(started == 0) {
+        return;
+      }
+
+      long total = System.nanoTime() - started;
+
+      if(total >= settings.thresholdNanos()) {
+        OperationMetrics operation = DaoMetrics.current();
+        Entry entry = new Entry(total, executeNanos, total - executeNanos, rows, batches,
+            Objects.isNull(operation) ? null : operation.getOperation(),
+            findCaller(settings.callerPackage()), sql,
+            redact(batches > 0 ? firstBatchRow : parameters));
+
+        offer(entry);
+      }
+
+      started = 0;
+      rows = 0;
+      batches = 0;
+      firstBatchRow = null;
+    }
+
+    private Map<Integer, String> redact(Map<Integer, Object> values) {
+      Map<Integer, String> redacted = new TreeMap<>();
+      String[] columns = parameterColumns(sql);
+
+      for(Map.Entry<Integer, Object> parameter : values.entrySet()) {
+        int index = parameter.getKey();
+        String column = index <= columns.length ? columns[index - 1] : null;
+        Object value = parameter.getValue();
+        String text;
+
+        if(Objects.nonNull(column) && settings.redactedColumns().contains(column)) {
+          text = REDACTED;
+        }
+        else if(Objects.isNull(value)) {
+          text = "NULL";
+        }
+        else if(value instanceof byte[]) {
+          text = "<" + ((byte[])value).length + " bytes>";
+        }
+        else {
+          text = String.valueOf(value);
+
+          if(text.length() > settings.maxValueLength()) {
+            text = text.substring(0, settings.maxValueLength()) + "...";
+          }
+
+          if(value instanceof CharSequence) {
+            text = "'" + text + "'";
+          }
+        }
+
+        redacted.put(index, text);
+      }
+
+      return redacted;
+    }
+
+    /**
+     * Wraps a result set so the rows read from it are counted.
+     */
+    private ResultSet countingResultSet(ResultSet rs) {
+      return (ResultSet)Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(),
+          new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+            switch(method.getName()) {
+              case "equals":
+                return proxy == args[0];
+
+              case "hashCode":
+                return System.identityHashCode(proxy);
+
+              default:
+                break;
+            }
+
+            Object result;
+
+            try {
+              result = method.invoke(rs, args);
+            }
+            catch(InvocationTargetException e) {
+              throw e.getCause();
+            }
+
+            if(method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+              rows++;
+            }
+
+            return result;
+          });
+    }
+  }
+}
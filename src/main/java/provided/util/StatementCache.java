@@ -0,0 +1,234 @@
+/**
+ *
+ */
+package provided.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A least recently used cache of prepared statements for one physical connection. A connection pool
+ * creates one of these for each connection it opens and exposes it through
+ * {@link CachingConnection}. {@link DaoBase#prepare(Connection, String)} uses it so that the same
+ * SQL is only parsed and prepared once per connection.
+ *
+ * Statements handed out by the cache are wrappers. Closing the wrapper clears the parameters and
+ * returns the statement to the cache instead of closing it. If the same SQL is already in use on
+ * the connection (for example in a nested loop), an ordinary uncached statement is returned.
+ *
+ * The hit and miss counts are shared by all the caches so that the overall hit rate can be
+ * reported.
+ *
+ * The cache is guarded by a lock rather than a monitor because statements are prepared and closed
+ * while it is held, and a virtual thread blocked inside synchronized code would pin its carrier.
+ *
+ * @author Promineo
+ *
+ */
+public class StatementCache {
+  private static final LongAdder HITS = new LongAdder();
+  private static final LongAdder MISSES = new LongAdder();
+  private static final LongAdder EVICTIONS = new LongAdder();
+
+  private final int maxSize;
+  private final Map<String, CachedStatement> statements;
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /**
+   * @param maxSize The largest number of statements kept open on the connection. Zero disables the
+   *        cache.
+   */
+  public StatementCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+        if(size() > StatementCache.this.maxSize) {
+          EVICTIONS.increment();
+          eldest.getValue().evict();
+          return true;
+        }
+
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns a ready-to-bind statement for the SQL, preparing it on the connection if it is not
+   * cached.
+   *
+   * @param conn The physical connection the cache belongs to.
+   * @param sql The SQL. It should be a constant so the cache key is the same every time.
+   * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or
+   *        {@link Statement#NO_GENERATED_KEYS}.
+   * @return The statement. The caller must close it.
+   * @throws SQLException Thrown if the statement cannot be prepared.
+   */
+  public PreparedStatement prepare(Connection conn, String sql, int autoGeneratedKeys)
+      throws SQLException {
+    String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+
+    lock.lock();
+
+    try {
+      CachedStatement cached = statements.get(key);
+
+      if(Objects.nonNull(cached)) {
+        if(cached.inUse) {
+          MISSES.increment();
+          return conn.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        HITS.increment();
+        cached.inUse = true;
+        return cached.proxy;
+      }
+
+      MISSES.increment();
+
+      if(maxSize <= 0) {
+        return conn.prepareStatement(sql, autoGeneratedKeys);
+      }
+
+      cached = new CachedStatement(conn.prepareStatement(sql, autoGeneratedKeys));
+      cached.inUse = true;
+      statements.put(key, cached);
+
+      return cached.proxy;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes every cached statement. This is called when the connection is closed.
+   */
+  public void close() {
+    lock.lock();
+
+    try {
+      for(CachedStatement cached : statements.values()) {
+        cached.evict();
+      }
+
+      statements.clear();
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return The number of statements served from a cache.
+   */
+  public static long getHitCount() {
+    return HITS.sum();
+  }
+
+  /**
+   * @return The number of statements that had to be prepared.
+   */
+  public static long getMissCount() {
+    return MISSES.sum();
+  }
+
+  /**
+   * @return The number of statements closed to make room for others.
+   */
+  public static long getEvictionCount() {
+    return EVICTIONS.sum();
+  }
+
+  /**
+   * @return The fraction of requests served from a cache, from 0 to 1.
+   */
+  public static double getHitRate() {
+    long hits = getHitCount();
+    long total = hits + getMissCount();
+
+    return total == 0 ? 0 : (double)hits / total;
+  }
+
+  /**
+   * One prepared statement and the wrapper handed out for it.
+   */
+  private class CachedStatement {
+    private final PreparedStatement statement;
+    private final PreparedStatement proxy;
+    private boolean inUse;
+    private boolean evicted;
+
+    CachedStatement(PreparedStatement statement) {
+      this.statement = statement;
+      this.proxy = (PreparedStatement)Proxy.newProxyInstance(
+          PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+          (proxy, method, args) -> {
+            switch(method.getName()) {
+              case "close":
+                release();
+                return null;
+
+              case "isClosed":
+                return !inUse;
+
+              default:
+                try {
+                  return method.invoke(statement, args);
+                }
+                catch(InvocationTargetException e) {
+                  throw e.getCause();
+                }
+            }
+          });
+    }
+
+    private void release() throws SQLException {
+      lock.lock();
+
+      try {
+        if(!inUse) {
+          return;
+        }
+
+        inUse = false;
+
+        if(evicted) {
+          statement.close();
+          return;
+        }
+      }
+      finally {
+        lock.unlock();
+      }
+
+      statement.clearParameters();
+      statement.clearBatch();
+    }
+
+    private void evict() {
+      evicted = true;
+
+      if(!inUse) {
+        try {
+          statement.close();
+        }
+        catch(SQLException e) {
+          /* The statement is being thrown away. */
+        }
+      }
+    }
+  }
+}
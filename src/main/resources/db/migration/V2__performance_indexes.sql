@@ -0,0 +1,16 @@
+-- Secondary indexes for the ProjectDao queries. InnoDB secondary indexes also
+-- hold the primary key, so idx_project_name covers the (project_name, project_id)
+-- keyset order and the project summary projection without reading the rows.
+--
+-- material needs no index of its own. The index InnoDB created for its
+-- project_id foreign key also holds material_id, so it already serves
+-- WHERE project_id = ? ORDER BY material_id.
+--
+-- The migrator skips a CREATE INDEX whose index already exists, so this
+-- migration can be run again after it failed part way.
+CREATE INDEX idx_project_name ON project (project_name);
+
+-- Ordered step reads for one project: WHERE project_id = ? ORDER BY step_order.
+-- The index starts with project_id, so it can enforce the foreign key, and
+-- InnoDB drops the index it created for the foreign key in its favour.
+CREATE INDEX idx_step_project_order ON step (project_id, step_order);
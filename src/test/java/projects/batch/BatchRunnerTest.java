@@ -0,0 +1,51 @@
+package projects.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * This class tests how BatchRunner splits a command line into words
+ */
+class BatchRunnerTest {
+
+	@Test
+	void splitsOnWhiteSpace() {
+		assertEquals(List.of("ADD", "Shelf", "4"), BatchRunner.split("  ADD \tShelf   4 "));
+	} // splitsOnWhiteSpace method
+
+	@Test
+	void groupsQuotedWords() {
+		assertEquals(List.of("ADD", "Garden bench", "notes=use oak"),
+				BatchRunner.split("ADD \"Garden bench\" notes=\"use oak\""));
+	} // groupsQuotedWords method
+
+	@Test
+	void keepsAnEmptyQuotedWord() {
+		assertEquals(List.of("NOTE", "", "x"), BatchRunner.split("NOTE \"\" x"));
+	} // keepsAnEmptyQuotedWord method
+
+	@Test
+	void unescapesQuotesAndBackslashesInsideQuotes() {
+		assertEquals(List.of("ADD", "say \"hi\" \\ now"), BatchRunner.split("ADD \"say \\\"hi\\\" \\\\ now\""));
+	} // unescapesQuotesAndBackslashesInsideQuotes method
+
+	@Test
+	void keepsBackslashesOutsideQuotes() {
+		assertEquals(List.of("ADD", "C:\\temp"), BatchRunner.split("ADD C:\\temp"));
+	} // keepsBackslashesOutsideQuotes method
+
+	@Test
+	void returnsNoWordsForCommentsAndBlankLines() {
+		assertEquals(List.of(), BatchRunner.split("   # ADD Shelf"));
+		assertEquals(List.of(), BatchRunner.split(" \t "));
+	} // returnsNoWordsForCommentsAndBlankLines method
+
+	@Test
+	void rejectsAnUnclosedQuote() {
+		assertThrows(IllegalArgumentException.class, () -> BatchRunner.split("ADD \"Shelf"));
+	} // rejectsAnUnclosedQuote method
+} // class BatchRunnerTest
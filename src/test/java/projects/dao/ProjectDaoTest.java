@@ -0,0 +1,117 @@
+package projects.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import projects.dao.FetchPlan.Association;
+import projects.entity.Project;
+
+/*
+ * This class tests the fetch and update statements ProjectDao builds up front. Nothing here opens a
+ * connection.
+ */
+class ProjectDaoTest {
+	private static final String FETCH_PROJECT = "SELECT * FROM project WHERE project_id = ?";
+	private static final String SNAPSHOT_START = "START TRANSACTION READ ONLY WITH CONSISTENT SNAPSHOT; ";
+	private static final String SNAPSHOT_END = "; COMMIT";
+
+	@Test
+	void fetchesOnlyTheProjectRowForNone() {
+		assertEquals(FETCH_PROJECT, ProjectDao.createFetchShapes().get(FetchPlan.NONE.mask()));
+	} // fetchesOnlyTheProjectRowForNone method
+
+	@Test
+	void buildsAFetchShapeForEveryPlan() {
+		List<String> shapes = ProjectDao.createFetchShapes();
+
+		assertEquals(1 << Association.values().length, shapes.size());
+		assertEquals(shapes.size(), shapes.stream().distinct().count());
+	} // buildsAFetchShapeForEveryPlan method
+
+	@Test
+	void runsEagerChildQueriesInOneSnapshot() {
+		String sql = ProjectDao.createFetchShapes().get(FetchPlan.of(Association.MATERIALS, Association.CATEGORIES).mask());
+
+		assertTrue(sql.startsWith(SNAPSHOT_START + FETCH_PROJECT + "; "), sql);
+		assertTrue(sql.endsWith(SNAPSHOT_END), sql);
+		assertTrue(sql.contains("FROM material"), sql);
+		assertTrue(sql.contains("FROM category"), sql);
+		assertFalse(sql.contains("FROM step"), sql);
+		assertTrue(sql.indexOf("FROM material") < sql.indexOf("FROM category"), sql);
+		assertEquals(3, parameterCount(sql));
+	} // runsEagerChildQueriesInOneSnapshot method
+
+	@Test
+	void fetchesEveryChildCollectionForAll() {
+		String sql = ProjectDao.createFetchShapes().get(FetchPlan.ALL.mask());
+
+		assertTrue(sql.indexOf("FROM material") < sql.indexOf("FROM step"), sql);
+		assertTrue(sql.indexOf("FROM step") < sql.indexOf("FROM category"), sql);
+		assertEquals(4, parameterCount(sql));
+	} // fetchesEveryChildCollectionForAll method
+
+	@Test
+	void buildsAnUpdateShapeForEverySetOfFields() {
+		List<ProjectDao.UpdateShape> shapes = ProjectDao.createUpdateShapes();
+
+		assertEquals(1 << Project.Field.values().length, shapes.size());
+		assertNull(shapes.get(0));
+
+		for (int mask = 1; mask < shapes.size(); mask++) {
+			ProjectDao.UpdateShape shape = shapes.get(mask);
+
+			assertNotNull(shape);
+			assertTrue(shape.sql().endsWith(" WHERE project_id = ?"), shape.sql());
+			assertEquals(Integer.bitCount(mask) + 1, parameterCount(shape.sql()), shape.sql());
+			assertEquals(Integer.bitCount(mask) + 1, shape.binder().size(), shape.sql());
+		} // for loop
+	} // buildsAnUpdateShapeForEverySetOfFields method
+
+	@Test
+	void updatesOnlyTheChangedColumns() throws Exception {
+		int mask = 1 << Project.Field.PROJECT_NAME.ordinal() | 1 << Project.Field.NOTES.ordinal();
+		ProjectDao.UpdateShape shape = ProjectDao.createUpdateShapes().get(mask);
+
+		Project project = new Project();
+		project.setProjectId(12);
+		project.setProjectName("Bench");
+		project.setEstimatedHours(new BigDecimal("4.00"));
+		project.setNotes("Oak");
+
+		Map<Integer, Object> parameters = new TreeMap<>();
+		shape.binder().bind(recordingStatement(parameters), project);
+
+		assertEquals("UPDATE project SET project_name = ?, notes = ? WHERE project_id = ?", shape.sql());
+		assertEquals(Map.of(1, "Bench", 2, "Oak", 3, 12), parameters);
+	} // updatesOnlyTheChangedColumns method
+
+	private static int parameterCount(String sql) {
+		return (int) sql.chars().filter(ch -> ch == '?').count();
+	} // parameterCount method
+
+	/*
+	 * This method returns a statement that records the value of each set call by parameter index
+	 */
+	private static PreparedStatement recordingStatement(Map<Integer, Object> parameters) {
+		return (PreparedStatement) Proxy.newProxyInstance(ProjectDaoTest.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+					if (method.getName().startsWith("set")) {
+						parameters.put((Integer) args[0], method.getName().equals("setNull") ? null : args[1]);
+					} // if statement
+
+					return null;
+				});
+	} // recordingStatement method
+} // class ProjectDaoTest
@@ -0,0 +1,133 @@
+/**
+ *
+ */
+package projects.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the conversion of projects to {@link CompactProject}s and back, and the sharing of strings
+ * and categories between them.
+ *
+ * @author Promineo
+ *
+ */
+class ProjectCompactorTest {
+
+  @Test
+  void convertsAProjectAndBackUnchanged() {
+    Project project = project(3, "Shelf", "Board");
+    CompactProject compact = new ProjectCompactor().compact(project);
+    Project restored = compact.toProject();
+
+    assertEquals(project.toString(), restored.toString());
+    assertEquals(250, compact.getEstimatedHoursCents());
+    assertEquals(999, compact.getMaterials().get(0).getCostCents());
+    assertFalse(restored.isDirty());
+  }
+
+  @Test
+  void keepsMissingValuesMissing() {
+    Project project = new Project();
+    project.setProjectId(1);
+
+    CompactProject compact = new ProjectCompactor().compact(project);
+    Project restored = compact.toProject();
+
+    assertEquals(CompactProject.NO_NUMBER, compact.getDifficulty());
+    assertEquals(CompactProject.NO_AMOUNT, compact.getActualHoursCents());
+    assertNull(restored.getProjectName());
+    assertNull(restored.getActualHours());
+    assertNull(restored.getDifficulty());
+    assertEquals(0, restored.getMaterials().size());
+  }
+
+  @Test
+  void sharesEqualStringsBetweenProjects() {
+    ProjectCompactor compactor = new ProjectCompactor();
+    CompactProject first = compactor.compact(project(1, "Shelf", new String("Board")));
+    CompactProject second = compactor.compact(project(2, "Bench", new String("Board")));
+
+    assertSame(first.getMaterials().get(0).getMaterialName(), second.getMaterials().get(0).getMaterialName());
+  }
+
+  @Test
+  void sharesACategoryBetweenProjects() {
+    ProjectCompactor compactor = new ProjectCompactor();
+    CompactProject first = compactor.compact(project(1, "Shelf", "Board"));
+    CompactProject second = compactor.compact(project(2, "Bench", "Board"));
+
+    assertSame(first.getCategories().get(0), second.getCategories().get(0));
+    assertEquals(1, compactor.getCategoryCount());
+  }
+
+  @Test
+  void replacesASharedCategoryWhoseNameChanged() {
+    ProjectCompactor compactor = new ProjectCompactor();
+    CompactProject first = compactor.compact(project(1, "Shelf", "Board"));
+
+    Project renamed = project(2, "Bench", "Board");
+    renamed.getCategories().get(0).setCategoryName("Furniture");
+    CompactProject second = compactor.compact(renamed);
+
+    assertNotSame(first.getCategories().get(0), second.getCategories().get(0));
+    assertEquals("Woodwork", first.getCategories().get(0).getCategoryName());
+    assertEquals("Furniture", second.getCategories().get(0).getCategoryName());
+  }
+
+  @Test
+  void rejectsAmountsWithMoreThanTwoDecimalPlaces() {
+    Project project = project(1, "Shelf", "Board");
+    project.setActualHours(new BigDecimal("1.005"));
+
+    assertThrows(IllegalArgumentException.class, () -> new ProjectCompactor().compact(project));
+  }
+
+  @Test
+  void acceptsTrailingZerosPastTwoDecimalPlaces() {
+    Project project = project(1, "Shelf", "Board");
+    project.setActualHours(new BigDecimal("1.5000"));
+
+    assertEquals(150, new ProjectCompactor().compact(project).getActualHoursCents());
+  }
+
+  private static Project project(int projectId, String name, String materialName) {
+    Project project = new Project();
+    project.setProjectId(projectId);
+    project.setProjectName(name);
+    project.setEstimatedHours(new BigDecimal("2.50"));
+    project.setDifficulty(2);
+    project.setNotes("Notes");
+
+    Material material = new Material();
+    material.setMaterialId(projectId * 10);
+    material.setProjectId(projectId);
+    material.setMaterialName(materialName);
+    material.setNumRequired(4);
+    material.setCost(new BigDecimal("9.99"));
+    project.getMaterials().add(material);
+
+    Step step = new Step();
+    step.setStepId(projectId * 10);
+    step.setProjectId(projectId);
+    step.setStepText("Cut");
+    step.setStepOrder(1);
+    project.getSteps().add(step);
+
+    Category category = new Category();
+    category.setCategoryId(5);
+    category.setCategoryName("Woodwork");
+    project.getCategories().add(category);
+
+    return project;
+  }
+}
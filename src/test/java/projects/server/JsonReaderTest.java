@@ -0,0 +1,102 @@
+package projects.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * This class tests the JSON parsing of request bodies and the errors for bodies that are not valid
+ */
+class JsonReaderTest {
+
+	@Test
+	void parsesValuesOfEveryType() {
+		Map<String, Object> body = JsonReader
+				.parseObject(" { \"name\" : \"Shelf\", \"hours\": 1.50, \"done\": true, \"open\": false,"
+						+ " \"notes\": null, \"tags\": [1, \"a\", {}], \"owner\": {\"id\": -2e1} } ");
+
+		assertEquals("Shelf", body.get("name"));
+		assertEquals(new BigDecimal("1.50"), body.get("hours"));
+		assertEquals(Boolean.TRUE, body.get("done"));
+		assertEquals(Boolean.FALSE, body.get("open"));
+		assertTrue(body.containsKey("notes"));
+		assertEquals(Arrays.asList(new BigDecimal("1"), "a", Map.of()), body.get("tags"));
+		assertEquals(Map.of("id", new BigDecimal("-2e1")), body.get("owner"));
+	} // parsesValuesOfEveryType method
+
+	@Test
+	void keepsTheFieldOrder() {
+		Map<String, Object> body = JsonReader.parseObject("{\"b\": 1, \"a\": 2, \"c\": 3}");
+
+		assertEquals(List.of("b", "a", "c"), List.copyOf(body.keySet()));
+	} // keepsTheFieldOrder method
+
+	@Test
+	void decodesEscapes() {
+		Map<String, Object> body = JsonReader.parseObject("{\"text\": \"a\\\"b\\\\c\\/d\\n\\t\\u00e9\\u20ac\"}");
+
+		assertEquals("a\"b\\c/d\n\t\u00e9\u20ac", body.get("text"));
+	} // decodesEscapes method
+
+	@Test
+	void rejectsBodiesThatAreNotAnObject() {
+		assertThrows(IllegalArgumentException.class, () -> JsonReader.parseObject("[1, 2]"));
+		assertThrows(IllegalArgumentException.class, () -> JsonReader.parseObject(""));
+		assertThrows(IllegalArgumentException.class, () -> JsonReader.parseObject("{} {}"));
+	} // rejectsBodiesThatAreNotAnObject method
+
+	@Test
+	void rejectsInvalidJson() {
+		// @formatter:off
+		List<String> bodies = List.of(
+			"{\"a\": }",
+			"{\"a\" 1}",
+			"{a: 1}",
+			"{\"a\": 1,}",
+			"{\"a\": [1 2]}",
+			"{\"a\": \"open}",
+			"{\"a\": \"\\u12\"}",
+			"{\"a\": \"\\uzzzz\"}",
+			"{\"a\": 1.2.3}",
+			"{\"a\": nul}",
+			"{\"a\": 1"
+		);
+		// @formatter:on
+
+		for (String body : bodies) {
+			assertThrows(IllegalArgumentException.class, () -> JsonReader.parseObject(body), body);
+		} // for loop
+	} // rejectsInvalidJson method
+
+	@Test
+	void reportsThePositionOfAnError() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> JsonReader.parseObject("{\"a\": tru}"));
+
+		assertTrue(e.getMessage().contains("position 6"), e.getMessage());
+	} // reportsThePositionOfAnError method
+
+	@Test
+	void acceptsNestingUpToTheMaximumDepth() {
+		int arrays = JsonReader.MAX_DEPTH - 1;
+		Map<String, Object> body = JsonReader.parseObject("{\"a\": " + "[".repeat(arrays) + "]".repeat(arrays) + "}");
+
+		assertTrue(body.get("a") instanceof List);
+	} // acceptsNestingUpToTheMaximumDepth method
+
+	@Test
+	void rejectsNestingPastTheMaximumDepth() {
+		int arrays = JsonReader.MAX_DEPTH;
+
+		assertThrows(IllegalArgumentException.class,
+				() -> JsonReader.parseObject("{\"a\": " + "[".repeat(arrays) + "]".repeat(arrays) + "}"));
+		assertThrows(IllegalArgumentException.class, () -> JsonReader.parseObject("{\"a\": " + "[".repeat(100_000)));
+	} // rejectsNestingPastTheMaximumDepth method
+} // class JsonReaderTest
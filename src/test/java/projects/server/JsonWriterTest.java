@@ -0,0 +1,135 @@
+package projects.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import projects.dao.Page;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.ProjectSummary;
+import projects.entity.Step;
+
+/*
+ * This class tests the JSON written for responses, and that JsonReader reads it back
+ */
+class JsonWriterTest {
+
+	@Test
+	void writesAProjectWithItsChildren() {
+		String expected = ""
+				+ "{\"projectId\":7,\"projectName\":\"Shelf\",\"estimatedHours\":2.50,\"actualHours\":null,"
+				+ "\"difficulty\":3,\"notes\":null,"
+				+ "\"materials\":[{\"materialId\":1,\"materialName\":\"Board\",\"numRequired\":2,\"cost\":9.99}],"
+				+ "\"steps\":[{\"stepId\":4,\"stepText\":\"Cut\",\"stepOrder\":1},"
+				+ "{\"stepId\":5,\"stepText\":\"Sand\",\"stepOrder\":2}],"
+				+ "\"categories\":[]}";
+
+		assertEquals(expected, new JsonWriter(16).project(project()).toString());
+	} // writesAProjectWithItsChildren method
+
+	@Test
+	void writesASummaryPage() {
+		Page<ProjectSummary> page = new Page<>(List.of(new ProjectSummary(1, "A"), new ProjectSummary(2, "B")),
+				new Page.Cursor(2, "B"));
+
+		assertEquals("{\"projects\":[{\"projectId\":1,\"projectName\":\"A\"},{\"projectId\":2,\"projectName\":\"B\"}],"
+				+ "\"next\":2}", new JsonWriter(16).summaryPage(page).toString());
+		assertEquals("{\"projects\":[],\"next\":null}",
+				new JsonWriter(16).summaryPage(new Page<>(List.of(), null)).toString());
+	} // writesASummaryPage method
+
+	@Test
+	void escapesQuotesBackslashesAndControlCharacters() {
+		assertEquals("{\"error\":\"say \\\"hi\\\" \\\\ \\u000a\\u0001\"}",
+				new JsonWriter(16).error("say \"hi\" \\ \n\u0001").toString());
+	} // escapesQuotesBackslashesAndControlCharacters method
+
+	@Test
+	void encodesNonAsciiAsUtf8() throws IOException {
+		String text = "caf\u00e9 \u20ac \ud83d\ude00";
+		JsonWriter json = new JsonWriter(4).error(text);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		json.writeTo(out);
+
+		assertArrayEquals(("{\"error\":\"" + text + "\"}").getBytes(StandardCharsets.UTF_8), out.toByteArray());
+		assertEquals(out.size(), json.size());
+	} // encodesNonAsciiAsUtf8 method
+
+	@Test
+	void escapesAnUnpairedSurrogate() {
+		assertEquals("{\"error\":\"a\\ud83db\"}", new JsonWriter(16).error("a\ud83db").toString());
+	} // escapesAnUnpairedSurrogate method
+
+	@Test
+	void writesIntegersAtTheLimits() {
+		String json = new JsonWriter(1).beginObject().field("min", Integer.MIN_VALUE).field("max", Integer.MAX_VALUE)
+				.field("zero", 0).field("negative", -42).endObject().toString();
+
+		assertEquals("{\"min\":-2147483648,\"max\":2147483647,\"zero\":0,\"negative\":-42}", json);
+	} // writesIntegersAtTheLimits method
+
+	@Test
+	void writesDecimalsWithoutAnExponent() {
+		assertEquals("{\"value\":12000000}",
+				new JsonWriter(16).beginObject().field("value", new BigDecimal("1.2E+7")).endObject().toString());
+	} // writesDecimalsWithoutAnExponent method
+
+	@Test
+	void startsOverAfterReset() {
+		JsonWriter json = new JsonWriter(16);
+		json.error("first");
+		json.reset().error("second");
+
+		assertEquals("{\"error\":\"second\"}", json.toString());
+		assertTrue(json.capacity() >= json.size());
+	} // startsOverAfterReset method
+
+	@Test
+	void writesJsonThatTheReaderReadsBack() {
+		Project project = project();
+		project.setNotes("line one\nline \"two\" \u00e9");
+
+		Map<String, Object> body = JsonReader.parseObject(new JsonWriter(16).project(project).toString());
+
+		assertEquals(project.getNotes(), body.get("notes"));
+		assertEquals(new BigDecimal("2.50"), body.get("estimatedHours"));
+		assertEquals(2, ((List<?>) body.get("steps")).size());
+	} // writesJsonThatTheReaderReadsBack method
+
+	private static Project project() {
+		Project project = new Project();
+		project.setProjectId(7);
+		project.setProjectName("Shelf");
+		project.setEstimatedHours(new BigDecimal("2.50"));
+		project.setDifficulty(3);
+
+		Material material = new Material();
+		material.setMaterialId(1);
+		material.setMaterialName("Board");
+		material.setNumRequired(2);
+		material.setCost(new BigDecimal("9.99"));
+		project.getMaterials().add(material);
+
+		project.getSteps().add(step(4, "Cut", 1));
+		project.getSteps().add(step(5, "Sand", 2));
+		return project;
+	} // project method
+
+	private static Step step(int stepId, String text, int order) {
+		Step step = new Step();
+		step.setStepId(stepId);
+		step.setStepText(text);
+		step.setStepOrder(order);
+		return step;
+	} // step method
+} // class JsonWriterTest
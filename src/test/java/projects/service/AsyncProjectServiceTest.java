@@ -0,0 +1,157 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import projects.entity.Project;
+
+/*
+ * This class tests the concurrency limit, failure handling and shutdown of AsyncProjectService. The
+ * ProjectService underneath is replaced by one that never reaches the database.
+ */
+class AsyncProjectServiceTest {
+	private static final int MAX_CONCURRENCY = 2;
+
+	@Test
+	void runsNoMoreCallsAtOnceThanTheLimit() throws Exception {
+		BlockingProjectService projectService = new BlockingProjectService();
+		List<CompletableFuture<Project>> calls = new ArrayList<>();
+
+		try (AsyncProjectService service = new AsyncProjectService(projectService, MAX_CONCURRENCY)) {
+			for (int id = 1; id <= 6; id++) {
+				calls.add(service.fetchProjectById(id));
+			} // for loop
+
+			awaitCondition(() -> projectService.running.get() == MAX_CONCURRENCY && service.getQueuedCalls() == 4);
+			Thread.sleep(50);
+			assertEquals(MAX_CONCURRENCY, projectService.running.get());
+
+			projectService.release.countDown();
+
+			for (int index = 0; index < calls.size(); index++) {
+				assertEquals(index + 1, calls.get(index).get(5, TimeUnit.SECONDS).getProjectId());
+			} // for loop
+		} // try-with-resources block
+
+		assertEquals(MAX_CONCURRENCY, projectService.maxRunning.get());
+	} // runsNoMoreCallsAtOnceThanTheLimit method
+
+	@Test
+	void failsTheFutureWithTheServiceException() {
+		BlockingProjectService projectService = new BlockingProjectService();
+		projectService.release.countDown();
+
+		try (AsyncProjectService service = new AsyncProjectService(projectService, MAX_CONCURRENCY)) {
+			ExecutionException e = assertThrows(ExecutionException.class,
+					() -> service.fetchProjectById(BlockingProjectService.MISSING_ID).get(5, TimeUnit.SECONDS));
+
+			assertInstanceOf(NoSuchElementException.class, e.getCause());
+		} // try-with-resources block
+	} // failsTheFutureWithTheServiceException method
+
+	@Test
+	void failsABulkLookupWhenOneLookupFails() {
+		BlockingProjectService projectService = new BlockingProjectService();
+		projectService.release.countDown();
+
+		try (AsyncProjectService service = new AsyncProjectService(projectService, MAX_CONCURRENCY)) {
+			CompletableFuture<List<Project>> lookups = service
+					.fetchProjectsById(List.of(1, BlockingProjectService.MISSING_ID, 3));
+
+			ExecutionException e = assertThrows(ExecutionException.class, () -> lookups.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(NoSuchElementException.class, e.getCause());
+		} // try-with-resources block
+	} // failsABulkLookupWhenOneLookupFails method
+
+	@Test
+	void releasesTheSlotOfAFailedCall() throws Exception {
+		BlockingProjectService projectService = new BlockingProjectService();
+		projectService.release.countDown();
+
+		try (AsyncProjectService service = new AsyncProjectService(projectService, 1)) {
+			for (int call = 0; call < 3; call++) {
+				CompletableFuture<Project> failed = service.fetchProjectById(BlockingProjectService.MISSING_ID);
+				assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+			} // for loop
+
+			assertEquals(7, service.fetchProjectById(7).get(5, TimeUnit.SECONDS).getProjectId());
+		} // try-with-resources block
+	} // releasesTheSlotOfAFailedCall method
+
+	@Test
+	void finishesSubmittedCallsAndRejectsNewOnesAfterClose() throws Exception {
+		BlockingProjectService projectService = new BlockingProjectService();
+		AsyncProjectService service = new AsyncProjectService(projectService, MAX_CONCURRENCY);
+
+		CompletableFuture<Project> submitted = service.fetchProjectById(1);
+		service.close();
+		projectService.release.countDown();
+
+		assertEquals(1, submitted.get(5, TimeUnit.SECONDS).getProjectId());
+		assertThrows(RejectedExecutionException.class, () -> service.fetchProjectById(2));
+	} // finishesSubmittedCallsAndRejectsNewOnesAfterClose method
+
+	@Test
+	void rejectsALimitBelowOne() {
+		assertThrows(IllegalArgumentException.class, () -> new AsyncProjectService(new BlockingProjectService(), 0));
+	} // rejectsALimitBelowOne method
+
+	private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		} // while block
+
+		assertTrue(condition.getAsBoolean());
+	} // awaitCondition method
+
+	/*
+	 * This class answers fetchProjectById without a database. Each call waits for release and counts how
+	 * many calls are running at once.
+	 */
+	private static class BlockingProjectService extends ProjectService {
+		private static final int MISSING_ID = -1;
+
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final AtomicInteger running = new AtomicInteger();
+		private final AtomicInteger maxRunning = new AtomicInteger();
+
+		@Override
+		public Project fetchProjectById(Integer projectId) {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+			try {
+				release.await(5, TimeUnit.SECONDS);
+
+				if (projectId == MISSING_ID) {
+					throw new NoSuchElementException("Project with ID=" + projectId + " does not exist.");
+				} // if statement
+
+				Project project = new Project();
+				project.setProjectId(projectId);
+				return project;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} finally {
+				running.decrementAndGet();
+			} // try-catch-finally block
+		} // fetchProjectById method
+	} // class BlockingProjectService
+} // class AsyncProjectServiceTest
@@ -0,0 +1,87 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import projects.entity.CompactProject;
+import projects.entity.Project;
+
+/*
+ * This class tests adding projects to a ProjectCatalog and finding them again
+ */
+class ProjectCatalogTest {
+
+	@Test
+	void findsProjectsAddedInAnyOrder() {
+		ProjectCatalog catalog = new ProjectCatalog();
+
+		for (int id : new int[] { 5, 1, 9, 3, 7 }) {
+			catalog.add(project(id));
+		} // for loop
+
+		assertEquals(5, catalog.size());
+		assertEquals("Project 9", catalog.get(9).getProjectName());
+		assertEquals("Project 1", catalog.get(1).getProjectName());
+		assertNull(catalog.get(4));
+		assertNull(catalog.get(10));
+	} // findsProjectsAddedInAnyOrder method
+
+	@Test
+	void streamsProjectsInIdOrder() {
+		ProjectCatalog catalog = new ProjectCatalog();
+
+		for (int id = 40; id > 0; id--) {
+			catalog.add(project(id));
+		} // for loop
+
+		assertEquals(40, catalog.stream().count());
+		assertEquals(List.of(1, 2, 3), catalog.stream().limit(3).map(CompactProject::getProjectId).toList());
+	} // streamsProjectsInIdOrder method
+
+	@Test
+	void keepsWorkingAfterTrimToSize() {
+		ProjectCatalog catalog = new ProjectCatalog();
+		catalog.add(project(1));
+		catalog.add(project(2));
+		catalog.trimToSize();
+		catalog.add(project(3));
+
+		assertEquals(3, catalog.size());
+		assertEquals("Project 3", catalog.get(3).getProjectName());
+	} // keepsWorkingAfterTrimToSize method
+
+	@Test
+	void growsAfterAnEmptyCatalogIsTrimmed() {
+		ProjectCatalog catalog = new ProjectCatalog();
+		catalog.trimToSize();
+		catalog.add(project(1));
+
+		assertEquals(1, catalog.size());
+		assertEquals("Project 1", catalog.get(1).getProjectName());
+	} // growsAfterAnEmptyCatalogIsTrimmed method
+
+	@Test
+	void findsNothingInAnEmptyCatalog() {
+		ProjectCatalog catalog = new ProjectCatalog();
+
+		assertNull(catalog.get(1));
+		assertEquals(0, catalog.stream().count());
+	} // findsNothingInAnEmptyCatalog method
+
+	@Test
+	void rejectsAnUnsavedProject() {
+		assertThrows(IllegalArgumentException.class, () -> new ProjectCatalog().add(new Project()));
+	} // rejectsAnUnsavedProject method
+
+	private static Project project(int projectId) {
+		Project project = new Project();
+		project.setProjectId(projectId);
+		project.setProjectName("Project " + projectId);
+		return project;
+	} // project method
+} // class ProjectCatalogTest
@@ -0,0 +1,250 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * This class tests the loading, eviction and invalidation rules of ReadThroughCache
+ */
+class ReadThroughCacheTest {
+
+	@Test
+	void loadsOnceAndThenHits() {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 0);
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals("1", cache.get(1, key -> load(loads, key)));
+		assertEquals("1", cache.get(1, key -> load(loads, key)));
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	} // loadsOnceAndThenHits method
+
+	@Test
+	void doesNotCacheNull() {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 0);
+		AtomicInteger loads = new AtomicInteger();
+
+		assertNull(cache.get(1, key -> {
+			loads.incrementAndGet();
+			return null;
+		}));
+		assertEquals("1", cache.get(1, key -> load(loads, key)));
+
+		assertEquals(2, loads.get());
+	} // doesNotCacheNull method
+
+	@Test
+	void evictsTheLeastRecentlyUsedEntry() {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(2, 0);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get(1, key -> load(loads, key));
+		cache.get(2, key -> load(loads, key));
+		cache.get(1, key -> load(loads, key));
+		cache.get(3, key -> load(loads, key));
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals("1", cache.peek(1));
+		assertNull(cache.peek(2));
+	} // evictsTheLeastRecentlyUsedEntry method
+
+	@Test
+	void expiresEntriesAfterTheTtl() throws InterruptedException {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 20);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get(1, key -> load(loads, key));
+		Thread.sleep(50);
+		cache.get(1, key -> load(loads, key));
+
+		assertEquals(2, loads.get());
+	} // expiresEntriesAfterTheTtl method
+
+	@Test
+	void loadsEveryTimeWhenDisabled() {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(0, 0);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get(1, key -> load(loads, key));
+		cache.get(1, key -> load(loads, key));
+
+		assertFalse(cache.isEnabled());
+		assertEquals(2, loads.get());
+		assertEquals(0, cache.size());
+	} // loadsEveryTimeWhenDisabled method
+
+	@Test
+	void peekDoesNotLoad() {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 0);
+
+		assertNull(cache.peek(1));
+		assertEquals(0, cache.size());
+	} // peekDoesNotLoad method
+
+	@Test
+	void countsPeekHitsAndMisses() {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 0);
+		cache.get(1, String::valueOf);
+
+		cache.peek(1);
+		cache.peek(2);
+		cache.peek(3);
+
+		assertEquals(1, cache.getHitCount());
+		assertEquals(3, cache.getMissCount());
+	} // countsPeekHitsAndMisses method
+
+	@Test
+	void invalidateRemovesEntries() {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 0);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get(1, key -> load(loads, key));
+		cache.get(2, key -> load(loads, key));
+		cache.invalidate(1);
+
+		assertNull(cache.peek(1));
+		assertEquals("2", cache.peek(2));
+
+		cache.invalidateAll();
+		assertEquals(0, cache.size());
+	} // invalidateRemovesEntries method
+
+	/*
+	 * A write that lands while a load is running may not be in the loaded value, so the value is
+	 * returned to its caller but not kept
+	 */
+	@Test
+	void doesNotStoreALoadStartedBeforeAnInvalidate() {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 0);
+
+		String value = cache.get(1, key -> {
+			cache.invalidate(key);
+			return "old";
+		});
+
+		assertEquals("old", value);
+		assertNull(cache.peek(1));
+	} // doesNotStoreALoadStartedBeforeAnInvalidate method
+
+	/*
+	 * A thread that misses while another thread is loading the same key waits for that load instead of
+	 * running its own
+	 */
+	@Test
+	void sharesAnInFlightLoad() throws Exception {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 0);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get(1, key -> {
+			loading.countDown();
+			await(release);
+			return load(loads, key);
+		}));
+
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+		Thread waiter = new Thread(() -> cache.get(1, key -> load(loads, key)));
+		waiter.start();
+		awaitWaiting(waiter);
+
+		release.countDown();
+		waiter.join(5000);
+
+		assertEquals("1", first.get(5, TimeUnit.SECONDS));
+		assertEquals(1, loads.get());
+	} // sharesAnInFlightLoad method
+
+	@Test
+	void throwsALoadFailureWithoutCachingIt() {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 0);
+		IllegalStateException failure = new IllegalStateException("down");
+
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> cache.get(1, key -> {
+			throw failure;
+		}));
+
+		assertSame(failure, thrown);
+		assertEquals("1", cache.get(1, String::valueOf));
+	} // throwsALoadFailureWithoutCachingIt method
+
+	/*
+	 * A thread waiting on a load that fails with an Error gets the Error instead of waiting forever
+	 */
+	@Test
+	void passesALoaderErrorToTheWaitingThreads() throws Exception {
+		ReadThroughCache<Integer, String> cache = new ReadThroughCache<>(10, 0);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		StackOverflowError failure = new StackOverflowError("deep");
+
+		CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get(1, key -> {
+			loading.countDown();
+			await(release);
+			throw failure;
+		}));
+
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+		CompletableFuture<Throwable> waiterFailure = new CompletableFuture<>();
+		Thread waiter = new Thread(() -> {
+			try {
+				cache.get(1, String::valueOf);
+				waiterFailure.complete(null);
+			} catch (Throwable e) {
+				waiterFailure.complete(e);
+			} // try-catch block
+		});
+		waiter.start();
+		awaitWaiting(waiter);
+
+		release.countDown();
+
+		assertSame(failure, waiterFailure.get(5, TimeUnit.SECONDS));
+		assertSame(failure, assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+		assertEquals("1", cache.get(1, String::valueOf));
+	} // passesALoaderErrorToTheWaitingThreads method
+
+	private static String load(AtomicInteger loads, Integer key) {
+		loads.incrementAndGet();
+		return String.valueOf(key);
+	} // load method
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} // try-catch block
+	} // await method
+
+	/*
+	 * This method waits until the thread is parked, which it is once it waits on the load in flight
+	 */
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+
+		while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		} // while block
+
+		assertEquals(Thread.State.WAITING, thread.getState());
+	} // awaitWaiting method
+} // class ReadThroughCacheTest
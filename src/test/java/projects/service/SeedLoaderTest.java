@@ -0,0 +1,248 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import projects.dao.ProjectDao;
+import projects.exception.DbException;
+
+/*
+ * This class tests how SeedLoader orders tables so that rows are loaded after the rows they
+ * reference, and which connection each statement of a script runs on. The connections and the DAO
+ * are replaced by ones that only record what they were asked to do.
+ */
+class SeedLoaderTest {
+
+	@Test
+	void loadsReferencedTablesFirst() {
+		// @formatter:off
+		Map<String, Set<String>> dependencies = Map.of(
+			"material", Set.of("project"),
+			"step", Set.of("project"),
+			"project_category", Set.of("project", "category")
+		);
+		// @formatter:on
+
+		List<List<String>> levels = SeedLoader.orderByDependencies(
+				List.of("project_category", "step", "material", "project", "category"), dependencies);
+
+		assertEquals(List.of(List.of("project", "category"), List.of("project_category", "step", "material")),
+				levels);
+	} // loadsReferencedTablesFirst method
+
+	@Test
+	void ignoresReferencesToTablesNotBeingLoaded() {
+		List<List<String>> levels = SeedLoader.orderByDependencies(List.of("material", "step"),
+				Map.of("material", Set.of("project"), "step", Set.of("project")));
+
+		assertEquals(List.of(List.of("material", "step")), levels);
+	} // ignoresReferencesToTablesNotBeingLoaded method
+
+	@Test
+	void doesNotWaitOnASelfReference() {
+		List<List<String>> levels = SeedLoader.orderByDependencies(List.of("category", "project"),
+				Map.of("category", Set.of("category"), "project", Set.of("category")));
+
+		assertEquals(List.of(List.of("category"), List.of("project")), levels);
+	} // doesNotWaitOnASelfReference method
+
+	@Test
+	void buildsOneLevelPerLinkOfAChain() {
+		List<List<String>> levels = SeedLoader.orderByDependencies(List.of("c", "b", "a"),
+				Map.of("c", Set.of("b"), "b", Set.of("a")));
+
+		assertEquals(List.of(List.of("a"), List.of("b"), List.of("c")), levels);
+	} // buildsOneLevelPerLinkOfAChain method
+
+	@Test
+	void rejectsCircularReferences() {
+		assertThrows(DbException.class, () -> SeedLoader.orderByDependencies(List.of("a", "b", "c"),
+				Map.of("a", Set.of("b"), "b", Set.of("a"))));
+	} // rejectsCircularReferences method
+
+	@Test
+	void returnsNoLevelsForNoTables() {
+		assertEquals(List.of(), SeedLoader.orderByDependencies(List.of(), Map.of()));
+	} // returnsNoLevelsForNoTables method
+
+	@Test
+	void countsTheRowTuplesOfAValuesList() {
+		assertEquals(1, SeedLoader.countRows("(1, 'a')"));
+		assertEquals(3, SeedLoader.countRows("(1, 'a'), (2, 'b'),(3, 'c')"));
+		assertEquals(2, SeedLoader.countRows("(1, CONCAT('(', 'x')), (2, 'it''s ), (')"));
+		assertEquals(2, SeedLoader.countRows("(1, 'a\\'), ('), (2, \"(\")"));
+	} // countsTheRowTuplesOfAValuesList method
+
+	@Test
+	void runsSessionStatementsOnEveryConnectionAndAbortsThem() throws IOException {
+		RecordingDataSource dataSource = new RecordingDataSource();
+		RecordingProjectDao projectDao = new RecordingProjectDao(Map.of("child", Set.of("parent")));
+
+		load(projectDao, dataSource.source(), ""
+				+ "SET FOREIGN_KEY_CHECKS = 0;"
+				+ "INSERT INTO parent VALUES (1), (2);"
+				+ "INSERT INTO child VALUES (1, 1);"
+				+ "INSERT INTO child VALUES (2, 1);"
+				+ "SET UNIQUE_CHECKS = 0;"
+				+ "INSERT INTO parent VALUES (3);");
+
+		Thread caller = Thread.currentThread();
+		Map<Thread, List<String>> byThread = new HashMap<>();
+
+		for (Batch batch : projectDao.batches) {
+			byThread.computeIfAbsent(batch.thread, thread -> new ArrayList<>()).addAll(batch.statements);
+		} // for loop
+
+		assertEquals(List.of("SET FOREIGN_KEY_CHECKS = 0", "SET UNIQUE_CHECKS = 0"), byThread.get(caller));
+
+		for (Map.Entry<Thread, List<String>> entry : byThread.entrySet()) {
+			if (entry.getKey() != caller) {
+				List<String> statements = entry.getValue();
+
+				assertEquals("SET FOREIGN_KEY_CHECKS = 0", statements.get(0));
+				assertEquals(1, statements.stream().filter(sql -> sql.startsWith("SET FOREIGN_KEY_CHECKS")).count());
+				assertTrue(statements.stream().filter(sql -> sql.startsWith("SET UNIQUE_CHECKS")).count() <= 1);
+			} // if statement
+		} // for loop
+
+		assertTrue(dataSource.opened.get() > 1);
+		assertEquals(dataSource.opened.get(), dataSource.aborted.get());
+		assertEquals(0, dataSource.closed.get());
+	} // runsSessionStatementsOnEveryConnectionAndAbortsThem method
+
+	@Test
+	void loadsTheRowsOfLockedTablesOnTheLockingConnection() throws IOException {
+		RecordingProjectDao projectDao = new RecordingProjectDao(Map.of());
+
+		load(projectDao, new RecordingDataSource().source(), ""
+				+ "LOCK TABLES parent WRITE;"
+				+ "INSERT INTO parent VALUES (1);"
+				+ "INSERT INTO parent VALUES (2);"
+				+ "UNLOCK TABLES;"
+				+ "INSERT INTO parent VALUES (3);");
+
+		List<Batch> batches = projectDao.batches;
+
+		assertEquals(4, batches.size());
+		assertEquals(List.of("LOCK TABLES parent WRITE"), batches.get(0).statements);
+		assertEquals(List.of("INSERT INTO parent  VALUES (1), (2)"), batches.get(1).statements);
+		assertEquals(List.of("UNLOCK TABLES"), batches.get(2).statements);
+		assertEquals(List.of("INSERT INTO parent  VALUES (3)"), batches.get(3).statements);
+
+		assertSame(Thread.currentThread(), batches.get(0).thread);
+		assertSame(Thread.currentThread(), batches.get(1).thread);
+		assertSame(Thread.currentThread(), batches.get(2).thread);
+		assertNotSame(Thread.currentThread(), batches.get(3).thread);
+	} // loadsTheRowsOfLockedTablesOnTheLockingConnection method
+
+	@Test
+	void loadsTheRowsReadBeforeAnAlterFirst() throws IOException {
+		RecordingProjectDao projectDao = new RecordingProjectDao(Map.of());
+
+		load(projectDao, new RecordingDataSource().source(), ""
+				+ "INSERT INTO parent (id, name) VALUES (1, 'a');"
+				+ "ALTER TABLE parent DROP COLUMN name;"
+				+ "INSERT INTO parent (id) VALUES (2);");
+
+		// @formatter:off
+		assertEquals(List.of(
+				List.of("INSERT INTO parent (id, name) VALUES (1, 'a')"),
+				List.of("ALTER TABLE parent DROP COLUMN name"),
+				List.of("INSERT INTO parent (id) VALUES (2)")),
+			projectDao.batches.stream().map(batch -> batch.statements).toList());
+		// @formatter:on
+
+		assertEquals(2, projectDao.dependencyReads.get());
+	} // loadsTheRowsReadBeforeAnAlterFirst method
+
+	private static void load(ProjectDao projectDao, DataSource dataSource, String script) throws IOException {
+		try (SqlScriptReader reader = new SqlScriptReader(new StringReader(script))) {
+			new SeedLoader(projectDao, dataSource, 2).load(reader);
+		} // try-with-resources block
+	} // load method
+
+	private record Batch(Thread thread, List<String> statements) {
+	}
+
+	/*
+	 * This class records every batch with the thread that ran it. Each thread has its own connection,
+	 * so the thread tells which connection a statement ran on.
+	 */
+	private static class RecordingProjectDao extends ProjectDao {
+		private final Map<String, Set<String>> dependencies;
+		private final List<Batch> batches = new ArrayList<>();
+		private final AtomicInteger dependencyReads = new AtomicInteger();
+
+		RecordingProjectDao(Map<String, Set<String>> dependencies) {
+			this.dependencies = dependencies;
+		} // RecordingProjectDao constructor
+
+		@Override
+		public void executeBatch(List<String> sqlBatch) {
+			synchronized (batches) {
+				batches.add(new Batch(Thread.currentThread(), List.copyOf(sqlBatch)));
+			} // synchronized block
+		} // executeBatch method
+
+		@Override
+		public Map<String, Set<String>> fetchTableDependencies() {
+			dependencyReads.incrementAndGet();
+			return dependencies;
+		} // fetchTableDependencies method
+	} // class RecordingProjectDao
+
+	/*
+	 * This class hands out connections that do nothing, and counts how many were opened, closed and
+	 * aborted
+	 */
+	private static class RecordingDataSource {
+		private final AtomicInteger opened = new AtomicInteger();
+		private final AtomicInteger closed = new AtomicInteger();
+		private final AtomicInteger aborted = new AtomicInteger();
+
+		DataSource source() {
+			return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { DataSource.class },
+					(proxy, method, args) -> {
+						if (!method.getName().equals("getConnection")) {
+							throw new UnsupportedOperationException(method.getName());
+						} // if statement
+
+						opened.incrementAndGet();
+						return connection();
+					});
+		} // source method
+
+		private Connection connection() {
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> {
+						// @formatter:off
+						switch (method.getName()) {
+							case "close": closed.incrementAndGet(); return null;
+							case "abort": aborted.incrementAndGet(); return null;
+							case "getAutoCommit": return true;
+							case "isClosed": return false;
+							default: throw new UnsupportedOperationException(method.getName());
+						} // switch statement
+						// @formatter:on
+					});
+		} // connection method
+	} // class RecordingDataSource
+} // class SeedLoaderTest
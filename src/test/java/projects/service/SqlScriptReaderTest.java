@@ -0,0 +1,102 @@
+package projects.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * This class tests how SqlScriptReader splits a script into statements
+ */
+class SqlScriptReaderTest {
+
+	@Test
+	void splitsOnSemicolonsAndCollapsesWhiteSpace() throws IOException {
+		assertEquals(List.of("CREATE TABLE a (id INT)", "INSERT INTO a VALUES (1)"),
+				read("CREATE   TABLE a\n\t(id INT);\n\nINSERT INTO a VALUES (1);\n"));
+	} // splitsOnSemicolonsAndCollapsesWhiteSpace method
+
+	@Test
+	void keepsSemicolonsAndWhiteSpaceInsideQuotes() throws IOException {
+		assertEquals(List.of("INSERT INTO a VALUES ('x;  y', \"it\\\"s;\", `c;d`)", "SELECT 1"),
+				read("INSERT INTO a VALUES ('x;  y', \"it\\\"s;\", `c;d`); SELECT 1;"));
+	} // keepsSemicolonsAndWhiteSpaceInsideQuotes method
+
+	@Test
+	void keepsDoubledQuotesInsideQuotes() throws IOException {
+		assertEquals(List.of("SELECT 'it''s; here'"), read("SELECT 'it''s; here';"));
+	} // keepsDoubledQuotesInsideQuotes method
+
+	@Test
+	void removesComments() throws IOException {
+		String script = ""
+				+ "-- a line comment;\n"
+				+ "SELECT 1 # another;\n"
+				+ ", 2 /* a block; comment */ FROM t;\n"
+				+ "SELECT 3--4;";
+
+		assertEquals(List.of("SELECT 1 , 2 FROM t", "SELECT 3--4"), read(script));
+	} // removesComments method
+
+	@Test
+	void changesTheTerminatorOnADelimiterLine() throws IOException {
+		String script = ""
+				+ "DELIMITER $$\n"
+				+ "CREATE TRIGGER t BEFORE INSERT ON a FOR EACH ROW BEGIN SET NEW.id = 1; END$$\n"
+				+ "DELIMITER ;\n"
+				+ "SELECT 1;";
+
+		assertEquals(List.of("CREATE TRIGGER t BEFORE INSERT ON a FOR EACH ROW BEGIN SET NEW.id = 1; END", "SELECT 1"),
+				read(script));
+	} // changesTheTerminatorOnADelimiterLine method
+
+	@Test
+	void returnsALastStatementWithoutTerminator() throws IOException {
+		assertEquals(List.of("SELECT 1", "SELECT 2"), read("SELECT 1;\nSELECT 2\n"));
+	} // returnsALastStatementWithoutTerminator method
+
+	@Test
+	void skipsEmptyStatements() throws IOException {
+		assertEquals(List.of("SELECT 1"), read(";;  ;\nSELECT 1;;\n-- done\n"));
+	} // skipsEmptyStatements method
+
+	@Test
+	void readsStatementsLongerThanTheBuffer() throws IOException {
+		String value = "x".repeat(20_000);
+
+		assertEquals(List.of("SELECT '" + value + "'", "SELECT 2"), read("SELECT '" + value + "';SELECT 2;"));
+	} // readsStatementsLongerThanTheBuffer method
+
+	@Test
+	void rejectsAnUnterminatedQuote() {
+		assertThrows(IOException.class, () -> read("SELECT 'abc;"));
+	} // rejectsAnUnterminatedQuote method
+
+	@Test
+	void returnsNullForAnEmptyScript() throws IOException {
+		try (SqlScriptReader reader = new SqlScriptReader(new StringReader(" \n-- nothing\n"))) {
+			assertNull(reader.next());
+		} // try-with-resources block
+	} // returnsNullForAnEmptyScript method
+
+	private static List<String> read(String script) throws IOException {
+		List<String> statements = new ArrayList<>();
+
+		try (SqlScriptReader reader = new SqlScriptReader(new StringReader(script))) {
+			String statement;
+
+			while (Objects.nonNull(statement = reader.next())) {
+				statements.add(statement);
+			} // while block
+		} // try-with-resources block
+
+		return statements;
+	} // read method
+} // class SqlScriptReaderTest
@@ -0,0 +1,107 @@
+/**
+ *
+ */
+package provided.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the counts, mean, maximum and percentiles of {@link LatencyHistogram}.
+ *
+ * @author Promineo
+ *
+ */
+class LatencyHistogramTest {
+
+  @Test
+  void reportsZeroWhenEmpty() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0.0, histogram.getMean(TimeUnit.NANOSECONDS));
+    assertEquals(0.0, histogram.getMax(TimeUnit.NANOSECONDS));
+    assertEquals(0.0, histogram.getPercentile(99, TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  void keepsExactCountMeanAndMax() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    for(int micros = 1; micros <= 1000; micros++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500.5, histogram.getMean(TimeUnit.MICROSECONDS), 1e-9);
+    assertEquals(1000.0, histogram.getMax(TimeUnit.MICROSECONDS));
+  }
+
+  @Test
+  void reportsPercentilesWithinTheBucketError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    for(int micros = 1; micros <= 1000; micros++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+
+    assertWithin(500, histogram.getPercentile(50, TimeUnit.MICROSECONDS));
+    assertWithin(990, histogram.getPercentile(99, TimeUnit.MICROSECONDS));
+    assertEquals(1000.0, histogram.getPercentile(100, TimeUnit.MICROSECONDS));
+  }
+
+  @Test
+  void reportsSmallValuesExactly() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    for(long nanos = 0; nanos < 16; nanos++) {
+      histogram.record(nanos);
+    }
+
+    assertEquals(7.0, histogram.getPercentile(50, TimeUnit.NANOSECONDS));
+    assertEquals(15.0, histogram.getPercentile(100, TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  void recordsNegativeValuesAsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+
+    assertEquals(1, histogram.getCount());
+    assertEquals(0.0, histogram.getMax(TimeUnit.NANOSECONDS));
+    assertEquals(0.0, histogram.getPercentile(50, TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  void capsValuesPastTheLastBucket() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(Long.MAX_VALUE);
+
+    assertEquals(1, histogram.getCount());
+    assertTrue(histogram.getMax(TimeUnit.MINUTES) < 20);
+    assertEquals(histogram.getMax(TimeUnit.NANOSECONDS), histogram.getPercentile(99, TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  void forgetsValuesOnReset() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1_000_000);
+    histogram.reset();
+    histogram.record(10);
+
+    assertEquals(1, histogram.getCount());
+    assertEquals(10.0, histogram.getMax(TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * A value is reported at the upper edge of its bucket, which is at most 1/16 above it.
+   */
+  private static void assertWithin(double expected, double actual) {
+    assertTrue(actual >= expected && actual <= expected * 17 / 16,
+        () -> "Expected " + expected + " within one bucket but was " + actual);
+  }
+}
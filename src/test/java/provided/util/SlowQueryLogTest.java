@@ -0,0 +1,124 @@
+/**
+ *
+ */
+package provided.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests how {@link SlowQueryLog} tells which column each parameter is bound to, which decides the
+ * values it redacts, and that no entry is lost when the log is configured again.
+ *
+ * @author Promineo
+ *
+ */
+class SlowQueryLogTest {
+
+  @Test
+  void mapsInsertParametersToTheColumnList() {
+    assertArrayEquals(new String[] {"project_name", "notes"},
+        SlowQueryLog.parameterColumns("INSERT INTO project (project_name, notes) VALUES (?, ?)"));
+  }
+
+  @Test
+  void mapsEveryRowOfAMultiRowInsert() {
+    assertArrayEquals(new String[] {"step_text", "step_order", "step_text", "step_order"},
+        SlowQueryLog.parameterColumns("INSERT INTO step (`step_text`, step_order) VALUES (?, ?), (?, ?)"));
+  }
+
+  @Test
+  void mapsParametersToTheIdentifierBeforeThem() {
+    assertArrayEquals(new String[] {"project_name", "notes", "project_id"},
+        SlowQueryLog.parameterColumns("UPDATE project SET project_name = ?, notes = ? WHERE p.project_id = ?"));
+  }
+
+  @Test
+  void skipsOperatorsBetweenTheColumnAndTheParameter() {
+    assertArrayEquals(new String[] {"notes", "difficulty", "difficulty"},
+        SlowQueryLog.parameterColumns(
+            "SELECT * FROM project WHERE notes LIKE ? AND difficulty NOT IN (?, ?)"));
+  }
+
+  @Test
+  void ignoresQuestionMarksInsideQuotes() {
+    assertArrayEquals(new String[] {"project_id"},
+        SlowQueryLog.parameterColumns("SELECT * FROM project WHERE notes = 'why?' AND project_id = ?"));
+  }
+
+  @Test
+  void returnsNoColumnsWithoutParameters() {
+    assertArrayEquals(new String[0], SlowQueryLog.parameterColumns("SELECT * FROM project"));
+  }
+
+  @Test
+  void parsesEachStatementOnce() {
+    String sql = "DELETE FROM project WHERE project_id = ?";
+
+    assertSame(SlowQueryLog.parameterColumns(sql), SlowQueryLog.parameterColumns(sql));
+  }
+
+  @Test
+  void writesAnEntryOfAStatementThatRanAcrossAReconfigure() throws Exception {
+    BlockingQueue<String> written = new LinkedBlockingQueue<>();
+    SlowQueryLog.setSink(written::add);
+
+    try {
+      SlowQueryLog.configure(0, 10, List.of(), 100, "provided.util");
+      PreparedStatement stmt = SlowQueryLog.instrument(statement(), "SELECT 1");
+      stmt.execute();
+
+      SlowQueryLog.configure(0, 10, List.of(), 100, "provided.util");
+      long dropped = SlowQueryLog.getDroppedCount();
+      stmt.close();
+
+      String entry = written.poll(5, TimeUnit.SECONDS);
+      assertTrue(entry != null && entry.contains("sql=[SELECT 1]"), String.valueOf(entry));
+      assertEquals(dropped, SlowQueryLog.getDroppedCount());
+    }
+    finally {
+      SlowQueryLog.configure(-1, 0, List.of(), 0, "");
+      SlowQueryLog.setSink(System.err::println);
+    }
+  }
+
+  @Test
+  void countsAnEntryAsDroppedWhenTheLogWasTurnedOff() throws Exception {
+    SlowQueryLog.setSink(entry -> {});
+
+    try {
+      SlowQueryLog.configure(0, 10, List.of(), 100, "provided.util");
+      PreparedStatement stmt = SlowQueryLog.instrument(statement(), "SELECT 1");
+      stmt.execute();
+
+      SlowQueryLog.configure(-1, 0, List.of(), 0, "");
+      long dropped = SlowQueryLog.getDroppedCount();
+      stmt.close();
+
+      assertEquals(dropped + 1, SlowQueryLog.getDroppedCount());
+    }
+    finally {
+      SlowQueryLog.setSink(System.err::println);
+    }
+  }
+
+  /**
+   * Returns a statement that does nothing. execute returns false, as for an update.
+   */
+  private static PreparedStatement statement() {
+    return (PreparedStatement)Proxy.newProxyInstance(SlowQueryLogTest.class.getClassLoader(),
+        new Class<?>[] {PreparedStatement.class},
+        (proxy, method, args) -> method.getReturnType() == boolean.class ? Boolean.FALSE : null);
+  }
+}